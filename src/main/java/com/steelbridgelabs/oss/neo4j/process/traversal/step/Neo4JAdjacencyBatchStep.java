@@ -0,0 +1,169 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.step;
+
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.LocalBarrier;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.AbstractStep;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequirement;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.util.TraverserSet;
+import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded barrier loading the edges adjacent to all the vertices in the barrier with a single CYPHER statement (see
+ * {@link Neo4JGraph#loadEdges(java.util.Collection, Direction, String...)}). The step is placed before a vertex step
+ * so the vertex step evaluates the traversers in memory.
+ *
+ * @author Rogelio J. Baucells
+ */
+public class Neo4JAdjacencyBatchStep<S> extends AbstractStep<S, S> implements LocalBarrier<S> {
+
+    private final Direction direction;
+    private final String[] edgeLabels;
+    private final int maxBarrierSize;
+
+    private TraverserSet<S> barrier = new TraverserSet<>();
+
+    public Neo4JAdjacencyBatchStep(Traversal.Admin traversal, Direction direction, String[] edgeLabels, int maxBarrierSize) {
+        super(traversal);
+        Objects.requireNonNull(direction, "direction cannot be null");
+        Objects.requireNonNull(edgeLabels, "edgeLabels cannot be null");
+        // validate size
+        if (maxBarrierSize <= 0)
+            throw new IllegalArgumentException("maxBarrierSize must be greater than zero");
+        // store fields
+        this.direction = direction;
+        this.edgeLabels = edgeLabels;
+        this.maxBarrierSize = maxBarrierSize;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public String[] getEdgeLabels() {
+        return edgeLabels;
+    }
+
+    public int getMaxBarrierSize() {
+        return maxBarrierSize;
+    }
+
+    @Override
+    protected Traverser.Admin<S> processNextStart() throws NoSuchElementException {
+        // check we need to load the next batch
+        if (barrier.isEmpty())
+            processAllStarts();
+        // next traverser
+        return barrier.remove();
+    }
+
+    @Override
+    public void processAllStarts() {
+        // check barrier is empty (edges were loaded for traversers in barrier)
+        if (barrier.isEmpty()) {
+            // fill barrier
+            while (starts.hasNext() && barrier.size() < maxBarrierSize) {
+                // next traverser
+                Traverser.Admin<S> traverser = starts.next();
+                // when barrier is reloaded, the traversers should be at the next step
+                traverser.setStepId(getNextStep().getId());
+                // append it
+                barrier.add(traverser);
+            }
+            // vertices in barrier
+            List<Vertex> vertices = barrier.stream().map(Traverser::get).filter(item -> item instanceof Vertex).map(item -> (Vertex)item).collect(Collectors.toList());
+            if (!vertices.isEmpty()) {
+                // graph instance
+                getTraversal().getGraph().filter(graph -> graph instanceof Neo4JGraph).ifPresent(graph -> ((Neo4JGraph)graph).loadEdges(vertices, direction, edgeLabels));
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNextBarrier() {
+        // load next batch
+        processAllStarts();
+        // check barrier
+        return !barrier.isEmpty();
+    }
+
+    @Override
+    public TraverserSet<S> nextBarrier() throws NoSuchElementException {
+        // load next batch
+        processAllStarts();
+        // check barrier
+        if (barrier.isEmpty())
+            throw FastNoSuchElementException.instance();
+        // return current barrier
+        TraverserSet<S> current = barrier;
+        barrier = new TraverserSet<>();
+        return current;
+    }
+
+    @Override
+    public void addBarrier(TraverserSet<S> barrier) {
+        this.barrier.addAll(barrier);
+    }
+
+    @Override
+    public Set<TraverserRequirement> getRequirements() {
+        return Collections.singleton(TraverserRequirement.BULK);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        // reset state
+        barrier.clear();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Neo4JAdjacencyBatchStep<S> clone() {
+        Neo4JAdjacencyBatchStep<S> clone = (Neo4JAdjacencyBatchStep<S>)super.clone();
+        // clone state
+        clone.barrier = new TraverserSet<>();
+        // return clone
+        return clone;
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode() ^ direction.hashCode() ^ Arrays.hashCode(edgeLabels) ^ maxBarrierSize;
+    }
+
+    @Override
+    public String toString() {
+        return StringFactory.stepString(this, direction, Arrays.asList(edgeLabels), maxBarrierSize);
+    }
+}
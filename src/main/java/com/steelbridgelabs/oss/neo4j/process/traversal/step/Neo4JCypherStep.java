@@ -0,0 +1,189 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.step;
+
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import com.steelbridgelabs.oss.neo4j.structure.summary.ResultSummaryLogger;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.TraversalParent;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.AbstractStep;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequirement;
+import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Step executing a CYPHER statement compiled from a sequence of traversal steps. The original steps are kept in a
+ * child traversal that is used whenever the statement cannot be executed on the server, for instance when the current
+ * session holds changes that have not been sent to the database yet.
+ *
+ * @author Rogelio J. Baucells
+ */
+public class Neo4JCypherStep<S, E> extends AbstractStep<S, E> implements TraversalParent {
+
+    /**
+     * Processes the {@link StatementResult} of the compiled CYPHER statement.
+     *
+     * @param <E> The type of the values produced by the step.
+     */
+    @FunctionalInterface
+    public interface ResultProcessor<E> {
+
+        /**
+         * Creates the values produced by the step from the statement result.
+         *
+         * @param graph  The {@link Neo4JGraph} instance.
+         * @param result The {@link StatementResult} of the compiled CYPHER statement.
+         * @return The values produced by the step or <code>null</code> if the original steps must be evaluated instead.
+         */
+        List<E> process(Neo4JGraph graph, StatementResult result);
+    }
+
+    /**
+     * Creates the CYPHER statement executed by the step from the compiled statement, used to bind values that must be
+     * computed when the step is executed (not when the traversal is compiled).
+     */
+    @FunctionalInterface
+    public interface StatementPreparer {
+
+        /**
+         * Creates the CYPHER statement executed by the step.
+         *
+         * @param graph     The {@link Neo4JGraph} instance.
+         * @param statement The compiled CYPHER statement.
+         * @return The CYPHER statement to execute.
+         */
+        Statement prepare(Neo4JGraph graph, Statement statement);
+    }
+
+    private final Statement statement;
+    private final StatementPreparer preparer;
+    private final ResultProcessor<E> processor;
+
+    private Traversal.Admin<?, E> fallback;
+    private Iterator<E> iterator = null;
+
+    public Neo4JCypherStep(Traversal.Admin traversal, Statement statement, ResultProcessor<E> processor, Traversal.Admin<?, E> fallback) {
+        // compiled statement is executed as is
+        this(traversal, statement, (graph, compiled) -> compiled, processor, fallback);
+    }
+
+    public Neo4JCypherStep(Traversal.Admin traversal, Statement statement, StatementPreparer preparer, ResultProcessor<E> processor, Traversal.Admin<?, E> fallback) {
+        super(traversal);
+        Objects.requireNonNull(statement, "statement cannot be null");
+        Objects.requireNonNull(preparer, "preparer cannot be null");
+        Objects.requireNonNull(processor, "processor cannot be null");
+        Objects.requireNonNull(fallback, "fallback cannot be null");
+        // store fields
+        this.statement = statement;
+        this.preparer = preparer;
+        this.processor = processor;
+        this.fallback = integrateChild(fallback);
+    }
+
+    public Statement getStatement() {
+        return statement;
+    }
+
+    @Override
+    protected Traverser.Admin<E> processNextStart() {
+        // execute statement on first call
+        if (iterator == null)
+            iterator = execute();
+        // check we have more values
+        if (iterator.hasNext())
+            return getTraversal().getTraverserGenerator().generate(iterator.next(), (Step)this, 1L);
+        // no more values
+        throw FastNoSuchElementException.instance();
+    }
+
+    private Iterator<E> execute() {
+        // graph instance
+        Neo4JGraph graph = (Neo4JGraph)getTraversal().getGraph().orElseThrow(() -> new IllegalStateException("Traversal is not bound to a Neo4JGraph instance"));
+        // server cannot see changes held in session memory, evaluate original steps in that case
+        if (!graph.hasPendingChanges()) {
+            // execute statement
+            StatementResult result = graph.execute(preparer.prepare(graph, statement));
+            // process records
+            List<E> values = processor.process(graph, result);
+            // process summary (query has been already consumed by processor)
+            ResultSummaryLogger.log(result.consume());
+            // check processor was able to handle the result
+            if (values != null)
+                return values.iterator();
+        }
+        // use original steps
+        return fallback;
+    }
+
+    @Override
+    public <A, B> List<Traversal.Admin<A, B>> getGlobalChildren() {
+        return Collections.singletonList((Traversal.Admin<A, B>)fallback);
+    }
+
+    @Override
+    public Set<TraverserRequirement> getRequirements() {
+        return getSelfAndChildRequirements();
+    }
+
+    @Override
+    public void setTraversal(Traversal.Admin<?, ?> parentTraversal) {
+        super.setTraversal(parentTraversal);
+        integrateChild(fallback);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        // reset state
+        iterator = null;
+        fallback.reset();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Neo4JCypherStep<S, E> clone() {
+        Neo4JCypherStep<S, E> clone = (Neo4JCypherStep<S, E>)super.clone();
+        // clone state
+        clone.iterator = null;
+        clone.fallback = clone.integrateChild(fallback.clone());
+        // return clone
+        return clone;
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode() ^ statement.hashCode() ^ fallback.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return StringFactory.stepString(this, statement.text(), fallback);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.step;
+
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JVertex;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.FlatMapStep;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * Step emitting the edges between the traverser vertex and a known adjacent vertex, replaces
+ * <code>outE('label').where(inV().hasId(id))</code>. Edges are located using
+ * {@link Neo4JVertex#edgesBetween(Direction, Object, String...)}, the edges of the traverser vertex are not loaded in
+ * the session.
+ *
+ * @author Rogelio J. Baucells
+ */
+public class Neo4JEdgesBetweenStep extends FlatMapStep<Vertex, Edge> {
+
+    private final Direction direction;
+    private final Object vertexId;
+    private final String[] edgeLabels;
+
+    public Neo4JEdgesBetweenStep(Traversal.Admin traversal, Direction direction, Object vertexId, String[] edgeLabels) {
+        super(traversal);
+        Objects.requireNonNull(direction, "direction cannot be null");
+        Objects.requireNonNull(vertexId, "vertexId cannot be null");
+        Objects.requireNonNull(edgeLabels, "edgeLabels cannot be null");
+        // store fields
+        this.direction = direction;
+        this.vertexId = vertexId;
+        this.edgeLabels = edgeLabels;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public Object getVertexId() {
+        return vertexId;
+    }
+
+    public String[] getEdgeLabels() {
+        return edgeLabels;
+    }
+
+    @Override
+    protected Iterator<Edge> flatMap(Traverser.Admin<Vertex> traverser) {
+        // vertex
+        Vertex vertex = traverser.get();
+        // neo4j vertex
+        if (vertex instanceof Neo4JVertex)
+            return ((Neo4JVertex)vertex).edgesBetween(direction, vertexId, edgeLabels);
+        // adjacent vertex identifier
+        Object id = vertexId instanceof Vertex ? ((Vertex)vertexId).id() : vertexId;
+        // filter edges in vertex
+        return IteratorUtils.filter(vertex.edges(direction, edgeLabels), edge -> isAdjacent(vertex, edge, id));
+    }
+
+    private boolean isAdjacent(Vertex vertex, Edge edge, Object id) {
+        // out edges
+        if (direction == Direction.OUT)
+            return Objects.equals(edge.inVertex().id(), id);
+        // in edges
+        if (direction == Direction.IN)
+            return Objects.equals(edge.outVertex().id(), id);
+        // both, other vertex
+        return Objects.equals(edge.outVertex().equals(vertex) ? edge.inVertex().id() : edge.outVertex().id(), id);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode() ^ direction.hashCode() ^ vertexId.hashCode() ^ Arrays.hashCode(edgeLabels);
+    }
+
+    @Override
+    public String toString() {
+        return StringFactory.stepString(this, direction, vertexId, Arrays.asList(edgeLabels));
+    }
+}
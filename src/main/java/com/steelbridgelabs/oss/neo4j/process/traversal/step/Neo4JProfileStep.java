@@ -0,0 +1,60 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.step;
+
+import com.steelbridgelabs.oss.neo4j.structure.summary.ResultSummaryMetrics;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.AbstractStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.ProfileStep;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Step placed after a {@link ProfileStep} recording the CYPHER statements executed while the profiled step produces
+ * a traverser in the {@link ProfileStep} metrics (see {@link ResultSummaryMetrics}).
+ *
+ * @author Rogelio J. Baucells
+ */
+public class Neo4JProfileStep<S> extends AbstractStep<S, S> {
+
+    public Neo4JProfileStep(Traversal.Admin traversal) {
+        super(traversal);
+    }
+
+    @Override
+    protected Traverser.Admin<S> processNextStart() throws NoSuchElementException {
+        // record statements in profile step metrics (metrics are initialized on the first traverser)
+        ResultSummaryMetrics.enter(() -> {
+            // profiled step
+            Step<?, ?> step = getPreviousStep();
+            // profile step metrics
+            return step instanceof ProfileStep ? ((ProfileStep<?>)step).getMetrics() : null;
+        });
+        try {
+            // next traverser
+            return starts.next();
+        }
+        finally {
+            // stop recording
+            ResultSummaryMetrics.exit();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.finalization;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.Neo4JProfileStep;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.ProfileStep;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.finalization.ProfileStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Adds the CYPHER statements executed by each profiled step to the Gremlin <code>profile()</code> step metrics,
+ * see {@link com.steelbridgelabs.oss.neo4j.structure.summary.ResultSummaryMetrics} for the recorded values.
+ *
+ * @author Rogelio J. Baucells
+ */
+public final class Neo4JProfileStrategy extends AbstractTraversalStrategy<TraversalStrategy.FinalizationStrategy> implements TraversalStrategy.FinalizationStrategy {
+
+    private static final Neo4JProfileStrategy instance = new Neo4JProfileStrategy();
+
+    private static final Set<Class<? extends FinalizationStrategy>> PriorStrategies = Collections.singleton(ProfileStrategy.class);
+
+    private Neo4JProfileStrategy() {
+    }
+
+    public static Neo4JProfileStrategy instance() {
+        return instance;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void apply(Traversal.Admin<?, ?> traversal) {
+        // loop profile steps
+        for (ProfileStep<?> step : TraversalHelper.getStepsOfClass(ProfileStep.class, traversal)) {
+            // record statements after profiled step
+            TraversalHelper.insertAfterStep(new Neo4JProfileStep<>(traversal), step, traversal);
+        }
+    }
+
+    @Override
+    public Set<Class<? extends FinalizationStrategy>> applyPrior() {
+        return PriorStrategies;
+    }
+}
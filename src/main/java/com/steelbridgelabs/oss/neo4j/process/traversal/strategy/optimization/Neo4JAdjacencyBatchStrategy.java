@@ -0,0 +1,89 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.Neo4JAdjacencyBatchStep;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.NoOpBarrierStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.EmptyStep;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+
+/**
+ * Inserts a {@link Neo4JAdjacencyBatchStep} before each vertex step in the traversal, the edges adjacent to a batch
+ * of traversers are loaded with a single CYPHER statement instead of one statement per traverser. Existing
+ * {@link NoOpBarrierStep} instances preceding a vertex step are replaced.
+ *
+ * @author Rogelio J. Baucells
+ */
+public final class Neo4JAdjacencyBatchStrategy extends AbstractTraversalStrategy<TraversalStrategy.ProviderOptimizationStrategy> implements TraversalStrategy.ProviderOptimizationStrategy {
+
+    public static final int DefaultBatchSize = 1000;
+
+    private static final Neo4JAdjacencyBatchStrategy instance = new Neo4JAdjacencyBatchStrategy(DefaultBatchSize);
+
+    private final int batchSize;
+
+    public Neo4JAdjacencyBatchStrategy(int batchSize) {
+        // validate size
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batchSize must be greater than zero");
+        // store fields
+        this.batchSize = batchSize;
+    }
+
+    public static Neo4JAdjacencyBatchStrategy instance() {
+        return instance;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void apply(Traversal.Admin<?, ?> traversal) {
+        // only root traversals, child traversals are evaluated once per traverser
+        if (!(traversal.getParent() instanceof EmptyStep))
+            return;
+        // process vertex steps
+        for (VertexStep<?> step : TraversalHelper.getStepsOfClass(VertexStep.class, traversal)) {
+            // previous step
+            Step<?, ?> previous = step.getPreviousStep();
+            // skip start step and steps already batched
+            if (previous instanceof EmptyStep || previous instanceof Neo4JAdjacencyBatchStep)
+                continue;
+            // batch step
+            Neo4JAdjacencyBatchStep<?> batchStep = new Neo4JAdjacencyBatchStep<>(traversal, step.getDirection(), step.getEdgeLabels(), batchSize);
+            // replace existing barrier
+            if (previous instanceof NoOpBarrierStep) {
+                // copy labels
+                TraversalHelper.copyLabels(previous, batchStep, false);
+                // replace it
+                TraversalHelper.replaceStep((Step)previous, batchStep, traversal);
+                continue;
+            }
+            // insert batch step
+            TraversalHelper.insertBeforeStep(batchStep, (Step)step, traversal);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.Neo4JCypherStep;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.lambda.ElementValueTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.DedupGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.CountGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.GroupCountStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.MaxGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.MeanGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.MinGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.PropertiesStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.SumGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.EmptyStep;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
+import org.apache.tinkerpop.gremlin.structure.PropertyType;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Value;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles reducing steps following a vertex filtering prefix (see {@link Neo4JMatchPrefix}) into a CYPHER
+ * aggregation, only the aggregated values are sent to the client. Supported shapes are:
+ * <ul>
+ * <li><code>count()</code></li>
+ * <li><code>groupCount().by('key')</code></li>
+ * <li><code>values('key').sum()</code>, <code>min()</code>, <code>max()</code>, <code>mean()</code> and <code>count()</code></li>
+ * <li><code>values('key').dedup()</code> and <code>values('key').dedup().count()</code></li>
+ * </ul>
+ * Vertex properties with {@link org.apache.tinkerpop.gremlin.structure.VertexProperty.Cardinality#list} cardinality
+ * are stored as CYPHER lists, property values are unwound in the server (<code>UNWIND [] + n.key</code> yields one row
+ * per value for both lists and single values) so values are aggregated the same way as in the original steps.
+ * <code>groupCount().by('key')</code> falls back to the original steps when a key is a list.
+ *
+ * @author Rogelio J. Baucells
+ */
+public final class Neo4JAggregationStrategy extends AbstractTraversalStrategy<TraversalStrategy.ProviderOptimizationStrategy> implements TraversalStrategy.ProviderOptimizationStrategy {
+
+    private static final Neo4JAggregationStrategy instance = new Neo4JAggregationStrategy();
+
+    private static final String Alias = "n";
+    private static final String ValueAlias = "v";
+
+    private Neo4JAggregationStrategy() {
+    }
+
+    public static Neo4JAggregationStrategy instance() {
+        return instance;
+    }
+
+    @Override
+    public void apply(Traversal.Admin<?, ?> traversal) {
+        // only root traversals, child traversals are evaluated once per traverser
+        if (!(traversal.getParent() instanceof EmptyStep))
+            return;
+        // compile prefix
+        Neo4JMatchPrefix prefix = Neo4JMatchPrefix.compile(traversal, Alias);
+        if (prefix == null)
+            return;
+        // step after prefix
+        Step<?, ?> step = prefix.getEndStep().getNextStep();
+        // count()
+        if (step instanceof CountGlobalStep) {
+            // replace steps
+            prefix.replace(step, prefix.matchClause() + " RETURN count(" + Alias + ")", (graph, result) -> Collections.singletonList(result.single().get(0).asLong()));
+            return;
+        }
+        // groupCount().by('key')
+        if (step instanceof GroupCountStep) {
+            // key traversal
+            List<? extends Traversal.Admin<?, ?>> children = ((GroupCountStep<?, ?>)step).getLocalChildren();
+            if (children.size() != 1 || !(children.get(0) instanceof ElementValueTraversal))
+                return;
+            // property operand
+            String operand = operand(((ElementValueTraversal<?>)children.get(0)).getPropertyKey());
+            // replace steps
+            prefix.replace(step, prefix.matchClause() + " RETURN " + operand + ", count(*)", (graph, result) -> {
+                // group count
+                Map<Object, Long> map = new HashMap<>();
+                for (Record record : result.list()) {
+                    // key
+                    Object key = record.get(0).asObject();
+                    // vertices without property or with multiple values, the original steps must report the error
+                    if (key == null || key instanceof List)
+                        return null;
+                    // store count
+                    map.put(key, record.get(1).asLong());
+                }
+                return Collections.singletonList(map);
+            });
+            return;
+        }
+        // values('key')
+        if (!(step instanceof PropertiesStep) || !step.getLabels().isEmpty() || ((PropertiesStep<?>)step).getReturnType() != PropertyType.VALUE || ((PropertiesStep<?>)step).getPropertyKeys().length != 1)
+            return;
+        // property operand
+        String operand = operand(((PropertiesStep<?>)step).getPropertyKeys()[0]);
+        // match vertices with property, one row per property value
+        String match = prefix.matchClause(operand + " IS NOT NULL") + " UNWIND [] + " + operand + " AS " + ValueAlias;
+        // next step
+        step = step.getNextStep();
+        // sum()
+        if (step instanceof SumGlobalStep) {
+            // replace steps, SumGlobalStep seed is an Integer zero
+            prefix.replace(step, match + " RETURN sum(" + ValueAlias + "), count(" + ValueAlias + ")", (graph, result) -> {
+                // single record
+                Record record = result.single();
+                // check there were values
+                return Collections.singletonList(record.get(1).asLong() == 0 ? 0 : (Number)record.get(0).asObject());
+            });
+            return;
+        }
+        // min()
+        if (step instanceof MinGlobalStep) {
+            // replace steps
+            prefix.replace(step, match + " RETURN min(" + ValueAlias + ")", (graph, result) -> Collections.singletonList(number(result.single().get(0))));
+            return;
+        }
+        // max()
+        if (step instanceof MaxGlobalStep) {
+            // replace steps
+            prefix.replace(step, match + " RETURN max(" + ValueAlias + ")", (graph, result) -> Collections.singletonList(number(result.single().get(0))));
+            return;
+        }
+        // mean()
+        if (step instanceof MeanGlobalStep) {
+            // replace steps
+            prefix.replace(step, match + " RETURN avg(" + ValueAlias + ")", (graph, result) -> {
+                // avg
+                Value value = result.single().get(0);
+                // empty mean is NaN
+                return Collections.singletonList(value.isNull() ? Double.NaN : value.asDouble());
+            });
+            return;
+        }
+        // count()
+        if (step instanceof CountGlobalStep) {
+            // replace steps
+            prefix.replace(step, match + " RETURN count(" + ValueAlias + ")", (graph, result) -> Collections.singletonList(result.single().get(0).asLong()));
+            return;
+        }
+        // dedup()
+        if (step instanceof DedupGlobalStep && ((DedupGlobalStep<?>)step).getLocalChildren().isEmpty() && ((DedupGlobalStep<?>)step).getScopeKeys().isEmpty()) {
+            // dedup().count()
+            if (step.getLabels().isEmpty() && step.getNextStep() instanceof CountGlobalStep) {
+                // replace steps
+                prefix.replace(step.getNextStep(), match + " RETURN count(DISTINCT " + ValueAlias + ")", (graph, result) -> Collections.singletonList(result.single().get(0).asLong()));
+                return;
+            }
+            // replace steps
+            prefix.replace(step, match + " RETURN DISTINCT " + ValueAlias, (graph, result) -> result.list(record -> record.get(0).asObject()));
+        }
+    }
+
+    private static String operand(String key) {
+        return Alias + ".`" + key + "`";
+    }
+
+    private static Number number(Value value) {
+        // empty min() and max() are NaN
+        return value.isNull() ? Double.NaN : (Number)value.asObject();
+    }
+}
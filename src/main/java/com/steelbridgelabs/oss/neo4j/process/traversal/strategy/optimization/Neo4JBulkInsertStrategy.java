@@ -0,0 +1,431 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization;
+
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JElementIdProvider;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JVertex;
+import com.steelbridgelabs.oss.neo4j.structure.summary.ResultSummaryLogger;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.NoneStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.AddEdgeStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.AddVertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.SelectOneStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.UnfoldStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.InjectStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.EmptyStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.Parameters;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.decoration.EventStrategy;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compiles the Gremlin batch insert pattern, <code>g.inject(rows).unfold().addV('label').property('key', select('key'))</code>
+ * and <code>g.inject(rows).unfold().addE('label').from(select('out')).to(select('in')).property('key', select('key'))</code>,
+ * into CYPHER <code>UNWIND {rows} AS row CREATE ...</code> statements executed in the current transaction when the
+ * traversal is iterated without returning values (<code>iterate()</code>). Elements are created in the server without
+ * being registered in the session, the session queries the server again for vertices and for the edges of the
+ * endpoint vertices (see {@link Neo4JGraph#markVerticesCreated()} and {@link Neo4JGraph#markEdgesCreated(Collection)}).
+ * Traversals on readonly graphs are not compiled.
+ * <p>
+ * Rows are sent to the server in batches of <code>batchSize</code> rows (see {@link #Neo4JBulkInsertStrategy(int)}),
+ * all batches are executed in the current transaction. Property values must be constants or <code>select('key')</code>
+ * traversals on the injected rows, edge endpoints must be {@link Vertex} instances stored in the database (they are
+ * located by identifier). Edge endpoints are looked up before the first batch is created, missing endpoints fail the
+ * traversal without creating edges. Client side identifiers are generated when the compiled step is executed, a
+ * traversal evaluated by the original steps does not consume identifiers twice.
+ *
+ * @author Rogelio J. Baucells
+ */
+public final class Neo4JBulkInsertStrategy extends AbstractTraversalStrategy<TraversalStrategy.ProviderOptimizationStrategy> implements TraversalStrategy.ProviderOptimizationStrategy {
+
+    public static final int DefaultBatchSize = 1000;
+
+    private static final Neo4JBulkInsertStrategy instance = new Neo4JBulkInsertStrategy(DefaultBatchSize);
+
+    private static final String Alias = "n";
+    private static final String From = Graph.Hidden.hide("from");
+    private static final String To = Graph.Hidden.hide("to");
+
+    private final int batchSize;
+
+    public Neo4JBulkInsertStrategy(int batchSize) {
+        // validate size
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batchSize must be greater than zero");
+        // store fields
+        this.batchSize = batchSize;
+    }
+
+    public static Neo4JBulkInsertStrategy instance() {
+        return instance;
+    }
+
+    @Override
+    public void apply(Traversal.Admin<?, ?> traversal) {
+        // only root traversals bound to a neo4j graph, child traversals are evaluated once per traverser
+        if (!(traversal.getParent() instanceof EmptyStep) || !traversal.getGraph().isPresent() || !(traversal.getGraph().get() instanceof Neo4JGraph))
+            return;
+        // mutation listeners must be notified by the original steps
+        if (traversal.getStrategies().getStrategy(EventStrategy.class).isPresent())
+            return;
+        // inject(rows)
+        Step<?, ?> startStep = traversal.getStartStep();
+        if (!(startStep instanceof InjectStep) || !startStep.getLabels().isEmpty())
+            return;
+        // unfold()
+        Step<?, ?> step = next(startStep);
+        if (!(step instanceof UnfoldStep) || !step.getLabels().isEmpty())
+            return;
+        // injected rows
+        List<Map<?, ?>> rows = rows(((InjectStep<?>)startStep).getInjections());
+        if (rows == null || rows.isEmpty())
+            return;
+        // addV() or addE()
+        Step<?, ?> mutatingStep = next(step);
+        if (!mutatingStep.getLabels().isEmpty())
+            return;
+        // traversal must not return values (iterate)
+        Step<?, ?> lastStep = next(mutatingStep);
+        if (!(lastStep instanceof NoneStep) || !(lastStep.getNextStep() instanceof EmptyStep))
+            return;
+        // graph
+        Neo4JGraph graph = (Neo4JGraph)traversal.getGraph().get();
+        // prefix (used to replace steps)
+        Neo4JMatchPrefix prefix = Neo4JMatchPrefix.start(startStep, graph, Alias);
+        // check step, readonly graphs must fail in the original steps (see Neo4JGraph#addVertex())
+        if (mutatingStep instanceof AddVertexStep && graph.features().vertex().supportsAddVertices())
+            addVertices(prefix, (AddVertexStep<?>)mutatingStep, lastStep, rows);
+        else if (mutatingStep instanceof AddEdgeStep && graph.features().edge().supportsAddEdges())
+            addEdges(prefix, (AddEdgeStep<?>)mutatingStep, lastStep, rows);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    private void addVertices(Neo4JMatchPrefix prefix, AddVertexStep<?> step, Step<?, ?> lastStep, List<Map<?, ?>> rows) {
+        // step parameters
+        Map<Object, List<Object>> parameters = step.getParameters().getRaw();
+        // label
+        Object label = single(parameters.get(T.label));
+        if (!(label instanceof String))
+            return;
+        // properties
+        Map<String, Object> properties = properties(prefix.graph().getVertexIdProvider(), parameters, Collections.singleton(T.label));
+        if (properties == null)
+            return;
+        // vertex labels, including graph labels (see Neo4JVertex#insertCommand())
+        Set<String> labels = Stream.concat(Arrays.stream(((String)label).split(Neo4JVertex.LabelDelimiter)), prefix.graph().vertexLabels().stream()).collect(Collectors.toCollection(TreeSet::new));
+        // id provider
+        Neo4JElementIdProvider<?> provider = prefix.graph().getVertexIdProvider();
+        // statement rows
+        List<Object> list = new ArrayList<>(rows.size());
+        for (Map<?, ?> row : rows) {
+            // vertex properties
+            Map<String, Object> values = values(properties, row);
+            if (values == null)
+                return;
+            // append row
+            list.add(values);
+        }
+        // batches
+        List<List<Object>> batches = batches(list);
+        // rows parameter, first batch is executed by the step
+        String name = prefix.parameter(batches.get(0));
+        // statement text
+        String text = "UNWIND {" + name + "} AS row CREATE (" + Alias + labels.stream().map(item -> ":`" + item + "`").collect(Collectors.joining("")) + ") SET " + Alias + " += row";
+        // replace steps, identifiers are generated when the step is executed
+        prefix.replace(lastStep, text, (graph, compiled) -> statement(text, prefix.parameters(), name, identifyVertices(provider, batches.get(0))), (graph, result) -> {
+            // remaining batches
+            for (List<Object> batch : batches.subList(1, batches.size())) {
+                // execute statement
+                StatementResult next = graph.execute(statement(text, prefix.parameters(), name, identifyVertices(provider, batch)));
+                // process summary (query has been already consumed)
+                ResultSummaryLogger.log(next.consume());
+            }
+            // vertices created in server are not in session memory
+            graph.markVerticesCreated();
+            // iterate() does not produce values
+            return Collections.emptyList();
+        });
+    }
+
+    private void addEdges(Neo4JMatchPrefix prefix, AddEdgeStep<?> step, Step<?, ?> lastStep, List<Map<?, ?>> rows) {
+        // step parameters
+        Map<Object, List<Object>> parameters = step.getParameters().getRaw();
+        // label
+        Object label = single(parameters.get(T.label));
+        if (!(label instanceof String))
+            return;
+        // endpoints
+        String from = select(single(parameters.get(From)));
+        String to = select(single(parameters.get(To)));
+        if (from == null || to == null)
+            return;
+        // properties
+        Map<String, Object> properties = properties(prefix.graph().getEdgeIdProvider(), parameters, new HashSet<>(Arrays.asList(T.label, From, To)));
+        if (properties == null)
+            return;
+        // id providers
+        Neo4JElementIdProvider<?> vertexIdProvider = prefix.graph().getVertexIdProvider();
+        Neo4JElementIdProvider<?> edgeIdProvider = prefix.graph().getEdgeIdProvider();
+        // statement rows
+        List<Object> list = new ArrayList<>(rows.size());
+        Set<Object> endpoints = new HashSet<>();
+        for (Map<?, ?> row : rows) {
+            // edge properties
+            Map<String, Object> values = values(properties, row);
+            if (values == null)
+                return;
+            // endpoint identifiers
+            Object out = identifier(vertexIdProvider, row.get(from));
+            Object in = identifier(vertexIdProvider, row.get(to));
+            if (out == null || in == null)
+                return;
+            // store endpoints
+            endpoints.add(out);
+            endpoints.add(in);
+            // append row
+            Map<String, Object> item = new HashMap<>();
+            item.put("o", out);
+            item.put("i", in);
+            item.put("p", values);
+            list.add(item);
+        }
+        // endpoints, located by identifier in the read partition (CREATE statement parameters)
+        Map<String, Object> statementParameters = new HashMap<>();
+        Neo4JMatchPrefix outVertex = new Neo4JMatchPrefix(prefix.graph(), "o", statementParameters);
+        Neo4JMatchPrefix inVertex = new Neo4JMatchPrefix(prefix.graph(), "i", statementParameters);
+        // rows parameter (see #execute())
+        String name = outVertex.parameter(Collections.emptyList());
+        // statement text
+        String text = "UNWIND {" + name + "} AS row " + outVertex.matchClause(vertexIdProvider.matchPredicateOperand("o") + " = row.o") + " " + inVertex.matchClause(vertexIdProvider.matchPredicateOperand("i") + " = row.i") + " CREATE (o)-[r:`" + label + "`]->(i) SET r += row.p RETURN count(r)";
+        // batches
+        List<List<Object>> batches = batches(list);
+        // endpoints must exist before the first batch is created, the step executes the endpoints lookup
+        Neo4JMatchPrefix endpoint = new Neo4JMatchPrefix(prefix.graph(), "e", prefix.parameters());
+        String lookup = "UNWIND {" + prefix.parameter(new ArrayList<>(endpoints)) + "} AS id " + endpoint.matchClause(vertexIdProvider.matchPredicateOperand("e") + " = id") + " RETURN count(DISTINCT id)";
+        // replace steps
+        prefix.replace(lastStep, lookup, (graph, result) -> {
+            // check all endpoints were found
+            verify(result, endpoints.size());
+            // create edges
+            for (List<Object> batch : batches) {
+                // execute statement
+                StatementResult next = graph.execute(statement(text, statementParameters, name, identifyEdges(edgeIdProvider, batch)));
+                // verify batch (endpoints deleted by a concurrent transaction)
+                verify(next, batch.size());
+                // process summary (query has been already consumed)
+                ResultSummaryLogger.log(next.consume());
+            }
+            // edges created in server are not in session memory
+            graph.markEdgesCreated(endpoints);
+            // iterate() does not produce values
+            return Collections.emptyList();
+        });
+    }
+
+    private List<List<Object>> batches(List<Object> rows) {
+        // split rows in batches
+        List<List<Object>> batches = new ArrayList<>();
+        for (int index = 0; index < rows.size(); index += batchSize)
+            batches.add(rows.subList(index, Math.min(index + batchSize, rows.size())));
+        return batches;
+    }
+
+    private static Statement statement(String text, Map<String, Object> parameters, String name, List<Object> batch) {
+        // statement parameters
+        Map<String, Object> statementParameters = new HashMap<>(parameters);
+        statementParameters.put(name, batch);
+        // create statement
+        return new Statement(text, statementParameters);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> identifyVertices(Neo4JElementIdProvider<?> provider, List<Object> batch) {
+        // vertex rows with identifiers
+        return batch.stream().map(row -> identify(provider, (Map<String, Object>)row)).collect(Collectors.toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> identifyEdges(Neo4JElementIdProvider<?> provider, List<Object> batch) {
+        // edge rows with identifiers in edge properties
+        return batch.stream().map(row -> {
+            // copy row
+            Map<String, Object> item = new HashMap<>((Map<String, Object>)row);
+            item.put("p", identify(provider, (Map<String, Object>)item.get("p")));
+            // return it
+            return item;
+        }).collect(Collectors.toList());
+    }
+
+    private static Map<String, Object> identify(Neo4JElementIdProvider<?> provider, Map<String, Object> values) {
+        // generate identifier (client side identifiers)
+        Object id = provider.generate();
+        if (id == null)
+            return values;
+        // copy values, compiled rows are used again if the step is executed again
+        Map<String, Object> copy = new HashMap<>(values);
+        copy.put(provider.fieldName(), id);
+        // return copy
+        return copy;
+    }
+
+    private static void verify(StatementResult result, int size) {
+        // check all endpoints were found
+        if (result.single().get(0).asLong() != size)
+            throw new IllegalStateException("Edge endpoints not found in database, vertices must exist before adding edges");
+    }
+
+    private static Step<?, ?> next(Step<?, ?> step) {
+        // skip steps not modifying the traverser
+        for (step = step.getNextStep(); Neo4JMatchPrefix.isTransparent(step); step = step.getNextStep()) {
+        }
+        return step;
+    }
+
+    private static List<Map<?, ?>> rows(Object[] injections) {
+        // unfold injections
+        List<Map<?, ?>> rows = new ArrayList<>();
+        for (Object injection : injections) {
+            // only collections of maps are supported
+            if (!(injection instanceof Collection))
+                return null;
+            for (Object item : (Collection<?>)injection) {
+                // check item
+                if (!(item instanceof Map))
+                    return null;
+                // append row
+                rows.add((Map<?, ?>)item);
+            }
+        }
+        return rows;
+    }
+
+    private static Object single(List<Object> values) {
+        // parameter must have a single value
+        return values != null && values.size() == 1 ? values.get(0) : null;
+    }
+
+    private static String select(Object value) {
+        // check parameter is a select('key') traversal
+        if (!(value instanceof Traversal.Admin))
+            return null;
+        // steps
+        List<Step> steps = ((Traversal.Admin<?, ?>)value).getSteps();
+        if (steps.size() != 1 || !(steps.get(0) instanceof SelectOneStep))
+            return null;
+        // select step, by() modulators are not supported
+        SelectOneStep<?, ?> step = (SelectOneStep<?, ?>)steps.get(0);
+        if (!step.getLocalChildren().isEmpty() || !step.getLabels().isEmpty() || step.getScopeKeys().size() != 1)
+            return null;
+        // selected key
+        return step.getScopeKeys().iterator().next();
+    }
+
+    private static Map<String, Object> properties(Neo4JElementIdProvider<?> provider, Map<Object, List<Object>> parameters, Set<Object> excluded) {
+        // properties, values are constants or row keys (see #values())
+        Map<String, Object> properties = new HashMap<>();
+        for (Map.Entry<Object, List<Object>> entry : parameters.entrySet()) {
+            // skip label and endpoints
+            if (excluded.contains(entry.getKey()))
+                continue;
+            // key
+            Object key = entry.getKey();
+            if (!(key instanceof String) || Graph.Hidden.isHidden((String)key) || key.equals(provider.fieldName()))
+                return null;
+            // value
+            Object value = single(entry.getValue());
+            if (value instanceof Traversal.Admin) {
+                // select('key')
+                String selectKey = select(value);
+                if (selectKey == null)
+                    return null;
+                // store row key
+                properties.put((String)key, new RowKey(selectKey));
+            }
+            else {
+                // constant value
+                if (!Neo4JMatchPrefix.isSupportedValue(value))
+                    return null;
+                // store it
+                properties.put((String)key, value);
+            }
+        }
+        return properties;
+    }
+
+    private static Map<String, Object> values(Map<String, Object> properties, Map<?, ?> row) {
+        // property values for row
+        Map<String, Object> values = new HashMap<>(properties.size() + 1);
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            // value
+            Object value = entry.getValue() instanceof RowKey ? row.get(((RowKey)entry.getValue()).key) : entry.getValue();
+            // missing values and unsupported types must be reported by the original steps
+            if (!Neo4JMatchPrefix.isSupportedValue(value))
+                return null;
+            // store it
+            values.put(entry.getKey(), value);
+        }
+        return values;
+    }
+
+    private static Object identifier(Neo4JElementIdProvider<?> provider, Object value) {
+        // endpoints must be vertices with identifiers
+        if (!(value instanceof Vertex) || ((Vertex)value).id() == null)
+            return null;
+        try {
+            // convert identifier
+            return provider.processIdentifier(((Vertex)value).id());
+        }
+        catch (RuntimeException ex) {
+            // let the original steps handle the error
+            return null;
+        }
+    }
+
+    private static final class RowKey {
+
+        private final String key;
+
+        private RowKey(String key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization;
+
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import com.steelbridgelabs.oss.neo4j.structure.summary.ResultSummaryLogger;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.DropStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.EmptyStep;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.decoration.EventStrategy;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a <code>drop()</code> step following a vertex filtering prefix (see {@link Neo4JMatchPrefix}) into a
+ * CYPHER <code>DETACH DELETE</code> statement executed in the current transaction, vertices are not loaded in the
+ * session before deleting them. Vertices and edges already loaded in the session are marked as deleted (see
+ * {@link Neo4JGraph#markVerticesDeleted(java.util.Collection)}).
+ * <p>
+ * Large deletes can be split in batches using {@link #Neo4JDropStrategy(int)}, the statement is executed until less
+ * than <code>batchSize</code> vertices are deleted. All batches are executed in the current transaction.
+ *
+ * @author Rogelio J. Baucells
+ */
+public final class Neo4JDropStrategy extends AbstractTraversalStrategy<TraversalStrategy.ProviderOptimizationStrategy> implements TraversalStrategy.ProviderOptimizationStrategy {
+
+    private static final Neo4JDropStrategy instance = new Neo4JDropStrategy();
+
+    private static final String Alias = "n";
+
+    private final int batchSize;
+
+    private Neo4JDropStrategy() {
+        // no batches
+        this.batchSize = 0;
+    }
+
+    public Neo4JDropStrategy(int batchSize) {
+        // validate size
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batchSize must be greater than zero");
+        // store fields
+        this.batchSize = batchSize;
+    }
+
+    public static Neo4JDropStrategy instance() {
+        return instance;
+    }
+
+    @Override
+    public void apply(Traversal.Admin<?, ?> traversal) {
+        // only root traversals, child traversals are evaluated once per traverser
+        if (!(traversal.getParent() instanceof EmptyStep))
+            return;
+        // mutation listeners must be notified by the original steps
+        if (traversal.getStrategies().getStrategy(EventStrategy.class).isPresent())
+            return;
+        // compile prefix
+        Neo4JMatchPrefix prefix = Neo4JMatchPrefix.compile(traversal, Alias);
+        if (prefix == null)
+            return;
+        // drop() must follow prefix
+        Step<?, ?> step = prefix.getEndStep().getNextStep();
+        if (!(step instanceof DropStep) || !step.getLabels().isEmpty())
+            return;
+        // vertex identifier operand
+        String operand = prefix.graph().getVertexIdProvider().matchPredicateOperand(Alias);
+        // statement text, identifiers are returned to update session
+        String text = prefix.matchClause() + " WITH " + Alias + ", " + operand + " AS id" + (batchSize > 0 ? " LIMIT " + batchSize : "") + " DETACH DELETE " + Alias + " RETURN id";
+        // statement parameters
+        Map<String, Object> parameters = new HashMap<>(prefix.parameters());
+        // replace steps
+        prefix.replace(step, text, (graph, result) -> {
+            // deleted vertices
+            List<Object> ids = result.list(record -> record.get(0).asObject());
+            // mark vertices as deleted in session
+            graph.markVerticesDeleted(ids);
+            // check we need to delete next batch
+            if (batchSize > 0 && ids.size() == batchSize) {
+                // statement
+                Statement statement = new Statement(text, parameters);
+                do {
+                    // execute statement
+                    StatementResult next = graph.execute(statement);
+                    // deleted vertices
+                    ids = next.list(record -> record.get(0).asObject());
+                    // process summary (query has been already consumed)
+                    ResultSummaryLogger.log(next.consume());
+                    // mark vertices as deleted in session
+                    graph.markVerticesDeleted(ids);
+                }
+                while (ids.size() == batchSize);
+            }
+            // drop() does not produce values
+            return Collections.emptyList();
+        });
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.Neo4JEdgesBetweenStep;
+import org.apache.tinkerpop.gremlin.process.traversal.Compare;
+import org.apache.tinkerpop.gremlin.process.traversal.Contains;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.TraversalFilterStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.EdgeOtherVertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.EdgeVertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.T;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Replaces edge existence checks between two known vertices, <code>outE('label').where(inV().hasId(id))</code> (and
+ * the <code>inE()</code>, <code>bothE()</code> and <code>otherV()</code> variants), with a
+ * {@link Neo4JEdgesBetweenStep}. The edges between both vertices are located with a single CYPHER statement instead
+ * of loading all the edges of the traverser vertex in the session. The strategy is applied to child traversals as
+ * well, the replaced steps are evaluated per traverser.
+ *
+ * @author Rogelio J. Baucells
+ */
+public final class Neo4JEdgesBetweenStrategy extends AbstractTraversalStrategy<TraversalStrategy.ProviderOptimizationStrategy> implements TraversalStrategy.ProviderOptimizationStrategy {
+
+    private static final Neo4JEdgesBetweenStrategy instance = new Neo4JEdgesBetweenStrategy();
+
+    private Neo4JEdgesBetweenStrategy() {
+    }
+
+    public static Neo4JEdgesBetweenStrategy instance() {
+        return instance;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void apply(Traversal.Admin<?, ?> traversal) {
+        // process vertex steps returning edges
+        for (VertexStep<?> step : TraversalHelper.getStepsOfClass(VertexStep.class, traversal)) {
+            // check step returns edges
+            if (step.returnsVertex())
+                continue;
+            // where() must follow step
+            Step<?, ?> next = step.getNextStep();
+            if (!(next instanceof TraversalFilterStep))
+                continue;
+            // adjacent vertex identifier
+            Object vertexId = adjacentVertexId(step.getDirection(), ((TraversalFilterStep<?>)next).getLocalChildren());
+            if (vertexId == null)
+                continue;
+            // create step
+            Neo4JEdgesBetweenStep edgesStep = new Neo4JEdgesBetweenStep(traversal, step.getDirection(), vertexId, step.getEdgeLabels());
+            // copy labels
+            TraversalHelper.copyLabels(step, edgesStep, false);
+            TraversalHelper.copyLabels(next, edgesStep, false);
+            // replace steps
+            traversal.removeStep(next);
+            TraversalHelper.replaceStep((Step)step, edgesStep, traversal);
+        }
+    }
+
+    @Override
+    public Set<Class<? extends ProviderOptimizationStrategy>> applyPost() {
+        // edges between vertices must not be loaded in batches
+        return Collections.singleton(Neo4JAdjacencyBatchStrategy.class);
+    }
+
+    private static Object adjacentVertexId(Direction direction, List<? extends Traversal.Admin<?, ?>> children) {
+        // single child traversal
+        if (children.size() != 1)
+            return null;
+        // child steps
+        List<Step> steps = children.get(0).getSteps();
+        if (steps.size() != 2 || !hasHiddenLabelsOnly(steps.get(0)) || !hasHiddenLabelsOnly(steps.get(1)))
+            return null;
+        // otherV() or the vertex on the other side of the edge
+        Step<?, ?> first = steps.get(0);
+        if (!(first instanceof EdgeOtherVertexStep) && !(first instanceof EdgeVertexStep && direction != Direction.BOTH && ((EdgeVertexStep)first).getDirection() == direction.opposite()))
+            return null;
+        // hasId(id)
+        if (!(steps.get(1) instanceof HasStep) || ((HasStep<?>)steps.get(1)).getHasContainers().size() != 1)
+            return null;
+        // container
+        HasContainer container = ((HasStep<?>)steps.get(1)).getHasContainers().get(0);
+        if (!T.id.getAccessor().equals(container.getKey()))
+            return null;
+        // value
+        Object value = container.getValue();
+        // eq
+        if (container.getBiPredicate() == Compare.eq && !(value instanceof Collection))
+            return value;
+        // within, single value
+        if (container.getBiPredicate() == Contains.within && value instanceof Collection && ((Collection<?>)value).size() == 1)
+            return ((Collection<?>)value).iterator().next();
+        // not supported
+        return null;
+    }
+
+    private static boolean hasHiddenLabelsOnly(Step<?, ?> step) {
+        // steps in child traversal can be labeled by other strategies (PathRetractionStrategy)
+        return step.getLabels().stream().allMatch(Graph.Hidden::isHidden);
+    }
+}
@@ -0,0 +1,487 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.Neo4JCypherStep;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JElementIdProvider;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JReadPartition;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JVertex;
+import org.apache.tinkerpop.gremlin.process.traversal.Compare;
+import org.apache.tinkerpop.gremlin.process.traversal.Contains;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.GraphStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.NoOpBarrierStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.IdentityStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.neo4j.driver.v1.Statement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BiPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compiles the vertex filtering prefix of a traversal, <code>g.V(ids).hasLabel(...).has(...)</code>, into a CYPHER
+ * MATCH clause. Steps not supported by the compiler end the prefix, the remaining steps are evaluated in memory or
+ * compiled by the strategy using the prefix.
+ *
+ * @author Rogelio J. Baucells
+ */
+final class Neo4JMatchPrefix {
+
+    private static final Set<Class<?>> supportedValueTypes = new HashSet<>(Arrays.asList(String.class, Boolean.class, Long.class, Integer.class, Short.class, Byte.class, Double.class, Float.class));
+
+    private final Neo4JGraph graph;
+    private final String alias;
+    private final Map<String, Object> parameters;
+    private final List<String> predicates = new ArrayList<>();
+
+    private Step<?, ?> startStep = null;
+    private Step<?, ?> endStep = null;
+    private boolean identifierBound = false;
+
+    Neo4JMatchPrefix(Neo4JGraph graph, String alias, Map<String, Object> parameters) {
+        Objects.requireNonNull(graph, "graph cannot be null");
+        Objects.requireNonNull(alias, "alias cannot be null");
+        Objects.requireNonNull(parameters, "parameters cannot be null");
+        // store fields
+        this.graph = graph;
+        this.alias = alias;
+        this.parameters = parameters;
+    }
+
+    /**
+     * Compiles the vertex filtering prefix of the given traversal.
+     *
+     * @param traversal The traversal.
+     * @param alias     The vertex alias in the CYPHER statement.
+     * @return The compiled prefix or <code>null</code> if the traversal does not start with a supported prefix.
+     */
+    static Neo4JMatchPrefix compile(Traversal.Admin<?, ?> traversal, String alias) {
+        Objects.requireNonNull(traversal, "traversal cannot be null");
+        Objects.requireNonNull(alias, "alias cannot be null");
+        // traversal must be bound to a neo4j graph
+        if (!traversal.getGraph().isPresent() || !(traversal.getGraph().get() instanceof Neo4JGraph))
+            return null;
+        // traversal must start with g.V()
+        Step<?, ?> step = traversal.getStartStep();
+        if (!(step instanceof GraphStep) || !((GraphStep)step).returnsVertex() || !step.getLabels().isEmpty())
+            return null;
+        // create prefix
+        Neo4JMatchPrefix prefix = new Neo4JMatchPrefix((Neo4JGraph)traversal.getGraph().get(), alias, new HashMap<>());
+        // process identifiers
+        if (!prefix.addIdentifiers(((GraphStep)step).getIds()))
+            return null;
+        // update boundaries
+        prefix.startStep = step;
+        prefix.endStep = step;
+        // loop while steps can be compiled
+        for (step = step.getNextStep(); prefix.add(step); step = step.getNextStep())
+            prefix.endStep = step;
+        // return prefix
+        return prefix;
+    }
+
+    /**
+     * Creates an empty prefix starting at the given step, used by strategies compiling traversals that do not start
+     * with <code>g.V()</code>.
+     *
+     * @param startStep The first step of the traversal.
+     * @param graph     The {@link Neo4JGraph} instance.
+     * @param alias     The vertex alias in the CYPHER statement.
+     * @return The prefix instance.
+     */
+    static Neo4JMatchPrefix start(Step<?, ?> startStep, Neo4JGraph graph, String alias) {
+        Objects.requireNonNull(startStep, "startStep cannot be null");
+        // create prefix
+        Neo4JMatchPrefix prefix = new Neo4JMatchPrefix(graph, alias, new HashMap<>());
+        // update boundaries
+        prefix.startStep = startStep;
+        prefix.endStep = startStep;
+        // return prefix
+        return prefix;
+    }
+
+    /**
+     * Checks the given step does not modify the traverser and can be ignored while compiling a traversal.
+     *
+     * @param step The step to check.
+     * @return <code>true</code> if the step can be ignored, otherwise <code>false</code>.
+     */
+    static boolean isTransparent(Step<?, ?> step) {
+        return (step instanceof IdentityStep || step instanceof NoOpBarrierStep) && step.getLabels().isEmpty();
+    }
+
+    /**
+     * Compiles the given step into the prefix predicates.
+     *
+     * @param step The step to compile.
+     * @return <code>true</code> if the step was compiled, otherwise <code>false</code>.
+     */
+    boolean add(Step<?, ?> step) {
+        // check step can be ignored
+        if (isTransparent(step))
+            return true;
+        // only has() steps without labels
+        if (!(step instanceof HasStep) || !step.getLabels().isEmpty())
+            return false;
+        // compile predicates
+        List<String> list = new ArrayList<>();
+        for (HasContainer container : ((HasStep<?>)step).getHasContainers()) {
+            // compile container
+            String predicate = predicate(container);
+            if (predicate == null)
+                return false;
+            // append it
+            list.add(predicate);
+        }
+        // all containers were compiled
+        predicates.addAll(list);
+        // step is part of prefix
+        return true;
+    }
+
+    private boolean addIdentifiers(Object[] ids) {
+        // check filter is required
+        if (ids == null || ids.length == 0)
+            return true;
+        // id provider
+        Neo4JElementIdProvider<?> provider = graph.getVertexIdProvider();
+        // process identifiers
+        List<Object> identifiers = new ArrayList<>(ids.length);
+        Class<?> type = null;
+        for (Object id : ids) {
+            // element instance
+            Object value = id instanceof Element ? ((Element)id).id() : id;
+            // identifiers must be of the same type (see Neo4JSession#verifyIdentifiers)
+            if (value == null || (type != null && !type.equals(value.getClass())))
+                return false;
+            // store type
+            type = value.getClass();
+            try {
+                // convert identifier
+                identifiers.add(provider.processIdentifier(value));
+            }
+            catch (RuntimeException ex) {
+                // let the in memory step handle the error
+                return false;
+            }
+        }
+        // parameter name
+        String name = parameter(identifiers.size() == 1 ? identifiers.get(0) : identifiers);
+        // append predicate
+        predicates.add(provider.matchPredicateOperand(alias) + (identifiers.size() == 1 ? " = {" : " IN {") + name + "}");
+        // vertex is bound to the given identifiers
+        identifierBound = true;
+        // success
+        return true;
+    }
+
+    private String predicate(HasContainer container) {
+        // predicate
+        BiPredicate<?, ?> biPredicate = container.getBiPredicate();
+        Object value = container.getValue();
+        // check key
+        if (T.label.getAccessor().equals(container.getKey())) {
+            // equals
+            if (biPredicate == Compare.eq && value instanceof String)
+                return labelPredicate((String)value);
+            // within
+            if (biPredicate == Contains.within && value instanceof Collection && !((Collection<?>)value).isEmpty() && ((Collection<?>)value).stream().allMatch(item -> item instanceof String))
+                return ((Collection<?>)value).stream().map(item -> labelPredicate((String)item)).collect(Collectors.joining(" OR ", "(", ")"));
+            // not supported
+            return null;
+        }
+        if (T.id.getAccessor().equals(container.getKey())) {
+            // equals
+            if (biPredicate == Compare.eq && value != null)
+                return identifierPredicate(Stream.of(value));
+            // within
+            if (biPredicate == Contains.within && value instanceof Collection && !((Collection<?>)value).isEmpty())
+                return identifierPredicate(((Collection<?>)value).stream());
+            // not supported
+            return null;
+        }
+        // skip hidden keys and T.key, T.value
+        if (container.getKey() == null || container.getKey().startsWith("~"))
+            return null;
+        // property operand
+        String operand = alias + ".`" + container.getKey() + "`";
+        // within & without
+        if (biPredicate == Contains.within || biPredicate == Contains.without) {
+            // check values
+            if (!(value instanceof Collection) || !((Collection<?>)value).stream().allMatch(Neo4JMatchPrefix::isSupportedValue))
+                return null;
+            // within, property must exist
+            if (biPredicate == Contains.within)
+                return operand + " IN {" + parameter(new ArrayList<>((Collection<?>)value)) + "}";
+            // without, property must exist
+            return "(" + operand + " IS NOT NULL AND NOT " + operand + " IN {" + parameter(new ArrayList<>((Collection<?>)value)) + "})";
+        }
+        // compare
+        if (!isSupportedValue(value))
+            return null;
+        // operator
+        String operator = operator(biPredicate);
+        if (operator == null)
+            return null;
+        // neq, property must exist
+        if (biPredicate == Compare.neq)
+            return "(" + operand + " IS NOT NULL AND " + operand + " " + operator + " {" + parameter(value) + "})";
+        // predicate
+        return operand + " " + operator + " {" + parameter(value) + "}";
+    }
+
+    private String identifierPredicate(Stream<?> values) {
+        // id provider
+        Neo4JElementIdProvider<?> provider = graph.getVertexIdProvider();
+        try {
+            // process identifiers
+            List<Object> identifiers = values.map(value -> provider.processIdentifier(value instanceof Element ? ((Element)value).id() : value)).collect(Collectors.toList());
+            // vertex is bound to the given identifiers
+            identifierBound = true;
+            // create predicate
+            return provider.matchPredicateOperand(alias) + " IN {" + parameter(identifiers) + "}";
+        }
+        catch (RuntimeException ex) {
+            // not supported
+            return null;
+        }
+    }
+
+    private String labelPredicate(String value) {
+        // labels in value (see Neo4JVertex#label())
+        Set<String> labels = new TreeSet<>(Arrays.asList(value.split(Neo4JVertex.LabelDelimiter)));
+        // partition
+        Neo4JReadPartition partition = graph.getPartition();
+        // labels excluded from Vertex.label() (graph labels)
+        List<String> excluded = graph.vertexLabels().stream().filter(label -> !partition.validateLabel(label)).collect(Collectors.toList());
+        // vertex labels expression
+        String expression = excluded.isEmpty() ? "labels(" + alias + ")" : "[label IN labels(" + alias + ") WHERE NOT label IN {" + parameter(excluded) + "}]";
+        // vertex must have exactly the labels in value
+        return "(" + alias + labels.stream().map(label -> ":`" + label + "`").collect(Collectors.joining("")) + " AND size(" + expression + ") = " + labels.size() + ")";
+    }
+
+    private static String operator(BiPredicate<?, ?> predicate) {
+        // check predicate
+        if (predicate == Compare.eq)
+            return "=";
+        if (predicate == Compare.neq)
+            return "<>";
+        if (predicate == Compare.lt)
+            return "<";
+        if (predicate == Compare.lte)
+            return "<=";
+        if (predicate == Compare.gt)
+            return ">";
+        if (predicate == Compare.gte)
+            return ">=";
+        // not supported
+        return null;
+    }
+
+    /**
+     * Checks the given value can be used as a CYPHER statement parameter by the compiled steps.
+     *
+     * @param value The value to check.
+     * @return <code>true</code> if the value is supported, otherwise <code>false</code>.
+     */
+    static boolean isSupportedValue(Object value) {
+        return value != null && supportedValueTypes.contains(value.getClass());
+    }
+
+    /**
+     * Adds the given value to the statement parameters.
+     *
+     * @param value The parameter value.
+     * @return The parameter name.
+     */
+    String parameter(Object value) {
+        // parameter name
+        String name = alias + "p" + parameters.size();
+        // store value
+        parameters.put(name, value);
+        // return name
+        return name;
+    }
+
+    /**
+     * Gets the alias of the vertex in the MATCH clause.
+     *
+     * @return The vertex alias.
+     */
+    String alias() {
+        return alias;
+    }
+
+    /**
+     * Checks the vertex in the MATCH clause is restricted to a set of identifiers.
+     *
+     * @return <code>true</code> if the prefix contains an identifier predicate, otherwise <code>false</code>.
+     */
+    boolean isIdentifierBound() {
+        return identifierBound;
+    }
+
+    /**
+     * Gets the {@link Neo4JGraph} instance.
+     *
+     * @return The graph instance.
+     */
+    Neo4JGraph graph() {
+        return graph;
+    }
+
+    /**
+     * Gets the last step of the traversal compiled in the MATCH clause.
+     *
+     * @return The last step in the prefix.
+     */
+    Step<?, ?> getEndStep() {
+        return endStep;
+    }
+
+    /**
+     * Gets the statement parameters.
+     *
+     * @return The statement parameters.
+     */
+    Map<String, Object> parameters() {
+        return parameters;
+    }
+
+    /**
+     * Generates the vertex MATCH pattern, including the read partition labels.
+     *
+     * @return The vertex MATCH pattern.
+     */
+    String pattern() {
+        return "(" + alias + graph.getPartition().vertexMatchPatternLabels().stream().map(label -> ":`" + label + "`").collect(Collectors.joining("")) + ")";
+    }
+
+    /**
+     * Generates the MATCH pattern for an anonymous vertex, including the read partition labels. Anonymous vertices can
+     * be used in pattern predicates where the read partition predicate cannot be applied.
+     *
+     * @return The anonymous vertex MATCH pattern or <code>null</code> if the read partition uses a MATCH predicate.
+     */
+    String anonymousPattern() {
+        // partition
+        Neo4JReadPartition partition = graph.getPartition();
+        // check partition can be applied in pattern
+        if (partition.usesMatchPredicate())
+            return null;
+        // pattern
+        return "(" + partition.vertexMatchPatternLabels().stream().map(label -> ":`" + label + "`").collect(Collectors.joining("")) + ")";
+    }
+
+    /**
+     * Generates the MATCH WHERE predicate, including the read partition predicate.
+     *
+     * @param additionalPredicates The predicates to append to the prefix predicates.
+     * @return The MATCH WHERE predicate or <code>null</code> if there are no predicates.
+     */
+    String predicate(String... additionalPredicates) {
+        // partition predicate
+        String partitionPredicate = graph.getPartition().vertexMatchPredicate(alias);
+        // all predicates
+        List<String> list = Stream.concat(Stream.concat(predicates.stream(), partitionPredicate != null ? Stream.of("(" + partitionPredicate + ")") : Stream.empty()), Arrays.stream(additionalPredicates)).collect(Collectors.toList());
+        // join them
+        return list.isEmpty() ? null : String.join(" AND ", list);
+    }
+
+    /**
+     * Generates the MATCH clause.
+     *
+     * @param additionalPredicates The predicates to append to the prefix predicates.
+     * @return The MATCH clause.
+     */
+    String matchClause(String... additionalPredicates) {
+        // predicate
+        String predicate = predicate(additionalPredicates);
+        // MATCH clause
+        return "MATCH " + pattern() + (predicate != null ? " WHERE " + predicate : "");
+    }
+
+    /**
+     * Replaces the steps from the start of the traversal to the given step (inclusive) with a {@link Neo4JCypherStep}.
+     * The replaced steps are used as the fallback traversal of the new step.
+     *
+     * @param lastStep  The last step to replace.
+     * @param text      The CYPHER statement text.
+     * @param processor The {@link Neo4JCypherStep.ResultProcessor} instance.
+     * @param <E>       The type of the values produced by the step.
+     * @return The {@link Neo4JCypherStep} instance.
+     */
+    <E> Neo4JCypherStep<?, E> replace(Step<?, ?> lastStep, String text, Neo4JCypherStep.ResultProcessor<E> processor) {
+        // compiled statement is executed as is
+        return replace(lastStep, text, (graph, statement) -> statement, processor);
+    }
+
+    /**
+     * Replaces the steps from the start of the traversal to the given step (inclusive) with a {@link Neo4JCypherStep}
+     * executing the statement created by the given {@link Neo4JCypherStep.StatementPreparer}. The replaced steps are
+     * used as the fallback traversal of the new step.
+     *
+     * @param lastStep  The last step to replace.
+     * @param text      The CYPHER statement text.
+     * @param preparer  The {@link Neo4JCypherStep.StatementPreparer} instance.
+     * @param processor The {@link Neo4JCypherStep.ResultProcessor} instance.
+     * @param <E>       The type of the values produced by the step.
+     * @return The {@link Neo4JCypherStep} instance.
+     */
+    @SuppressWarnings("unchecked")
+    <E> Neo4JCypherStep<?, E> replace(Step<?, ?> lastStep, String text, Neo4JCypherStep.StatementPreparer preparer, Neo4JCypherStep.ResultProcessor<E> processor) {
+        Objects.requireNonNull(lastStep, "lastStep cannot be null");
+        Objects.requireNonNull(text, "text cannot be null");
+        Objects.requireNonNull(preparer, "preparer cannot be null");
+        Objects.requireNonNull(processor, "processor cannot be null");
+        // traversal
+        Traversal.Admin<?, ?> traversal = startStep.getTraversal();
+        // labels in last step
+        Set<String> labels = new HashSet<>(lastStep.getLabels());
+        // move steps to fallback traversal
+        DefaultGraphTraversal<?, E> fallback = new DefaultGraphTraversal<>(graph);
+        TraversalHelper.removeToTraversal((Step)startStep, lastStep.getNextStep(), (Traversal.Admin)fallback);
+        // create step
+        Neo4JCypherStep<?, E> step = new Neo4JCypherStep<>(traversal, new Statement(text, parameters), preparer, processor, fallback);
+        // copy labels
+        labels.forEach(step::addLabel);
+        // insert step
+        traversal.addStep(0, step);
+        // return step
+        return step;
+    }
+}
@@ -0,0 +1,401 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization;
+
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.Compare;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.ConnectiveStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.DedupGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.NotStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.WherePredicateStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.WhereTraversalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.MatchStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.EmptyStep;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.optimization.IdentityRemovalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.optimization.MatchPredicateStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequirement;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.neo4j.driver.v1.Record;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles a <code>match()</code> step following a vertex filtering prefix (see {@link Neo4JMatchPrefix}) into a
+ * single CYPHER statement, the server planner decides the order used to evaluate the pattern parts. The bindings are
+ * returned as a <code>Map&lt;String, Object&gt;</code> of {@link Vertex} instances like the original step. Supported
+ * <code>match()</code> traversals are:
+ * <ul>
+ * <li><code>as('a').out|in|both(labels)...as('b')</code>, with optional <code>has()</code> filters</li>
+ * <li><code>as('a').has(...)</code></li>
+ * <li><code>as('a').where(eq|neq('b'))</code> and <code>where('a', eq|neq('b'))</code></li>
+ * <li><code>where(as('a').out|in|both(labels)...as('b'))</code> and <code>not(as('a').out|in|both(labels)...as('b'))</code></li>
+ * </ul>
+ * The same <code>where()</code> shapes and <code>dedup()</code> on all the bindings are compiled when they follow the
+ * <code>match()</code> step. Each traversal step is compiled into its own MATCH clause so relationships can be
+ * traversed more than once like in the original traversal.
+ *
+ * @author Rogelio J. Baucells
+ */
+public final class Neo4JMatchStrategy extends AbstractTraversalStrategy<TraversalStrategy.OptimizationStrategy> implements TraversalStrategy.OptimizationStrategy {
+
+    private static final Neo4JMatchStrategy instance = new Neo4JMatchStrategy();
+
+    private static final Set<Class<? extends OptimizationStrategy>> priors = Collections.singleton(IdentityRemovalStrategy.class);
+    // where() and dedup() steps following match() must be compiled before they are moved into the match() step
+    private static final Set<Class<? extends OptimizationStrategy>> posts = Collections.singleton(MatchPredicateStrategy.class);
+
+    private Neo4JMatchStrategy() {
+    }
+
+    public static Neo4JMatchStrategy instance() {
+        return instance;
+    }
+
+    @Override
+    public void apply(Traversal.Admin<?, ?> traversal) {
+        // only root traversals, child traversals are evaluated once per traverser
+        if (!(traversal.getParent() instanceof EmptyStep))
+            return;
+        // compile prefix, the prefix vertex is the match() start label
+        Neo4JMatchPrefix prefix = Neo4JMatchPrefix.compile(traversal, "n0");
+        if (prefix == null)
+            return;
+        // match() must follow prefix
+        Step<?, ?> step = prefix.getEndStep().getNextStep();
+        if (!(step instanceof MatchStep) || ((MatchStep<?, ?>)step).getConnective() != ConnectiveStep.Connective.AND)
+            return;
+        // compile match() step
+        Compiler compiler = new Compiler(prefix);
+        if (!compiler.compile((MatchStep<?, ?>)step))
+            return;
+        // compile where() and dedup() steps following match()
+        Step<?, ?> lastStep = step;
+        boolean distinct = false;
+        while (!distinct && lastStep.getLabels().isEmpty()) {
+            // next step
+            Step<?, ?> next = lastStep.getNextStep();
+            // check step
+            if (next instanceof DedupGlobalStep && ((DedupGlobalStep<?>)next).getLocalChildren().isEmpty() && (((DedupGlobalStep<?>)next).getScopeKeys().isEmpty() || ((DedupGlobalStep<?>)next).getScopeKeys().equals(compiler.bindings.keySet())))
+                distinct = true;
+            else if (!compiler.compileWhere(next, null))
+                break;
+            // step compiled
+            lastStep = next;
+        }
+        // steps after match() cannot use the traverser path (it is not available in compiled traversal)
+        for (Step<?, ?> next = lastStep.getNextStep(); !(next instanceof EmptyStep); next = next.getNextStep()) {
+            // check requirements
+            if (next.getRequirements().contains(TraverserRequirement.PATH))
+                return;
+        }
+        // binding keys and aliases
+        List<String> keys = new ArrayList<>(compiler.bindings.keySet());
+        // replace steps
+        prefix.replace(lastStep, compiler.statement(distinct), (graph, result) -> result.list(record -> bindings(graph, keys, record)).stream().filter(map -> map.size() == keys.size()).collect(Collectors.toList()));
+    }
+
+    private static Map<String, Object> bindings(Neo4JGraph graph, List<String> keys, Record record) {
+        // bindings
+        Map<String, Object> map = new HashMap<>(keys.size());
+        for (int index = 0; index < keys.size(); index++) {
+            // load vertex
+            Vertex vertex = graph.loadVertex(record.get(index).asNode());
+            if (vertex != null)
+                map.put(keys.get(index), vertex);
+        }
+        return map;
+    }
+
+    @Override
+    public Set<Class<? extends OptimizationStrategy>> applyPrior() {
+        return priors;
+    }
+
+    @Override
+    public Set<Class<? extends OptimizationStrategy>> applyPost() {
+        return posts;
+    }
+
+    private static class Compiler {
+
+        private final Neo4JMatchPrefix prefix;
+        // label -> alias, in RETURN order
+        private final Map<String, String> bindings = new LinkedHashMap<>();
+        // alias -> node compiler
+        private final Map<String, Neo4JMatchPrefix> nodes = new LinkedHashMap<>();
+        private final List<String> clauses = new ArrayList<>();
+        private final List<String> predicates = new ArrayList<>();
+        private final Set<String> matched = new HashSet<>();
+
+        private Compiler(Neo4JMatchPrefix prefix) {
+            this.prefix = prefix;
+            // prefix vertex
+            nodes.put(prefix.alias(), prefix);
+            matched.add(prefix.alias());
+        }
+
+        private boolean compile(MatchStep<?, ?> step) {
+            // labels bound in match()
+            Set<String> labels = new HashSet<>(step.getMatchEndLabels());
+            // start label, bound to prefix vertex
+            String startLabel = MatchStep.Helper.computeStartLabel(step.getGlobalChildren());
+            labels.add(startLabel);
+            bindings.put(startLabel, prefix.alias());
+            // all start labels must be bound by match()
+            if (!labels.containsAll(step.getMatchStartLabels()))
+                return false;
+            // assign aliases
+            for (String label : labels)
+                alias(label);
+            // process match() traversals
+            for (Traversal.Admin<?, ?> traversal : step.getGlobalChildren()) {
+                // compile traversal
+                if (!compileTraversal(traversal))
+                    return false;
+            }
+            // bound vertices must be in a MATCH clause
+            return matched.containsAll(bindings.values());
+        }
+
+        private boolean compileTraversal(Traversal.Admin<?, ?> traversal) {
+            // steps
+            List<Step> steps = traversal.getSteps();
+            // start and end steps
+            if (steps.size() < 2 || !(steps.get(0) instanceof MatchStep.MatchStartStep) || !(steps.get(steps.size() - 1) instanceof MatchStep.MatchEndStep))
+                return false;
+            // start alias
+            String alias = bindings.get(((MatchStep.MatchStartStep)steps.get(0)).getSelectKey().orElse(null));
+            if (alias == null)
+                return false;
+            // end alias
+            String endAlias = bindings.get(((MatchStep.MatchEndStep)steps.get(steps.size() - 1)).getMatchKey().orElse(null));
+            // where() traversal
+            if (steps.size() == 3 && (steps.get(1) instanceof WherePredicateStep || steps.get(1) instanceof WhereTraversalStep))
+                return endAlias == null && compileWhere(steps.get(1), alias);
+            // index of last vertex step
+            int last = 0;
+            for (int index = 1; index < steps.size() - 1; index++) {
+                if (steps.get(index) instanceof VertexStep)
+                    last = index;
+            }
+            // process steps
+            for (int index = 1; index < steps.size() - 1; index++) {
+                // current step
+                Step<?, ?> step = steps.get(index);
+                // check step can be ignored
+                if (Neo4JMatchPrefix.isTransparent(step))
+                    continue;
+                // step labels are not bound by match()
+                if (!step.getLabels().isEmpty())
+                    return false;
+                // out|in|both(labels)
+                if (step instanceof VertexStep) {
+                    // relationship
+                    String relationship = relationship((VertexStep<?>)step);
+                    if (relationship == null)
+                        return false;
+                    // next vertex (use end alias on last vertex step)
+                    String next = index == last && endAlias != null ? endAlias : anonymous();
+                    // MATCH clause
+                    clauses.add(nodes.get(alias).pattern() + relationship + nodes.get(next).pattern());
+                    matched.add(next);
+                    // move to next vertex
+                    alias = next;
+                    continue;
+                }
+                // has(...)
+                if (!(step instanceof HasStep) || !nodes.get(alias).add(step))
+                    return false;
+            }
+            // check vertex must be bound to end alias (no vertex steps)
+            if (endAlias != null && !endAlias.equals(alias))
+                predicates.add(alias + " = " + endAlias);
+            // success
+            return true;
+        }
+
+        private boolean compileWhere(Step<?, ?> step, String alias) {
+            // step labels are not bound by match()
+            if (!step.getLabels().isEmpty())
+                return false;
+            // where(eq|neq('b'))
+            if (step instanceof WherePredicateStep) {
+                // predicate step
+                WherePredicateStep<?> whereStep = (WherePredicateStep<?>)step;
+                // start alias
+                String start = whereStep.getStartKey().isPresent() ? bindings.get(whereStep.getStartKey().get()) : alias;
+                // predicate
+                P<?> predicate = whereStep.getPredicate().orElse(null);
+                if (start == null || predicate == null || !whereStep.getLocalChildren().isEmpty() || (predicate.getBiPredicate() != Compare.eq && predicate.getBiPredicate() != Compare.neq) || !(predicate.getValue() instanceof String))
+                    return false;
+                // other alias
+                String other = bindings.get((String)predicate.getValue());
+                if (other == null)
+                    return false;
+                // append predicate
+                predicates.add(start + (predicate.getBiPredicate() == Compare.eq ? " = " : " <> ") + other);
+                return true;
+            }
+            // where(as('a')...as('b'))
+            if (step instanceof WhereTraversalStep) {
+                // where() traversal
+                Traversal.Admin<?, ?> traversal = ((WhereTraversalStep<?>)step).getLocalChildren().get(0);
+                // not()
+                if (traversal.getSteps().size() == 1 && traversal.getStartStep() instanceof NotStep) {
+                    // pattern
+                    String pattern = wherePattern(((NotStep<?>)traversal.getStartStep()).getLocalChildren().get(0), alias);
+                    if (pattern == null)
+                        return false;
+                    // append predicate
+                    predicates.add("NOT " + pattern);
+                    return true;
+                }
+                // pattern
+                String pattern = wherePattern(traversal, alias);
+                if (pattern == null)
+                    return false;
+                // append predicate
+                predicates.add(pattern);
+                return true;
+            }
+            // not supported
+            return false;
+        }
+
+        private String wherePattern(Traversal.Admin<?, ?> traversal, String alias) {
+            // steps
+            List<Step> steps = traversal.getSteps();
+            // start step
+            if (steps.size() < 2 || !(steps.get(0) instanceof WhereTraversalStep.WhereStartStep))
+                return null;
+            // start alias (pulled out to match() traversal if not present)
+            Set<String> startKeys = ((WhereTraversalStep.WhereStartStep<?>)steps.get(0)).getScopeKeys();
+            String start = startKeys.isEmpty() ? alias : bindings.get(startKeys.iterator().next());
+            if (start == null)
+                return null;
+            // end alias
+            String end = null;
+            if (steps.get(steps.size() - 1) instanceof WhereTraversalStep.WhereEndStep) {
+                // end keys
+                Set<String> endKeys = ((WhereTraversalStep.WhereEndStep)steps.get(steps.size() - 1)).getScopeKeys();
+                if (!endKeys.isEmpty()) {
+                    // alias
+                    end = bindings.get(endKeys.iterator().next());
+                    if (end == null)
+                        return null;
+                }
+                // remove end step
+                steps = steps.subList(0, steps.size() - 1);
+            }
+            // anonymous vertices in pattern cannot be filtered with the partition predicate
+            if (prefix.anonymousPattern() == null)
+                return null;
+            // pattern
+            StringBuilder builder = new StringBuilder("(").append(start).append(")");
+            for (int index = 1; index < steps.size(); index++) {
+                // vertex step
+                Step<?, ?> step = steps.get(index);
+                if (!(step instanceof VertexStep) || !step.getLabels().isEmpty())
+                    return null;
+                // relationship
+                String relationship = relationship((VertexStep<?>)step);
+                if (relationship == null)
+                    return null;
+                // append it
+                builder.append(relationship).append(index == steps.size() - 1 && end != null ? "(" + end + ")" : prefix.anonymousPattern());
+            }
+            // at least one relationship
+            return steps.size() > 1 ? builder.toString() : null;
+        }
+
+        private String alias(String label) {
+            // check label is bound
+            String alias = bindings.get(label);
+            if (alias == null) {
+                // new vertex
+                alias = anonymous();
+                // bind it
+                bindings.put(label, alias);
+            }
+            return alias;
+        }
+
+        private String anonymous() {
+            // new alias
+            String alias = "n" + nodes.size();
+            // node compiler
+            nodes.put(alias, new Neo4JMatchPrefix(prefix.graph(), alias, prefix.parameters()));
+            // return alias
+            return alias;
+        }
+
+        private static String relationship(VertexStep<?> step) {
+            // only vertices
+            if (!step.returnsVertex())
+                return null;
+            // relationship types
+            String types = step.getEdgeLabels().length == 0 ? "" : Arrays.stream(step.getEdgeLabels()).map(label -> "`" + label + "`").collect(Collectors.joining("|", "[:", "]"));
+            // direction
+            if (step.getDirection() == Direction.OUT)
+                return "-" + types + "->";
+            if (step.getDirection() == Direction.IN)
+                return "<-" + types + "-";
+            return "-" + types + "-";
+        }
+
+        private String statement(boolean distinct) {
+            // predicates in vertices
+            List<String> list = new ArrayList<>();
+            for (Neo4JMatchPrefix node : nodes.values()) {
+                // node predicate
+                String predicate = node.predicate();
+                if (predicate != null)
+                    list.add(predicate);
+            }
+            // match() predicates
+            list.addAll(predicates);
+            // MATCH clauses
+            StringBuilder builder = new StringBuilder("MATCH ").append(prefix.pattern());
+            for (String clause : clauses)
+                builder.append(" MATCH ").append(clause);
+            // WHERE clause
+            if (!list.isEmpty())
+                builder.append(" WHERE ").append(String.join(" AND ", list));
+            // RETURN clause
+            return builder.append(" RETURN ").append(distinct ? "DISTINCT " : "").append(String.join(", ", bindings.values())).toString();
+        }
+    }
+}
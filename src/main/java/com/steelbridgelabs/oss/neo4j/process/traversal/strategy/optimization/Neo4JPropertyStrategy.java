@@ -0,0 +1,161 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization;
+
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import com.steelbridgelabs.oss.neo4j.structure.summary.ResultSummaryLogger;
+import org.apache.tinkerpop.gremlin.process.traversal.Bytecode;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.NoneStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.AddPropertyStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.EmptyStep;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.decoration.EventStrategy;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles <code>property('key', value)</code> steps following a vertex filtering prefix (see
+ * {@link Neo4JMatchPrefix}) into a CYPHER <code>SET</code> statement executed in the current transaction when the
+ * traversal is iterated without returning values (<code>iterate()</code>). Vertices are not loaded in the session,
+ * vertices already loaded are updated in memory (see {@link Neo4JGraph#markVerticesUpdated(java.util.Collection, Map)}).
+ * Only constant values with {@link VertexProperty.Cardinality#single} cardinality and without meta properties are
+ * compiled. {@link AddPropertyStep} does not expose its cardinality, it is read from the <code>property()</code>
+ * instructions in the traversal {@link Bytecode}; traversals whose steps were not created through the traversal API
+ * (no bytecode) are not compiled. Properties stored as lists in the server (<code>list</code> or <code>set</code>
+ * cardinality) are not updated, the step looks them up before updating vertices (<code>LIMIT 1</code>) and the original
+ * steps are evaluated instead, failing the same way they do in memory. The update statement streams the matched
+ * vertices, only the identifiers of the vertices loaded in the session are returned.
+ *
+ * @author Rogelio J. Baucells
+ */
+public final class Neo4JPropertyStrategy extends AbstractTraversalStrategy<TraversalStrategy.ProviderOptimizationStrategy> implements TraversalStrategy.ProviderOptimizationStrategy {
+
+    private static final Neo4JPropertyStrategy instance = new Neo4JPropertyStrategy();
+
+    private static final String Alias = "n";
+
+    private Neo4JPropertyStrategy() {
+    }
+
+    public static Neo4JPropertyStrategy instance() {
+        return instance;
+    }
+
+    @Override
+    public void apply(Traversal.Admin<?, ?> traversal) {
+        // only root traversals, child traversals are evaluated once per traverser
+        if (!(traversal.getParent() instanceof EmptyStep))
+            return;
+        // mutation listeners must be notified by the original steps
+        if (traversal.getStrategies().getStrategy(EventStrategy.class).isPresent())
+            return;
+        // compile prefix
+        Neo4JMatchPrefix prefix = Neo4JMatchPrefix.compile(traversal, Alias);
+        if (prefix == null)
+            return;
+        // id field name cannot be updated
+        String idFieldName = prefix.graph().getVertexIdProvider().fieldName();
+        // property() steps must follow prefix
+        Map<String, Object> properties = new LinkedHashMap<>();
+        int count = 0;
+        Step<?, ?> step = prefix.getEndStep().getNextStep();
+        for (; step instanceof AddPropertyStep; step = step.getNextStep(), count++) {
+            // process key and value
+            Map<Object, List<Object>> parameters = ((AddPropertyStep<?>)step).getParameters().getRaw();
+            if (!step.getLabels().isEmpty() || parameters.size() != 2)
+                return;
+            // key & value
+            Object key = parameters.get(T.key).get(0);
+            Object value = parameters.get(T.value).get(0);
+            if (!(key instanceof String) || Graph.Hidden.isHidden((String)key) || key.equals(idFieldName) || !Neo4JMatchPrefix.isSupportedValue(value))
+                return;
+            // store value, last value wins
+            properties.remove(key);
+            properties.put((String)key, value);
+        }
+        // traversal must not return values (iterate)
+        if (properties.isEmpty() || !(step instanceof NoneStep) || !(step.getNextStep() instanceof EmptyStep))
+            return;
+        // single cardinality
+        if (!isSingle(traversal, count))
+            return;
+        // SET clause & list value predicates
+        List<String> assignments = new ArrayList<>(properties.size());
+        List<String> lists = new ArrayList<>(properties.size());
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            // property operand
+            String operand = Alias + ".`" + entry.getKey() + "`";
+            // assignment
+            assignments.add(operand + " = {" + prefix.parameter(entry.getValue()) + "}");
+            // a list value is not wrapped by a list concatenation
+            lists.add("(" + operand + " IS NOT NULL AND NOT [] + " + operand + " = [" + operand + "])");
+        }
+        // identifiers of the vertices loaded in session (see #replace())
+        String name = prefix.parameter(Collections.emptyList());
+        // id operand
+        String operand = prefix.graph().getVertexIdProvider().matchPredicateOperand(Alias);
+        // update statement text, only the identifiers of the vertices loaded in session are returned
+        String text = prefix.matchClause() + " SET " + String.join(", ", assignments) + " WITH " + Alias + " WHERE " + operand + " IN {" + name + "} RETURN " + operand;
+        // the step looks up vertices holding list values, these vertices cannot be updated by the statement
+        String lookup = prefix.matchClause("(" + String.join(" OR ", lists) + ")") + " RETURN " + operand + " LIMIT 1";
+        // replace steps
+        prefix.replace(step, lookup, (graph, result) -> {
+            // properties with list values must be evaluated in memory (cardinality mismatch)
+            if (result.hasNext())
+                return null;
+            // statement parameters
+            Map<String, Object> parameters = new HashMap<>(prefix.parameters());
+            parameters.put(name, graph.loadedVertexIds());
+            // execute statement
+            StatementResult next = graph.execute(new Statement(text, parameters));
+            // update vertices in session
+            graph.markVerticesUpdated(next.list(record -> record.get(0).asObject()), properties);
+            // process summary (query has been already consumed)
+            ResultSummaryLogger.log(next.consume());
+            // iterate() does not produce values
+            return Collections.emptyList();
+        });
+    }
+
+    private static boolean isSingle(Traversal.Admin<?, ?> traversal, int count) {
+        // AddPropertyStep does not expose the cardinality, use the property() instructions in the traversal bytecode
+        List<Bytecode.Instruction> instructions = traversal.getBytecode().getStepInstructions().stream().filter(instruction -> GraphTraversal.Symbols.property.equals(instruction.getOperator())).collect(Collectors.toList());
+        // all property() steps must be in bytecode without cardinality (graph default is single) or single
+        return instructions.size() == count && instructions.stream().allMatch(instruction -> {
+            // instruction arguments
+            Object[] arguments = instruction.getArguments();
+            return arguments.length == 0 || !(arguments[0] instanceof VertexProperty.Cardinality) || arguments[0] == VertexProperty.Cardinality.single;
+        });
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization;
+
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JReadPartition;
+import org.apache.tinkerpop.gremlin.process.traversal.Path;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.lambda.LoopTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.branch.RepeatStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.PathFilterStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.RangeGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.PathStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.EmptyStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.MutablePath;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.optimization.IdentityRemovalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.optimization.IncidentToAdjacentStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.optimization.LazyBarrierStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.optimization.RepeatUnrollStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequirement;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.types.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles a <code>repeat()</code> step following a vertex filtering prefix (see {@link Neo4JMatchPrefix}) into a
+ * single CYPHER statement. Supported traversals are:
+ * <ul>
+ * <li><code>repeat(out|in|both(labels)).times(n)</code>, with optional <code>path()</code></li>
+ * <li><code>repeat(out|in|both(labels)[.simplePath()]).until(hasId(...)[.has...(...)]).limit(1)</code>, with optional
+ * <code>path()</code> before or after <code>limit(1)</code></li>
+ * </ul>
+ * The <code>times(n)</code> loop is compiled into <code>n</code> MATCH clauses instead of a variable length pattern,
+ * CYPHER does not traverse a relationship twice in the same pattern and the original traversal does. The
+ * <code>until()</code> loop limited to the first result is compiled into a <code>shortestPath()</code> pattern only
+ * when the end vertex is bound to its identifiers, paths ending in the start vertex are not considered. Vertices and edges in the paths are registered in the current session.
+ *
+ * @author Rogelio J. Baucells
+ */
+public final class Neo4JRepeatStrategy extends AbstractTraversalStrategy<TraversalStrategy.OptimizationStrategy> implements TraversalStrategy.OptimizationStrategy {
+
+    private static final Neo4JRepeatStrategy instance = new Neo4JRepeatStrategy();
+
+    private static final Set<Class<? extends OptimizationStrategy>> priors = Collections.singleton(IdentityRemovalStrategy.class);
+    // repeat() step must be compiled before it is unrolled and markers or barriers are added to the repeat traversal
+    private static final Set<Class<? extends OptimizationStrategy>> posts = new HashSet<>(Arrays.asList(IncidentToAdjacentStrategy.class, RepeatUnrollStrategy.class, LazyBarrierStrategy.class));
+
+    private Neo4JRepeatStrategy() {
+    }
+
+    public static Neo4JRepeatStrategy instance() {
+        return instance;
+    }
+
+    @Override
+    public void apply(Traversal.Admin<?, ?> traversal) {
+        // only root traversals, child traversals are evaluated once per traverser
+        if (!(traversal.getParent() instanceof EmptyStep))
+            return;
+        // compile prefix, the prefix vertex is the repeat() start vertex
+        Neo4JMatchPrefix prefix = Neo4JMatchPrefix.compile(traversal, "n0");
+        if (prefix == null)
+            return;
+        // repeat() without emit() must follow prefix
+        Step<?, ?> step = prefix.getEndStep().getNextStep();
+        if (!(step instanceof RepeatStep) || !step.getLabels().isEmpty() || ((RepeatStep<?>)step).getEmitTraversal() != null)
+            return;
+        // process repeat traversal
+        VertexStep<?> vertexStep = null;
+        boolean simplePath = false;
+        for (Step<?, ?> child : ((RepeatStep<?>)step).getRepeatTraversal().getSteps()) {
+            // skip repeat end step
+            if (child instanceof RepeatStep.RepeatEndStep)
+                continue;
+            // check step
+            if (vertexStep == null && child instanceof VertexStep && ((VertexStep<?>)child).returnsVertex() && child.getLabels().isEmpty())
+                vertexStep = (VertexStep<?>)child;
+            else if (vertexStep != null && !simplePath && isSimplePath(child))
+                simplePath = true;
+            else if (!Neo4JMatchPrefix.isTransparent(child))
+                return;
+        }
+        // vertex step is required
+        if (vertexStep == null)
+            return;
+        // until() traversal
+        Traversal.Admin<?, ?> untilTraversal = ((RepeatStep<?>)step).getUntilTraversal();
+        // times(n)
+        if (untilTraversal instanceof LoopTraversal) {
+            // simplePath() is not supported in loops
+            if (!simplePath)
+                compileLoop(prefix, step, vertexStep, ((LoopTraversal<?>)untilTraversal).getMaxLoops());
+            return;
+        }
+        // until(has...(...)).limit(1)
+        if (untilTraversal != null && !((RepeatStep<?>)step).untilFirst)
+            compileShortestPath(prefix, step, vertexStep, untilTraversal);
+    }
+
+    @Override
+    public Set<Class<? extends OptimizationStrategy>> applyPrior() {
+        return priors;
+    }
+
+    @Override
+    public Set<Class<? extends OptimizationStrategy>> applyPost() {
+        return posts;
+    }
+
+    private static void compileLoop(Neo4JMatchPrefix prefix, Step<?, ?> step, VertexStep<?> vertexStep, long loops) {
+        // at least one loop
+        if (loops < 1)
+            return;
+        // optional path()
+        Step<?, ?> lastStep = step;
+        if (isPath(step.getNextStep()))
+            lastStep = step.getNextStep();
+        // steps after last step cannot use the traverser path
+        if (!isPathFree(lastStep))
+            return;
+        // path() in compiled steps
+        boolean path = lastStep != step;
+        // MATCH clauses, each loop in its own clause
+        StringBuilder builder = new StringBuilder("MATCH ").append(prefix.pattern());
+        List<String> predicates = new ArrayList<>();
+        List<String> aliases = new ArrayList<>();
+        // prefix predicate
+        String predicate = prefix.predicate();
+        if (predicate != null)
+            predicates.add(predicate);
+        // start vertex
+        aliases.add(prefix.alias());
+        for (int index = 1; index <= loops; index++) {
+            // node compiler
+            Neo4JMatchPrefix node = new Neo4JMatchPrefix(prefix.graph(), "n" + index, prefix.parameters());
+            // relationship alias
+            String relationship = "r" + index;
+            // MATCH clause
+            builder.append(" MATCH (n").append(index - 1).append(")").append(relationship(vertexStep, relationship)).append(node.pattern());
+            // node predicate
+            predicate = node.predicate();
+            if (predicate != null)
+                predicates.add(predicate);
+            // return relationships only in paths
+            if (path)
+                aliases.add(relationship);
+            aliases.add(node.alias());
+        }
+        // WHERE clause
+        if (!predicates.isEmpty())
+            builder.append(" WHERE ").append(String.join(" AND ", predicates));
+        // RETURN clause
+        if (path) {
+            // all vertices and relationships
+            builder.append(" RETURN ").append(String.join(", ", aliases));
+            // replace steps
+            prefix.replace(lastStep, builder.toString(), (graph, result) -> result.list(record -> path(graph, record)).stream().filter(Objects::nonNull).collect(Collectors.toList()));
+            return;
+        }
+        // last vertex
+        builder.append(" RETURN n").append(loops);
+        // replace steps
+        prefix.replace(lastStep, builder.toString(), (graph, result) -> result.list(record -> graph.loadVertex(record.get(0).asNode())).stream().filter(Objects::nonNull).collect(Collectors.toList()));
+    }
+
+    private static void compileShortestPath(Neo4JMatchPrefix prefix, Step<?, ?> step, VertexStep<?> vertexStep, Traversal.Admin<?, ?> untilTraversal) {
+        // end vertex compiler
+        Neo4JMatchPrefix end = new Neo4JMatchPrefix(prefix.graph(), "n1", prefix.parameters());
+        // until() traversal must be compiled into the end vertex predicates
+        if (untilTraversal.getSteps().isEmpty() || !untilTraversal.getSteps().stream().allMatch(child -> !Neo4JMatchPrefix.isTransparent(child) && end.add(child)))
+            return;
+        // the first vertex reached by the traversal is the closest one only if the end vertex is bound to an identifier
+        if (!end.isIdentifierBound())
+            return;
+        // limit(1) with optional path() before or after it
+        Step<?, ?> lastStep = step.getNextStep();
+        boolean path = false;
+        if (isPath(lastStep)) {
+            // path().limit(1)
+            path = true;
+            lastStep = lastStep.getNextStep();
+            if (!isFirst(lastStep))
+                return;
+        }
+        else {
+            // limit(1)
+            if (!isFirst(lastStep))
+                return;
+            // limit(1).path()
+            if (isPath(lastStep.getNextStep())) {
+                path = true;
+                lastStep = lastStep.getNextStep();
+            }
+        }
+        // steps after last step cannot use the traverser path
+        if (!isPathFree(lastStep))
+            return;
+        // predicates
+        List<String> predicates = new ArrayList<>();
+        String predicate = prefix.predicate();
+        if (predicate != null)
+            predicates.add(predicate);
+        predicate = end.predicate();
+        if (predicate != null)
+            predicates.add(predicate);
+        // shortestPath() does not support paths starting and ending in the same vertex
+        predicates.add(prefix.alias() + " <> " + end.alias());
+        // MATCH clauses
+        StringBuilder builder = new StringBuilder("MATCH ").append(prefix.pattern()).append(" MATCH ").append(end.pattern()).append(" WHERE ").append(String.join(" AND ", predicates));
+        builder.append(" MATCH p = shortestPath((").append(prefix.alias()).append(")").append(relationship(vertexStep, "*")).append("(").append(end.alias()).append("))");
+        // intermediate vertices must be in read partition
+        predicate = partitionPredicate(prefix.graph(), "x");
+        if (predicate != null)
+            builder.append(" WHERE ALL(x IN nodes(p) WHERE ").append(predicate).append(")");
+        // RETURN clause
+        builder.append(" RETURN p ORDER BY length(p) LIMIT 1");
+        // path() in compiled steps
+        boolean returnsPath = path;
+        // replace steps
+        prefix.replace(lastStep, builder.toString(), (graph, result) -> result.list(record -> shortestPath(graph, record, returnsPath)).stream().filter(Objects::nonNull).collect(Collectors.toList()));
+    }
+
+    private static boolean isSimplePath(Step<?, ?> step) {
+        // PathFilterStep does not expose the filter type nor the from() and to() labels, compare with the string form of simplePath() without modulators
+        return step instanceof PathFilterStep && step.getLabels().isEmpty() && ((PathFilterStep<?>)step).getLocalChildren().isEmpty() && step.toString().equals(new PathFilterStep<>(step.getTraversal(), true).toString());
+    }
+
+    private static boolean isPath(Step<?, ?> step) {
+        return step instanceof PathStep && step.getLabels().isEmpty() && ((PathStep<?>)step).getLocalChildren().isEmpty();
+    }
+
+    private static boolean isFirst(Step<?, ?> step) {
+        return step instanceof RangeGlobalStep && step.getLabels().isEmpty() && ((RangeGlobalStep<?>)step).getLowRange() == 0 && ((RangeGlobalStep<?>)step).getHighRange() == 1;
+    }
+
+    private static boolean isPathFree(Step<?, ?> lastStep) {
+        // steps after last step cannot use the traverser path (it is not available in compiled traversal)
+        for (Step<?, ?> next = lastStep.getNextStep(); !(next instanceof EmptyStep); next = next.getNextStep()) {
+            // check requirements
+            if (next.getRequirements().contains(TraverserRequirement.PATH))
+                return false;
+        }
+        return true;
+    }
+
+    private static String relationship(VertexStep<?> step, String detail) {
+        // relationship types
+        String types = step.getEdgeLabels().length == 0 ? "" : Arrays.stream(step.getEdgeLabels()).map(label -> "`" + label + "`").collect(Collectors.joining("|", ":", ""));
+        // relationship pattern, variable or length
+        String pattern = "*".equals(detail) ? "[" + types + detail + "]" : "[" + detail + types + "]";
+        // direction
+        if (step.getDirection() == Direction.OUT)
+            return "-" + pattern + "->";
+        if (step.getDirection() == Direction.IN)
+            return "<-" + pattern + "-";
+        return "-" + pattern + "-";
+    }
+
+    private static String partitionPredicate(Neo4JGraph graph, String alias) {
+        // partition
+        Neo4JReadPartition partition = graph.getPartition();
+        // label predicates
+        List<String> list = partition.vertexMatchPatternLabels().stream().map(label -> alias + ":`" + label + "`").collect(Collectors.toList());
+        // partition predicate
+        String predicate = partition.vertexMatchPredicate(alias);
+        if (predicate != null)
+            list.add("(" + predicate + ")");
+        // join them
+        return list.isEmpty() ? null : String.join(" AND ", list);
+    }
+
+    private static Path path(Neo4JGraph graph, Record record) {
+        // path
+        Path path = MutablePath.make();
+        // first vertex
+        Node node = record.get(0).asNode();
+        Vertex vertex = graph.loadVertex(node);
+        if (vertex == null)
+            return null;
+        path.extend(vertex, Collections.emptySet());
+        // process relationships and vertices
+        for (int index = 1; index < record.size(); index += 2) {
+            // next vertex
+            Node next = record.get(index + 1).asNode();
+            // register edge, path contains vertices only (like the original traversal)
+            graph.loadEdge(node, record.get(index).asRelationship(), next);
+            // load vertex
+            vertex = graph.loadVertex(next);
+            if (vertex == null)
+                return null;
+            path.extend(vertex, Collections.emptySet());
+            // move to next vertex
+            node = next;
+        }
+        return path;
+    }
+
+    private static Object shortestPath(Neo4JGraph graph, Record record, boolean returnsPath) {
+        // path
+        Path path = MutablePath.make();
+        Vertex vertex = null;
+        // process path segments
+        org.neo4j.driver.v1.types.Path value = record.get(0).asPath();
+        for (org.neo4j.driver.v1.types.Path.Segment segment : value) {
+            // register edge, path contains vertices only (like the original traversal)
+            graph.loadEdge(segment.start(), segment.relationship(), segment.end());
+        }
+        for (Node node : value.nodes()) {
+            // load vertex
+            vertex = graph.loadVertex(node);
+            if (vertex == null)
+                return null;
+            path.extend(vertex, Collections.emptySet());
+        }
+        return returnsPath ? path : vertex;
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import org.apache.tinkerpop.gremlin.structure.Direction;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of the adjacency of vertices shared by multiple readonly {@link Neo4JGraph} instances and threads. Entries
+ * are keyed by vertex id, direction and relationship type and store the edge and neighbour identifiers as arrays.
+ * Edges are materialized from the graph {@link Neo4JElementCache}, an adjacency entry is only used when all its edges
+ * are available in the element cache. The cache is bounded by the total number of edge identifiers stored in it,
+ * entries are evicted in least recently used order and expire after the configured time to live. Entry keys are
+ * indexed by vertex id, invalidating a vertex only visits the entries of that vertex. The adjacency of a vertex depends
+ * on the {@link Neo4JReadPartition} of the graph that loaded it, all graphs using the cache must have equal partitions.
+ *
+ * @author Rogelio J. Baucells
+ */
+public class Neo4JAdjacencyCache {
+
+    static class Adjacency {
+
+        private final Object[] edgeIds;
+        private final Object[] neighbourIds;
+        private final long expiration;
+
+        private Adjacency(Object[] edgeIds, Object[] neighbourIds, long expiration) {
+            this.edgeIds = edgeIds;
+            this.neighbourIds = neighbourIds;
+            this.expiration = expiration;
+        }
+
+        Object[] getEdgeIds() {
+            return edgeIds;
+        }
+
+        Object[] getNeighbourIds() {
+            return neighbourIds;
+        }
+    }
+
+    private static class Key {
+
+        private final Object vertexId;
+        private final Direction direction;
+        private final String label;
+
+        private Key(Object vertexId, Direction direction, String label) {
+            this.vertexId = vertexId;
+            this.direction = direction;
+            this.label = label;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            // check instance
+            if (!(other instanceof Key))
+                return false;
+            // compare fields
+            Key key = (Key)other;
+            return vertexId.equals(key.vertexId) && direction == key.direction && Objects.equals(label, key.label);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(vertexId, direction, label);
+        }
+    }
+
+    private final int maximumEdges;
+    private final long timeToLive;
+    private final LinkedHashMap<Key, Adjacency> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Object, Set<Key>> vertexKeys = new HashMap<>();
+
+    private int size = 0;
+    private Neo4JReadPartition partition = null;
+
+    /**
+     * Creates a {@link Neo4JAdjacencyCache} instance.
+     *
+     * @param maximumEdges The maximum number of edge identifiers stored in the cache.
+     * @param timeToLive   The time an entry remains in the cache after it has been stored, zero for no expiration.
+     * @param unit         The {@link TimeUnit} of the time to live value.
+     */
+    public Neo4JAdjacencyCache(int maximumEdges, long timeToLive, TimeUnit unit) {
+        Objects.requireNonNull(unit, "unit cannot be null");
+        // validate arguments
+        if (maximumEdges <= 0)
+            throw new IllegalArgumentException("maximumEdges must be greater than zero");
+        if (timeToLive < 0)
+            throw new IllegalArgumentException("timeToLive cannot be negative");
+        // store fields
+        this.maximumEdges = maximumEdges;
+        this.timeToLive = unit.toNanos(timeToLive);
+    }
+
+    public int getMaximumEdges() {
+        return maximumEdges;
+    }
+
+    public long getTimeToLive(TimeUnit unit) {
+        Objects.requireNonNull(unit, "unit cannot be null");
+        return unit.convert(timeToLive, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the number of edge identifiers in the cache, the value includes expired entries not evicted yet.
+     *
+     * @return The number of edge identifiers in the cache.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Removes the adjacency of the vertex with the given id from the cache.
+     *
+     * @param vertexId The vertex id.
+     */
+    public synchronized void invalidateVertex(Object vertexId) {
+        Objects.requireNonNull(vertexId, "vertexId cannot be null");
+        // remove vertex keys from index
+        Set<Key> keys = vertexKeys.remove(vertexId);
+        if (keys != null) {
+            // loop vertex keys
+            for (Key key : keys) {
+                // remove entry
+                Adjacency adjacency = entries.remove(key);
+                if (adjacency != null)
+                    size -= adjacency.edgeIds.length;
+            }
+        }
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public synchronized void invalidateAll() {
+        // remove entries
+        entries.clear();
+        vertexKeys.clear();
+        size = 0;
+    }
+
+    synchronized void bind(Neo4JReadPartition partition) {
+        // first graph using the cache
+        if (this.partition == null) {
+            // store partition
+            this.partition = partition;
+            return;
+        }
+        // neighbours depend on the partition the edges were loaded in
+        if (!this.partition.equals(partition))
+            throw new IllegalArgumentException("Adjacency cache cannot be shared by graphs with different read partitions");
+    }
+
+    synchronized Adjacency get(Object vertexId, Direction direction, String label) {
+        // key
+        Key key = new Key(vertexId, direction, label);
+        // find entry
+        Adjacency adjacency = entries.get(key);
+        if (adjacency == null)
+            return null;
+        // check entry expired
+        if (adjacency.expiration != Long.MAX_VALUE && System.nanoTime() - adjacency.expiration > 0) {
+            // remove it
+            remove(key);
+            return null;
+        }
+        return adjacency;
+    }
+
+    synchronized void put(Object vertexId, Direction direction, String label, Object[] edgeIds, Object[] neighbourIds) {
+        // entries larger than the cache are not stored
+        if (edgeIds.length > maximumEdges)
+            return;
+        // key
+        Key key = new Key(vertexId, direction, label);
+        // replace existing entry
+        remove(key);
+        // store entry
+        entries.put(key, new Adjacency(edgeIds, neighbourIds, timeToLive == 0 ? Long.MAX_VALUE : System.nanoTime() + timeToLive));
+        vertexKeys.computeIfAbsent(vertexId, id -> new HashSet<>()).add(key);
+        size += edgeIds.length;
+        // evict least recently used entries
+        for (Iterator<Map.Entry<Key, Adjacency>> iterator = entries.entrySet().iterator(); size > maximumEdges && iterator.hasNext(); ) {
+            // current entry
+            Map.Entry<Key, Adjacency> entry = iterator.next();
+            // update size
+            size -= entry.getValue().edgeIds.length;
+            // remove it
+            iterator.remove();
+            unindex(entry.getKey());
+        }
+    }
+
+    private void remove(Key key) {
+        // remove entry
+        Adjacency adjacency = entries.remove(key);
+        if (adjacency != null) {
+            // update size
+            size -= adjacency.edgeIds.length;
+            // remove key from index
+            unindex(key);
+        }
+    }
+
+    private void unindex(Key key) {
+        // vertex keys
+        Set<Key> keys = vertexKeys.get(key.vertexId);
+        if (keys != null && keys.remove(key) && keys.isEmpty())
+            vertexKeys.remove(key.vertexId);
+    }
+}
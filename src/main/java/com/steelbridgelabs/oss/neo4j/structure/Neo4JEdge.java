@@ -88,6 +88,8 @@ public class Neo4JEdge extends Neo4JElement implements Edge {
 
         @Override
         public void remove() {
+            // properties might be shared with last committed state
+            edge.copyOnWrite();
             // remove from edge
             edge.properties.remove(name);
             // mark property as removed
@@ -118,7 +120,6 @@ public class Neo4JEdge extends Neo4JElement implements Edge {
     private final Neo4JGraph graph;
     private final Neo4JSession session;
     private final Neo4JElementIdProvider<?> edgeIdProvider;
-    private final Map<String, Neo4JEdgeProperty> properties = new HashMap<>();
     private final String label;
     private final Neo4JVertex out;
     private final Neo4JVertex in;
@@ -127,6 +128,7 @@ public class Neo4JEdge extends Neo4JElement implements Edge {
     private boolean dirty = false;
     private boolean newEdge;
     private Set<String> removedProperties = new HashSet<>();
+    private Map<String, Neo4JEdgeProperty> properties = new HashMap<>();
     private Map<String, Neo4JEdgeProperty> originalProperties;
 
     Neo4JEdge(Neo4JGraph graph, Neo4JSession session, Neo4JElementIdProvider<?> edgeIdProvider, String label, Neo4JVertex out, Neo4JVertex in) {
@@ -146,8 +148,8 @@ public class Neo4JEdge extends Neo4JElement implements Edge {
         this.in = in;
         // generate id
         this.id = edgeIdProvider.generate();
-        // initialize original properties
-        originalProperties = new HashMap<>();
+        // initialize original properties (shared until first modification)
+        originalProperties = properties;
         // this is a new edge (transient)
         newEdge = true;
     }
@@ -178,8 +180,8 @@ public class Neo4JEdge extends Neo4JElement implements Edge {
         // vertices
         this.out = out;
         this.in = in;
-        // initialize original properties
-        originalProperties = new HashMap<>(properties);
+        // initialize original properties (shared until first modification)
+        originalProperties = properties;
         // this is a persisted edge
         newEdge = false;
     }
@@ -247,6 +249,8 @@ public class Neo4JEdge extends Neo4JElement implements Edge {
         graph.tx().readWrite();
         // property value for key
         Neo4JEdgeProperty<V> propertyValue = new Neo4JEdgeProperty<>(this, name, value);
+        // properties might be shared with last committed state
+        copyOnWrite();
         // update map
         properties.put(name, propertyValue);
         // set edge as dirty
@@ -381,8 +385,8 @@ public class Neo4JEdge extends Neo4JElement implements Edge {
     }
 
     void commit() {
-        // commit property values
-        originalProperties = new HashMap<>(properties);
+        // commit property values, map is copied on next modification
+        originalProperties = properties;
         // reset removed properties
         removedProperties.clear();
         // reset flags
@@ -391,13 +395,18 @@ public class Neo4JEdge extends Neo4JElement implements Edge {
         newEdge = false;
     }
 
+    private void copyOnWrite() {
+        // check properties are shared with last committed state
+        if (properties == originalProperties)
+            properties = new HashMap<>(originalProperties);
+    }
+
     void rollback() {
         // restore edge references
         out.addOutEdge(this);
         in.addInEdge(this);
-        // restore property values
-        properties.clear();
-        properties.putAll(originalProperties);
+        // restore property values, map is copied on next modification
+        properties = originalProperties;
         // reset removed properties
         removedProperties.clear();
         // reset flags
@@ -0,0 +1,379 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import org.neo4j.driver.v1.types.Node;
+import org.neo4j.driver.v1.types.Relationship;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size bounded cache of the database state of vertices and edges ({@link Node} and {@link Relationship} instances
+ * returned by the driver), the cache can be shared by multiple readonly {@link Neo4JGraph} instances and threads.
+ * Sessions consult the cache before fetching elements by id from the database and populate it with the elements
+ * loaded from the server. Entries are evicted in least recently used order and expire after the configured time to
+ * live. Entries are invalidated explicitly with {@link #invalidateVertex(Object)}, {@link #invalidateEdge(Object)}
+ * and {@link #invalidateAll()}, or when a graph with a different set of bookmarks starts using the cache.
+ * <p>
+ * The cache can also record the ids that were not found in the database (negative entries), repeated lookups of
+ * those ids are not sent to the server until the negative entries expire. An id not found in the database depends on
+ * the {@link Neo4JReadPartition} of the graph that looked it up, all graphs using the cache must have equal partitions.
+ * <p>
+ * Entries are partitioned by id in up to 16 segments, each one an independently locked LRU map holding its share of
+ * the maximum size, lookups from different threads only contend when the ids map to the same segment. Least recently
+ * used order is maintained per segment (approximate LRU for the whole cache).
+ *
+ * @author Rogelio J. Baucells
+ */
+public class Neo4JElementCache {
+
+    static class EdgeState {
+
+        private final Node out;
+        private final Relationship relationship;
+        private final Node in;
+
+        private EdgeState(Node out, Relationship relationship, Node in) {
+            this.out = out;
+            this.relationship = relationship;
+            this.in = in;
+        }
+
+        Node getOut() {
+            return out;
+        }
+
+        Relationship getRelationship() {
+            return relationship;
+        }
+
+        Node getIn() {
+            return in;
+        }
+    }
+
+    private static class Entry<T> {
+
+        private final T value;
+        private final long expiration;
+
+        private Entry(T value, long expiration) {
+            this.value = value;
+            this.expiration = expiration;
+        }
+    }
+
+    private static class LeastRecentlyUsedMap<T> extends LinkedHashMap<Object, Entry<T>> {
+
+        private final int maximumSize;
+
+        private LeastRecentlyUsedMap(int maximumSize) {
+            super(16, 0.75f, true);
+            // store fields
+            this.maximumSize = maximumSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Entry<T>> eldest) {
+            return size() > maximumSize;
+        }
+    }
+
+    private static class SegmentedMap<T> {
+
+        private final LeastRecentlyUsedMap<T>[] segments;
+
+        @SuppressWarnings("unchecked")
+        private SegmentedMap(int maximumSize) {
+            // number of segments (power of two), at least 16 entries per segment
+            int count = Math.max(1, Math.min(MaximumSegments, Integer.highestOneBit(maximumSize / 16)));
+            // create segments
+            segments = new LeastRecentlyUsedMap[count];
+            for (int i = 0; i < count; i++)
+                segments[i] = new LeastRecentlyUsedMap<>((maximumSize + count - 1) / count);
+        }
+
+        private LeastRecentlyUsedMap<T> segment(Object id) {
+            // spread hash code
+            int hash = id.hashCode();
+            hash ^= hash >>> 16;
+            // segment
+            return segments[hash & (segments.length - 1)];
+        }
+
+        private T get(Object id) {
+            // segment
+            LeastRecentlyUsedMap<T> map = segment(id);
+            synchronized (map) {
+                // find entry
+                Entry<T> entry = map.get(id);
+                if (entry == null)
+                    return null;
+                // check entry expired
+                if (entry.expiration != Long.MAX_VALUE && System.nanoTime() - entry.expiration > 0) {
+                    // remove it
+                    map.remove(id);
+                    return null;
+                }
+                return entry.value;
+            }
+        }
+
+        private void put(Object id, T value, long expiration) {
+            // segment
+            LeastRecentlyUsedMap<T> map = segment(id);
+            synchronized (map) {
+                // store entry
+                map.put(id, new Entry<>(value, expiration));
+            }
+        }
+
+        private void remove(Object id) {
+            // segment
+            LeastRecentlyUsedMap<T> map = segment(id);
+            synchronized (map) {
+                // remove entry
+                map.remove(id);
+            }
+        }
+
+        private void clear() {
+            // loop segments
+            for (LeastRecentlyUsedMap<T> map : segments) {
+                synchronized (map) {
+                    // remove entries
+                    map.clear();
+                }
+            }
+        }
+
+        private int size() {
+            // total size
+            int size = 0;
+            for (LeastRecentlyUsedMap<T> map : segments) {
+                synchronized (map) {
+                    size += map.size();
+                }
+            }
+            return size;
+        }
+    }
+
+    private static final int MaximumSegments = 16;
+
+    private final int maximumSize;
+    private final long timeToLive;
+    private final long missingTimeToLive;
+    private final SegmentedMap<Node> vertices;
+    private final SegmentedMap<EdgeState> edges;
+    private final SegmentedMap<Boolean> missingVertices;
+    private final SegmentedMap<Boolean> missingEdges;
+
+    private List<String> bookmarks = Collections.emptyList();
+    private Neo4JReadPartition partition = null;
+
+    /**
+     * Creates a {@link Neo4JElementCache} instance.
+     *
+     * @param maximumSize The maximum number of vertices and the maximum number of edges stored in the cache.
+     * @param timeToLive  The time an entry remains in the cache after it has been stored, zero for no expiration.
+     * @param unit        The {@link TimeUnit} of the time to live value.
+     */
+    public Neo4JElementCache(int maximumSize, long timeToLive, TimeUnit unit) {
+        this(maximumSize, timeToLive, 0, unit);
+    }
+
+    /**
+     * Creates a {@link Neo4JElementCache} instance recording the ids not found in the database.
+     *
+     * @param maximumSize       The maximum number of vertices and the maximum number of edges stored in the cache (same limit applies to negative entries).
+     * @param timeToLive        The time an entry remains in the cache after it has been stored, zero for no expiration.
+     * @param missingTimeToLive The time a negative entry remains in the cache after it has been stored, zero to disable negative entries.
+     * @param unit              The {@link TimeUnit} of the time to live values.
+     */
+    public Neo4JElementCache(int maximumSize, long timeToLive, long missingTimeToLive, TimeUnit unit) {
+        Objects.requireNonNull(unit, "unit cannot be null");
+        // validate arguments
+        if (maximumSize <= 0)
+            throw new IllegalArgumentException("maximumSize must be greater than zero");
+        if (timeToLive < 0)
+            throw new IllegalArgumentException("timeToLive cannot be negative");
+        if (missingTimeToLive < 0)
+            throw new IllegalArgumentException("missingTimeToLive cannot be negative");
+        // store fields
+        this.maximumSize = maximumSize;
+        this.timeToLive = unit.toNanos(timeToLive);
+        this.missingTimeToLive = unit.toNanos(missingTimeToLive);
+        this.vertices = new SegmentedMap<>(maximumSize);
+        this.edges = new SegmentedMap<>(maximumSize);
+        this.missingVertices = new SegmentedMap<>(maximumSize);
+        this.missingEdges = new SegmentedMap<>(maximumSize);
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getTimeToLive(TimeUnit unit) {
+        Objects.requireNonNull(unit, "unit cannot be null");
+        return unit.convert(timeToLive, TimeUnit.NANOSECONDS);
+    }
+
+    public long getMissingTimeToLive(TimeUnit unit) {
+        Objects.requireNonNull(unit, "unit cannot be null");
+        return unit.convert(missingTimeToLive, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the number of vertices in the cache, the value includes expired entries not evicted yet.
+     *
+     * @return The number of vertices in the cache.
+     */
+    public int vertexCount() {
+        return vertices.size();
+    }
+
+    /**
+     * Gets the number of edges in the cache, the value includes expired entries not evicted yet.
+     *
+     * @return The number of edges in the cache.
+     */
+    public int edgeCount() {
+        return edges.size();
+    }
+
+    /**
+     * Removes the vertex with the given id from the cache.
+     *
+     * @param id The vertex id.
+     */
+    public void invalidateVertex(Object id) {
+        Objects.requireNonNull(id, "id cannot be null");
+        // remove entries
+        vertices.remove(id);
+        missingVertices.remove(id);
+    }
+
+    /**
+     * Removes the edge with the given id from the cache.
+     *
+     * @param id The edge id.
+     */
+    public void invalidateEdge(Object id) {
+        Objects.requireNonNull(id, "id cannot be null");
+        // remove entries
+        edges.remove(id);
+        missingEdges.remove(id);
+    }
+
+    /**
+     * Removes all vertices and edges from the cache.
+     */
+    public void invalidateAll() {
+        // remove entries
+        vertices.clear();
+        edges.clear();
+        missingVertices.clear();
+        missingEdges.clear();
+    }
+
+    synchronized void bind(Neo4JReadPartition partition) {
+        // first graph using the cache
+        if (this.partition == null) {
+            // store partition
+            this.partition = partition;
+            return;
+        }
+        // negative entries depend on the partition the ids were looked up in
+        if (!this.partition.equals(partition))
+            throw new IllegalArgumentException("Element cache cannot be shared by graphs with different read partitions");
+    }
+
+    synchronized boolean synchronize(Iterable<String> bookmarks) {
+        // bookmarks as a list
+        List<String> list = new ArrayList<>();
+        if (bookmarks != null)
+            bookmarks.forEach(list::add);
+        // graphs without bookmarks read the latest state available in the server
+        if (list.isEmpty() || list.equals(this.bookmarks))
+            return false;
+        // entries were loaded with different bookmarks
+        invalidateAll();
+        // store bookmarks
+        this.bookmarks = list;
+        return true;
+    }
+
+    Node vertex(Object id) {
+        // get value
+        return vertices.get(id);
+    }
+
+    void putVertex(Object id, Node node) {
+        // vertex exists
+        missingVertices.remove(id);
+        // store entry
+        vertices.put(id, node, expiration());
+    }
+
+    boolean isVertexMissing(Object id) {
+        // check negative entry
+        return missingVertices.get(id) != null;
+    }
+
+    void putMissingVertex(Object id) {
+        // check negative entries are enabled
+        if (missingTimeToLive != 0)
+            missingVertices.put(id, Boolean.TRUE, System.nanoTime() + missingTimeToLive);
+    }
+
+    EdgeState edge(Object id) {
+        // get value
+        return edges.get(id);
+    }
+
+    void putEdge(Object id, Node out, Relationship relationship, Node in) {
+        // edge exists
+        missingEdges.remove(id);
+        // store entry
+        edges.put(id, new EdgeState(out, relationship, in), expiration());
+    }
+
+    boolean isEdgeMissing(Object id) {
+        // check negative entry
+        return missingEdges.get(id) != null;
+    }
+
+    void putMissingEdge(Object id) {
+        // check negative entries are enabled
+        if (missingTimeToLive != 0)
+            missingEdges.put(id, Boolean.TRUE, System.nanoTime() + missingTimeToLive);
+    }
+
+    private long expiration() {
+        // check entries expire
+        return timeToLive == 0 ? Long.MAX_VALUE : System.nanoTime() + timeToLive;
+    }
+}
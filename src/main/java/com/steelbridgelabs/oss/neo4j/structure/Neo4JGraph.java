@@ -18,11 +18,23 @@
 
 package com.steelbridgelabs.oss.neo4j.structure;
 
+import com.steelbridgelabs.oss.neo4j.process.traversal.strategy.finalization.Neo4JProfileStrategy;
+import com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization.Neo4JAdjacencyBatchStrategy;
+import com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization.Neo4JAggregationStrategy;
+import com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization.Neo4JBulkInsertStrategy;
+import com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization.Neo4JDropStrategy;
+import com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization.Neo4JEdgesBetweenStrategy;
+import com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization.Neo4JMatchStrategy;
+import com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization.Neo4JPropertyStrategy;
+import com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization.Neo4JRepeatStrategy;
 import com.steelbridgelabs.oss.neo4j.structure.partitions.NoReadPartition;
 import com.steelbridgelabs.oss.neo4j.structure.summary.ResultSummaryLogger;
 import org.apache.commons.configuration.Configuration;
 import org.apache.tinkerpop.gremlin.process.computer.GraphComputer;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategies;
+import org.apache.tinkerpop.gremlin.structure.Direction;
 import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Element;
 import org.apache.tinkerpop.gremlin.structure.Graph;
 import org.apache.tinkerpop.gremlin.structure.Transaction;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
@@ -34,12 +46,16 @@ import org.neo4j.driver.v1.AccessMode;
 import org.neo4j.driver.v1.Driver;
 import org.neo4j.driver.v1.Statement;
 import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.types.Node;
+import org.neo4j.driver.v1.types.Relationship;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -54,6 +70,21 @@ import java.util.stream.Collectors;
 @GraphFactoryClass(Neo4JGraphFactory.class)
 public class Neo4JGraph implements Graph {
 
+    static {
+        // register provider strategies
+        TraversalStrategies.GlobalCache.registerStrategies(Neo4JGraph.class, TraversalStrategies.GlobalCache.getStrategies(Graph.class).clone().addStrategies(
+            Neo4JMatchStrategy.instance(),
+            Neo4JRepeatStrategy.instance(),
+            Neo4JAggregationStrategy.instance(),
+            Neo4JDropStrategy.instance(),
+            Neo4JPropertyStrategy.instance(),
+            Neo4JBulkInsertStrategy.instance(),
+            Neo4JEdgesBetweenStrategy.instance(),
+            Neo4JAdjacencyBatchStrategy.instance(),
+            Neo4JProfileStrategy.instance()
+        ));
+    }
+
     private class Neo4JTransaction extends AbstractThreadLocalTransaction {
 
         Neo4JTransaction() {
@@ -116,6 +147,12 @@ public class Neo4JGraph implements Graph {
 
     private final Set<Consumer<Neo4JGraph>> closeListeners = new HashSet<>();
 
+    private volatile Neo4JElementCache elementCache = null;
+    private volatile Neo4JAdjacencyCache adjacencyCache = null;
+    private volatile Neo4JResultCache resultCache = null;
+    private volatile int sessionCapacity = 0;
+    private volatile boolean clearSessionOnCommit = false;
+
     /**
      * Creates a {@link Neo4JGraph} instance.
      *
@@ -276,6 +313,14 @@ public class Neo4JGraph implements Graph {
         if (session == null) {
             // create new session
             session = new Neo4JSession(this, driver.session(readonly ? AccessMode.READ : AccessMode.WRITE, bookmarks), vertexIdProvider, edgeIdProvider, readonly);
+            // element cache must not serve state loaded with different bookmarks
+            Neo4JElementCache cache = elementCache;
+            if (cache != null && cache.synchronize(bookmarks)) {
+                // adjacency must not reference edges loaded with different bookmarks
+                Neo4JAdjacencyCache adjacency = adjacencyCache;
+                if (adjacency != null)
+                    adjacency.invalidateAll();
+            }
             // attach it to current thread
             this.session.set(session);
         }
@@ -309,6 +354,160 @@ public class Neo4JGraph implements Graph {
         return edgeIdProvider;
     }
 
+    /**
+     * Gets the {@link Neo4JElementCache} shared by the sessions of the current {@link Neo4JGraph}.
+     *
+     * @return The {@link Neo4JElementCache} instance, <code>null</code> if the graph does not use an element cache.
+     */
+    public Neo4JElementCache getElementCache() {
+        return elementCache;
+    }
+
+    /**
+     * Sets the {@link Neo4JElementCache} used to look up vertices and edges by id before fetching them from the
+     * database, the same instance can be shared by multiple readonly {@link Neo4JGraph} instances with equal read
+     * partitions (see {@link #getPartition()}).
+     *
+     * @param elementCache The {@link Neo4JElementCache} instance, <code>null</code> to stop using an element cache.
+     */
+    public void setElementCache(Neo4JElementCache elementCache) {
+        // element state is only shared on readonly graphs
+        if (elementCache != null && !readonly)
+            throw new IllegalStateException("Element cache is only supported on readonly graphs");
+        // ids not found in the database depend on the partition
+        if (elementCache != null)
+            elementCache.bind(partition);
+        // store cache
+        this.elementCache = elementCache;
+    }
+
+    /**
+     * Gets the {@link Neo4JAdjacencyCache} shared by the sessions of the current {@link Neo4JGraph}.
+     *
+     * @return The {@link Neo4JAdjacencyCache} instance, <code>null</code> if the graph does not use an adjacency cache.
+     */
+    public Neo4JAdjacencyCache getAdjacencyCache() {
+        return adjacencyCache;
+    }
+
+    /**
+     * Sets the {@link Neo4JAdjacencyCache} used to look up the edges of a vertex before fetching them from the
+     * database, the adjacency cache requires an element cache (see {@link #setElementCache(Neo4JElementCache)}). The
+     * same instance can be shared by multiple readonly {@link Neo4JGraph} instances with equal read partitions.
+     *
+     * @param adjacencyCache The {@link Neo4JAdjacencyCache} instance, <code>null</code> to stop using an adjacency cache.
+     */
+    public void setAdjacencyCache(Neo4JAdjacencyCache adjacencyCache) {
+        // adjacency is only shared on readonly graphs
+        if (adjacencyCache != null && !readonly)
+            throw new IllegalStateException("Adjacency cache is only supported on readonly graphs");
+        // adjacency depends on the partition
+        if (adjacencyCache != null)
+            adjacencyCache.bind(partition);
+        // store cache
+        this.adjacencyCache = adjacencyCache;
+    }
+
+    /**
+     * Gets the {@link Neo4JResultCache} used by the current {@link Neo4JGraph}.
+     *
+     * @return The {@link Neo4JResultCache} instance, <code>null</code> if the graph does not use a result cache.
+     */
+    public Neo4JResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Sets the {@link Neo4JResultCache} used to store the results of the statements executed with
+     * {@link #vertices(Statement)}, {@link #edges(Statement)} and {@link #execute(Statement)} (and their overloads).
+     *
+     * @param resultCache The {@link Neo4JResultCache} instance, <code>null</code> to stop using a result cache.
+     */
+    public void setResultCache(Neo4JResultCache resultCache) {
+        // results are only cached on readonly graphs
+        if (resultCache != null && !readonly)
+            throw new IllegalStateException("Result cache is only supported on readonly graphs");
+        // store cache
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Gets the maximum number of vertices (and the maximum number of edges) kept in memory by each session.
+     *
+     * @return The session capacity, zero if sessions are not bounded.
+     */
+    public int getSessionCapacity() {
+        return sessionCapacity;
+    }
+
+    /**
+     * Sets the maximum number of vertices (and the maximum number of edges) kept in memory by each session. Least
+     * recently used elements without pending changes are removed from the session when the capacity is exceeded,
+     * transient and dirty elements remain in memory until the transaction is committed or rolled back. When the
+     * elements with pending changes exceed the capacity, the session keeps up to capacity elements without pending
+     * changes in addition to them.
+     *
+     * @param sessionCapacity The session capacity, zero for unbounded sessions.
+     */
+    public void setSessionCapacity(int sessionCapacity) {
+        // validate capacity
+        if (sessionCapacity < 0)
+            throw new IllegalArgumentException("sessionCapacity cannot be negative");
+        // store capacity
+        this.sessionCapacity = sessionCapacity;
+    }
+
+    /**
+     * Gets whether the session is cleared after each successful commit.
+     *
+     * @return <code>true</code> if sessions are cleared after commit, <code>false</code> otherwise.
+     */
+    public boolean isClearSessionOnCommit() {
+        return clearSessionOnCommit;
+    }
+
+    /**
+     * Sets whether the session is cleared after each successful commit (see {@link #clearSession()}). Threads reusing
+     * the same {@link Neo4JGraph} for multiple units of work will not keep in memory the elements loaded by previous
+     * transactions.
+     *
+     * @param clearSessionOnCommit <code>true</code> to clear sessions after commit, <code>false</code> otherwise.
+     */
+    public void setClearSessionOnCommit(boolean clearSessionOnCommit) {
+        this.clearSessionOnCommit = clearSessionOnCommit;
+    }
+
+    /**
+     * Removes all the vertices and edges kept in memory by the session associated to the current thread. Elements with
+     * pending changes remain in memory until the transaction is committed or rolled back. The underlying Bolt session
+     * is not closed.
+     */
+    public void clearSession() {
+        // get current session
+        Neo4JSession session = this.session.get();
+        if (session != null) {
+            // clear session
+            session.clear();
+        }
+    }
+
+    /**
+     * Removes the given vertices and edges from the session associated to the current thread, subsequent lookups will
+     * load them again from the server. Elements with pending changes remain in memory until the transaction is
+     * committed or rolled back.
+     *
+     * @param elements The elements to remove from the session.
+     */
+    public void evict(Element... elements) {
+        Objects.requireNonNull(elements, "elements cannot be null");
+        // get current session
+        Neo4JSession session = this.session.get();
+        if (session != null) {
+            // evict elements
+            session.evict(elements);
+        }
+    }
+
     /**
      * Gets the labels that will be applied to vertices created by the current {@link Neo4JGraph}.
      *
@@ -333,6 +532,20 @@ public class Neo4JGraph implements Graph {
         return session.lastBookmark();
     }
 
+    /**
+     * Checks whether the current session holds changes that have not been sent to the database yet. New, updated
+     * and deleted elements are kept in memory until the transaction is committed, statements executed on the server
+     * before that will not see them.
+     *
+     * @return <code>true</code> if there are changes waiting for the transaction commit, otherwise <code>false</code>.
+     */
+    public boolean hasPendingChanges() {
+        // get current session
+        Neo4JSession session = currentSession();
+        // check session
+        return session.hasPendingChanges();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -402,13 +615,14 @@ public class Neo4JGraph implements Graph {
         // transaction should be ready for io operations
         transaction.readWrite();
         // execute statement
-        StatementResult result = session.executeStatement(statement);
+        StatementResult result = executeStatement(session, statement);
         // find vertices
         Iterator<Vertex> iterator = session.vertices(result)
             .collect(Collectors.toCollection(LinkedList::new))
             .iterator();
-        // process summary (query has been already consumed by collect)
-        ResultSummaryLogger.log(result.consume());
+        // process summary (query has been already consumed by collect, cached results were processed when stored)
+        if (!(result instanceof Neo4JResultCache.CachedStatementResult))
+            ResultSummaryLogger.log(result.consume());
         // return iterator
         return iterator;
     }
@@ -426,6 +640,134 @@ public class Neo4JGraph implements Graph {
         return vertices(new Statement(statement, parameters));
     }
 
+    /**
+     * Gets the {@link Vertex} for the given neo4j {@link Node} returned by a CYPHER statement executed on this graph
+     * instance, the vertex is registered in the current session if it has not been loaded already.
+     *
+     * @param node The neo4j {@link Node}.
+     * @return The {@link Vertex} instance or <code>null</code> if the vertex was deleted in the current session or it is not in the {@link Neo4JReadPartition}.
+     */
+    public Vertex loadVertex(Node node) {
+        Objects.requireNonNull(node, "node cannot be null");
+        // get current session
+        Neo4JSession session = currentSession();
+        // load vertex
+        return session.loadVertex(node);
+    }
+
+    /**
+     * Gets the {@link Edge} for the given neo4j {@link Relationship} returned by a CYPHER statement executed on this
+     * graph instance, the edge and its adjacent vertices are registered in the current session if they have not been
+     * loaded already.
+     *
+     * @param firstNode    The neo4j {@link Node} on one side of the relationship.
+     * @param relationship The neo4j {@link Relationship}.
+     * @param secondNode   The neo4j {@link Node} on the other side of the relationship.
+     * @return The {@link Edge} instance or <code>null</code> if the edge was deleted in the current session or it is not in the {@link Neo4JReadPartition}.
+     */
+    public Edge loadEdge(Node firstNode, Relationship relationship, Node secondNode) {
+        Objects.requireNonNull(firstNode, "firstNode cannot be null");
+        Objects.requireNonNull(relationship, "relationship cannot be null");
+        Objects.requireNonNull(secondNode, "secondNode cannot be null");
+        // get current session
+        Neo4JSession session = currentSession();
+        // load edge
+        return session.loadEdge(firstNode, relationship, secondNode);
+    }
+
+    /**
+     * Notifies the current session the vertices with the given identifiers were deleted in the server (including
+     * their relationships) by a CYPHER statement executed on this graph instance. Vertices and edges loaded in the
+     * session are marked as deleted, they will be loaded again from the server if the transaction is rolled back.
+     *
+     * @param ids The identifiers of the deleted vertices.
+     */
+    public void markVerticesDeleted(Collection<?> ids) {
+        Objects.requireNonNull(ids, "ids cannot be null");
+        // get current session
+        Neo4JSession session = currentSession();
+        // mark vertices as deleted
+        session.markVerticesDeleted(ids);
+    }
+
+    /**
+     * Gets the identifiers of the vertices loaded in the current session. CYPHER statements updating vertices in the
+     * server can use them to return only the identifiers of the vertices that must be updated in memory (see
+     * {@link #markVerticesUpdated(Collection, Map)}).
+     *
+     * @return The identifiers of the vertices in the current session.
+     */
+    public List<Object> loadedVertexIds() {
+        // get current session
+        Neo4JSession session = currentSession();
+        // vertex identifiers
+        return session.loadedVertexIds();
+    }
+
+    /**
+     * Notifies the current session vertices were created in the server by a CYPHER statement executed on this graph
+     * instance. Vertices are not registered in the session, subsequent vertex lookups will query the server.
+     */
+    public void markVerticesCreated() {
+        // get current session
+        Neo4JSession session = currentSession();
+        // vertices must be loaded from server
+        session.markVerticesCreated();
+    }
+
+    /**
+     * Notifies the current session edges were created in the server by a CYPHER statement executed on this graph
+     * instance. Edges are not registered in the session, subsequent edge lookups (including the edges of the vertices
+     * with the given identifiers) will query the server.
+     *
+     * @param vertexIds The identifiers of the edge endpoints.
+     */
+    public void markEdgesCreated(Collection<?> vertexIds) {
+        Objects.requireNonNull(vertexIds, "vertexIds cannot be null");
+        // get current session
+        Neo4JSession session = currentSession();
+        // edges must be loaded from server
+        session.markEdgesCreated(vertexIds);
+    }
+
+    /**
+     * Notifies the current session the vertices with the given identifiers were updated in the server by a CYPHER
+     * statement executed on this graph instance. Vertices loaded in the session are updated with the given property
+     * values, the values will be restored if the transaction is rolled back.
+     *
+     * @param ids        The identifiers of the updated vertices.
+     * @param properties The property values (single cardinality) set on the vertices.
+     */
+    public void markVerticesUpdated(Collection<?> ids, Map<String, Object> properties) {
+        Objects.requireNonNull(ids, "ids cannot be null");
+        Objects.requireNonNull(properties, "properties cannot be null");
+        // get current session
+        Neo4JSession session = currentSession();
+        // update vertices
+        session.markVerticesUpdated(ids, properties);
+    }
+
+    /**
+     * Loads the edges adjacent to the given vertices using a single CYPHER statement, subsequent calls to
+     * {@link Vertex#edges(Direction, String...)} and {@link Vertex#vertices(Direction, String...)} on these vertices
+     * with the same direction and labels will not query the database.
+     *
+     * @param vertices  The vertices.
+     * @param direction The direction of the edges to load.
+     * @param labels    The labels of the edges to load, all edges if empty.
+     */
+    public void loadEdges(Collection<? extends Vertex> vertices, Direction direction, String... labels) {
+        Objects.requireNonNull(vertices, "vertices cannot be null");
+        Objects.requireNonNull(direction, "direction cannot be null");
+        Objects.requireNonNull(labels, "labels cannot be null");
+        // get current session
+        Neo4JSession session = currentSession();
+        // transaction should be ready for io operations
+        transaction.readWrite();
+        // load edges
+        session.loadEdges(vertices.stream().filter(vertex -> vertex instanceof Neo4JVertex).map(vertex -> (Neo4JVertex)vertex).collect(Collectors.toList()), direction, new HashSet<>(Arrays.asList(labels)));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -446,13 +788,14 @@ public class Neo4JGraph implements Graph {
         // transaction should be ready for io operations
         transaction.readWrite();
         // execute statement
-        StatementResult result = session.executeStatement(statement);
+        StatementResult result = executeStatement(session, statement);
         // find edges
         Iterator<Edge> iterator = session.edges(result)
             .collect(Collectors.toCollection(LinkedList::new))
             .iterator();
-        // process summary (query has been already consumed by collect)
-        ResultSummaryLogger.log(result.consume());
+        // process summary (query has been already consumed by collect, cached results were processed when stored)
+        if (!(result instanceof Neo4JResultCache.CachedStatementResult))
+            ResultSummaryLogger.log(result.consume());
         // return iterator
         return iterator;
     }
@@ -483,7 +826,19 @@ public class Neo4JGraph implements Graph {
         Neo4JSession session = currentSession();
         // transaction should be ready for io operations
         transaction.readWrite();
+        // statement might create elements (ids not found in database are no longer valid)
+        if (!readonly)
+            session.clearMissingIdentifiers();
         // find execute statement
+        return executeStatement(session, statement);
+    }
+
+    private StatementResult executeStatement(Neo4JSession session, Statement statement) {
+        // result cache
+        Neo4JResultCache cache = resultCache;
+        if (cache != null)
+            return cache.execute(session, statement);
+        // execute statement
         return session.executeStatement(statement);
     }
 
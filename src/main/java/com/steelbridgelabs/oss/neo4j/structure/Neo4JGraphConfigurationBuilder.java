@@ -40,6 +40,9 @@ public final class Neo4JGraphConfigurationBuilder {
     public static final String Neo4JVertexIdProviderClassNameConfigurationKey = "neo4j.vertexIdProvider";
     public static final String Neo4JEdgeIdProviderClassNameConfigurationKey = "neo4j.edgeIdProvider";
     public static final String Neo4JPropertyIdProviderClassNameConfigurationKey = "neo4j.propertyIdProvider";
+    public static final String Neo4JSessionCapacityConfigurationKey = "neo4j.sessionCapacity";
+    public static final String Neo4JClearSessionOnCommitConfigurationKey = "neo4j.clearSessionOnCommit";
+    public static final String Neo4JWorkerIdConfigurationKey = "neo4j.workerId";
 
     private final String hostname;
     private final short port;
@@ -52,6 +55,9 @@ public final class Neo4JGraphConfigurationBuilder {
     private String edgeIdProviderClassName = null;
     private String propertyIdProviderClassName = null;
     private String elementIdProviderClassName = null;
+    private int sessionCapacity = 0;
+    private boolean clearSessionOnCommit = false;
+    private Long workerId = null;
 
     private Neo4JGraphConfigurationBuilder(String hostname, short port, String username, String password, boolean readonly) {
         Objects.requireNonNull(hostname, "hostname cannot be null");
@@ -132,6 +138,33 @@ public final class Neo4JGraphConfigurationBuilder {
         return this;
     }
 
+    public Neo4JGraphConfigurationBuilder withSessionCapacity(int capacity) {
+        // validate capacity
+        if (capacity < 0)
+            throw new IllegalArgumentException("capacity cannot be negative");
+        // store capacity
+        sessionCapacity = capacity;
+        // return builder
+        return this;
+    }
+
+    public Neo4JGraphConfigurationBuilder withClearSessionOnCommit(boolean clear) {
+        // store flag
+        clearSessionOnCommit = clear;
+        // return builder
+        return this;
+    }
+
+    public Neo4JGraphConfigurationBuilder withWorkerId(long workerId) {
+        // validate worker id
+        if (workerId < 0)
+            throw new IllegalArgumentException("workerId cannot be negative");
+        // store worker id
+        this.workerId = workerId;
+        // return builder
+        return this;
+    }
+
     public Configuration build() {
         // create configuration instance
         Configuration configuration = new BaseConfiguration();
@@ -157,6 +190,13 @@ public final class Neo4JGraphConfigurationBuilder {
         configuration.setProperty(Neo4JEdgeIdProviderClassNameConfigurationKey, edgeIdProviderClassName != null ? edgeIdProviderClassName : elementIdProviderClassName);
         // property id provider
         configuration.setProperty(Neo4JPropertyIdProviderClassNameConfigurationKey, propertyIdProviderClassName != null ? propertyIdProviderClassName : elementIdProviderClassName);
+        // session capacity
+        configuration.setProperty(Neo4JSessionCapacityConfigurationKey, sessionCapacity);
+        // clear session on commit
+        configuration.setProperty(Neo4JClearSessionOnCommitConfigurationKey, clearSessionOnCommit);
+        // worker id (only when assigned)
+        if (workerId != null)
+            configuration.setProperty(Neo4JWorkerIdConfigurationKey, workerId);
         // return configuration
         return configuration;
     }
@@ -49,8 +49,8 @@ public class Neo4JGraphFactory {
             // create driver instance
             Driver driver = createDriverInstance(configuration);
             // create providers
-            Neo4JElementIdProvider<?> vertexIdProvider = loadProvider(driver, configuration.getString(Neo4JGraphConfigurationBuilder.Neo4JVertexIdProviderClassNameConfigurationKey));
-            Neo4JElementIdProvider<?> edgeIdProvider = loadProvider(driver, configuration.getString(Neo4JGraphConfigurationBuilder.Neo4JEdgeIdProviderClassNameConfigurationKey));
+            Neo4JElementIdProvider<?> vertexIdProvider = loadProvider(driver, configuration, configuration.getString(Neo4JGraphConfigurationBuilder.Neo4JVertexIdProviderClassNameConfigurationKey));
+            Neo4JElementIdProvider<?> edgeIdProvider = loadProvider(driver, configuration, configuration.getString(Neo4JGraphConfigurationBuilder.Neo4JEdgeIdProviderClassNameConfigurationKey));
             // readonly
             boolean readonly = configuration.getBoolean(Neo4JGraphConfigurationBuilder.Neo4JReadonlyConfigurationKey);
             // graph instance
@@ -60,6 +60,10 @@ public class Neo4JGraphFactory {
                 graph = new Neo4JGraph(new AnyLabelReadPartition(graphName), new String[]{graphName}, driver, vertexIdProvider, edgeIdProvider, configuration, readonly);
             else
                 graph = new Neo4JGraph(new NoReadPartition(), new String[]{}, driver, vertexIdProvider, edgeIdProvider, configuration, readonly);
+            // session capacity
+            graph.setSessionCapacity(configuration.getInt(Neo4JGraphConfigurationBuilder.Neo4JSessionCapacityConfigurationKey, 0));
+            // clear session on commit
+            graph.setClearSessionOnCommit(configuration.getBoolean(Neo4JGraphConfigurationBuilder.Neo4JClearSessionOnCommitConfigurationKey, false));
             // return graph instance
             return graph;
         }
@@ -83,6 +87,31 @@ public class Neo4JGraphFactory {
         });
     }
 
+    static Neo4JElementIdProvider<?> loadProvider(Driver driver, Configuration configuration, String className) throws ClassNotFoundException, IllegalAccessException, InstantiationException {
+        // check class name
+        if (className != null) {
+            // load class
+            Class<?> type = Class.forName(className);
+            try {
+                // check class has constructor with a Configuration parameter
+                Constructor<?> constructor = type.getConstructor(Configuration.class);
+                // create instance
+                return (Neo4JElementIdProvider<?>)constructor.newInstance(configuration);
+            }
+            catch (NoSuchMethodException ex) {
+                // use Driver or default constructor
+                return loadProvider(driver, className);
+            }
+            catch (InvocationTargetException ex) {
+                // provider rejected configuration
+                if (ex.getCause() instanceof RuntimeException)
+                    throw (RuntimeException)ex.getCause();
+                throw new IllegalArgumentException("Error creating provider instance from configuration", ex.getCause());
+            }
+        }
+        return null;
+    }
+
     static Neo4JElementIdProvider<?> loadProvider(Driver driver, String className) throws ClassNotFoundException, IllegalAccessException, InstantiationException {
         // check class name
         if (className != null) {
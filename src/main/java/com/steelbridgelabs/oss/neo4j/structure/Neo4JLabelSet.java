@@ -0,0 +1,149 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable and sorted set of vertex labels with the precomputed CYPHER label fragment (<code>:`A`:`B`</code>). Label
+ * sets are interned, vertices with the same labels share the same {@link Neo4JLabelSet} instance.
+ *
+ * @author Rogelio J. Baucells
+ */
+final class Neo4JLabelSet extends AbstractSet<String> {
+
+    private static final int MaximumInternedSets = 4096;
+
+    private static final ConcurrentMap<SortedSet<String>, Neo4JLabelSet> interned = new ConcurrentHashMap<>();
+
+    static final Neo4JLabelSet Empty = of(Collections.emptySet());
+
+    private final SortedSet<String> labels;
+    private final String fragment;
+    private final String text;
+
+    private Neo4JLabelSet(SortedSet<String> labels) {
+        // store fields
+        this.labels = labels;
+        // precompute CYPHER fragment
+        this.fragment = labels.stream().map(label -> ":`" + label + "`").collect(Collectors.joining(""));
+        // labels separated by "::"
+        this.text = String.join(Neo4JVertex.LabelDelimiter, labels);
+    }
+
+    static Neo4JLabelSet of(Collection<String> labels) {
+        Objects.requireNonNull(labels, "labels cannot be null");
+        // check it is already a label set
+        if (labels instanceof Neo4JLabelSet)
+            return (Neo4JLabelSet)labels;
+        // canonical form
+        SortedSet<String> set = Collections.unmodifiableSortedSet(new TreeSet<>(labels));
+        // check set was already interned
+        Neo4JLabelSet instance = interned.get(set);
+        if (instance != null)
+            return instance;
+        // create instance
+        instance = new Neo4JLabelSet(set);
+        // do not intern label sets once the table is full (vertices with too many label combinations)
+        if (interned.size() >= MaximumInternedSets)
+            return instance;
+        // intern instance
+        Neo4JLabelSet existing = interned.putIfAbsent(set, instance);
+        // return interned instance
+        return existing != null ? existing : instance;
+    }
+
+    Neo4JLabelSet with(String label) {
+        Objects.requireNonNull(label, "label cannot be null");
+        // check label is already in set
+        if (labels.contains(label))
+            return this;
+        // new set
+        SortedSet<String> set = new TreeSet<>(labels);
+        set.add(label);
+        // interned set
+        return of(set);
+    }
+
+    Neo4JLabelSet without(String label) {
+        Objects.requireNonNull(label, "label cannot be null");
+        // check label is in set
+        if (!labels.contains(label))
+            return this;
+        // new set
+        SortedSet<String> set = new TreeSet<>(labels);
+        set.remove(label);
+        // interned set
+        return of(set);
+    }
+
+    Neo4JLabelSet union(Collection<String> labels) {
+        Objects.requireNonNull(labels, "labels cannot be null");
+        // check labels are already in set
+        if (this.labels.containsAll(labels))
+            return this;
+        // new set
+        SortedSet<String> set = new TreeSet<>(this.labels);
+        set.addAll(labels);
+        // interned set
+        return of(set);
+    }
+
+    /**
+     * Gets the CYPHER label fragment, example: <code>:`Label1`:`Label2`</code>.
+     *
+     * @return The CYPHER label fragment, empty string if the set is empty.
+     */
+    String fragment() {
+        return fragment;
+    }
+
+    /**
+     * Gets the labels separated by {@link Neo4JVertex#LabelDelimiter}.
+     *
+     * @return The labels separated by {@link Neo4JVertex#LabelDelimiter}.
+     */
+    String text() {
+        return text;
+    }
+
+    @Override
+    public boolean contains(Object label) {
+        return labels.contains(label);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return labels.iterator();
+    }
+
+    @Override
+    public int size() {
+        return labels.size();
+    }
+}
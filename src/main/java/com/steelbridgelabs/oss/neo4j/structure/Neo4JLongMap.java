@@ -0,0 +1,346 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Open addressing hash map with primitive <code>long</code> keys, used by {@link Neo4JSession} when identifiers are
+ * generated by a {@link Neo4JElementIdProvider} of {@link Long} values. Keys are not boxed and entries are not
+ * allocated as objects. Entries are iterated in insertion order, or in access order (least recently accessed first)
+ * like a {@link java.util.LinkedHashMap} created with <code>accessOrder</code> set to <code>true</code>.
+ * <p>
+ * Keys must be {@link Long} instances and values cannot be <code>null</code>.
+ * </p>
+ *
+ * @author Rogelio J. Baucells
+ */
+final class Neo4JLongMap<V> extends AbstractMap<Object, V> {
+
+    private static final int DefaultCapacity = 16;
+    private static final int Nil = -1;
+    private static final Object Deleted = new Object();
+
+    private final boolean accessOrder;
+
+    private long[] keys;
+    private Object[] values;
+    private int[] before;
+    private int[] after;
+    private int mask;
+    private int head;
+    private int tail;
+    private int size;
+    private int used;
+    private int modCount = 0;
+    private Set<Entry<Object, V>> entrySet = null;
+
+    Neo4JLongMap(boolean accessOrder) {
+        // store fields
+        this.accessOrder = accessOrder;
+        // initialize storage
+        allocate(DefaultCapacity);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        // only long keys are stored in map
+        return key instanceof Long && find((Long)key) != Nil;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        // only long keys are stored in map
+        if (!(key instanceof Long))
+            return null;
+        // find key
+        int index = find((Long)key);
+        if (index == Nil)
+            return null;
+        // move entry to the end of the list
+        if (accessOrder && index != tail) {
+            // update list
+            unlink(index);
+            link(index);
+            // access order changed
+            modCount++;
+        }
+        return (V)values[index];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(Object key, V value) {
+        Objects.requireNonNull(value, "value cannot be null");
+        // validate key
+        if (!(key instanceof Long))
+            throw new IllegalArgumentException("key must be a Long value");
+        // long key
+        long k = (Long)key;
+        // find key
+        int index = find(k);
+        if (index != Nil) {
+            // previous value
+            V previous = (V)values[index];
+            // update value
+            values[index] = value;
+            // move entry to the end of the list
+            if (accessOrder && index != tail) {
+                // update list
+                unlink(index);
+                link(index);
+                // access order changed
+                modCount++;
+            }
+            return previous;
+        }
+        // check we need to grow the table (deleted slots are counted as used)
+        if ((used + 1) * 4 > keys.length * 3)
+            rehash();
+        // find slot for key, reuse deleted slots
+        index = hash(k) & mask;
+        while (values[index] != null && values[index] != Deleted)
+            index = (index + 1) & mask;
+        // check slot was never used
+        if (values[index] == null)
+            used++;
+        // store entry
+        keys[index] = k;
+        values[index] = value;
+        // append it to list
+        link(index);
+        // update counters
+        size++;
+        modCount++;
+        // no previous value
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        // only long keys are stored in map
+        if (!(key instanceof Long))
+            return null;
+        // find key
+        int index = find((Long)key);
+        if (index == Nil)
+            return null;
+        // remove entry
+        return removeAt(index);
+    }
+
+    @Override
+    public void clear() {
+        // release storage
+        allocate(DefaultCapacity);
+        // map was modified
+        modCount++;
+    }
+
+    @Override
+    public Set<Entry<Object, V>> entrySet() {
+        // create view if needed
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Entry<Object, V>>() {
+
+                @Override
+                public Iterator<Entry<Object, V>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public void clear() {
+                    Neo4JLongMap.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private void allocate(int capacity) {
+        // create storage
+        keys = new long[capacity];
+        values = new Object[capacity];
+        before = new int[capacity];
+        after = new int[capacity];
+        // reset state
+        mask = capacity - 1;
+        head = Nil;
+        tail = Nil;
+        size = 0;
+        used = 0;
+    }
+
+    private void rehash() {
+        // new capacity, keep the table at most half full after rehash
+        int capacity = DefaultCapacity;
+        while (capacity < (size + 1) * 2)
+            capacity <<= 1;
+        // current storage
+        long[] currentKeys = keys;
+        Object[] currentValues = values;
+        int[] currentAfter = after;
+        int current = head;
+        // new storage
+        allocate(capacity);
+        // copy entries preserving list order
+        for (; current != Nil; current = currentAfter[current]) {
+            // find empty slot
+            int index = hash(currentKeys[current]) & mask;
+            while (values[index] != null)
+                index = (index + 1) & mask;
+            // store entry
+            keys[index] = currentKeys[current];
+            values[index] = currentValues[current];
+            // append it to list
+            link(index);
+            // update counters
+            size++;
+            used++;
+        }
+    }
+
+    private int find(long key) {
+        // probe table, there is always at least one empty slot
+        for (int index = hash(key) & mask; ; index = (index + 1) & mask) {
+            // value in slot
+            Object value = values[index];
+            if (value == null)
+                return Nil;
+            // check key
+            if (value != Deleted && keys[index] == key)
+                return index;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V removeAt(int index) {
+        // previous value
+        V previous = (V)values[index];
+        // remove it from list
+        unlink(index);
+        // mark slot as deleted
+        values[index] = Deleted;
+        // update counters
+        size--;
+        modCount++;
+        // reuse table when it becomes empty
+        if (size == 0) {
+            // reset slots
+            Arrays.fill(values, null);
+            used = 0;
+        }
+        return previous;
+    }
+
+    private void link(int index) {
+        // append entry to list
+        before[index] = tail;
+        after[index] = Nil;
+        if (tail != Nil)
+            after[tail] = index;
+        else
+            head = index;
+        tail = index;
+    }
+
+    private void unlink(int index) {
+        // remove entry from list
+        if (before[index] != Nil)
+            after[before[index]] = after[index];
+        else
+            head = after[index];
+        if (after[index] != Nil)
+            before[after[index]] = before[index];
+        else
+            tail = before[index];
+    }
+
+    private static int hash(long key) {
+        // spread bits (fibonacci hashing)
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int)(hash ^ (hash >>> 32));
+    }
+
+    private class EntryIterator implements Iterator<Entry<Object, V>> {
+
+        private int next = head;
+        private int current = Nil;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next != Nil;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<Object, V> next() {
+            // check map was not modified
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            // check we have more entries
+            if (next == Nil)
+                throw new NoSuchElementException();
+            // move to next entry
+            current = next;
+            next = after[current];
+            // entry (key is boxed on demand)
+            return new SimpleImmutableEntry<>(keys[current], (V)values[current]);
+        }
+
+        @Override
+        public void remove() {
+            // check next() was called
+            if (current == Nil)
+                throw new IllegalStateException();
+            // check map was not modified
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            // remove entry
+            removeAt(current);
+            // update state
+            current = Nil;
+            expectedModCount = modCount;
+        }
+    }
+}
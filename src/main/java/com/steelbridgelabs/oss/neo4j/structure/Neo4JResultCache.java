@@ -0,0 +1,287 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import com.steelbridgelabs.oss.neo4j.structure.summary.ResultSummaryLogger;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.exceptions.NoSuchRecordException;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.util.Function;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of the records returned by CYPHER statements executed with {@link Neo4JGraph#vertices(Statement)},
+ * {@link Neo4JGraph#edges(Statement)} and {@link Neo4JGraph#execute(Statement)} on readonly {@link Neo4JGraph}
+ * instances. Entries are keyed by statement text and parameters, evicted in least recently used order and expire
+ * after the configured time to live. The cache keeps hit, miss and eviction counts.
+ *
+ * @author Rogelio J. Baucells
+ */
+public class Neo4JResultCache {
+
+    static class CachedStatementResult implements StatementResult {
+
+        private final Entry entry;
+
+        private int position = 0;
+
+        private CachedStatementResult(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public List<String> keys() {
+            return entry.keys;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < entry.records.size();
+        }
+
+        @Override
+        public Record next() {
+            // check we have more records
+            if (!hasNext())
+                throw new NoSuchElementException();
+            // next record
+            return entry.records.get(position++);
+        }
+
+        @Override
+        public Record single() throws NoSuchRecordException {
+            // check there is a single record left
+            if (entry.records.size() - position != 1)
+                throw new NoSuchRecordException("Expected a result with a single record, but this result contains " + (entry.records.size() - position) + " records");
+            // next record
+            return next();
+        }
+
+        @Override
+        public Record peek() {
+            // check we have more records
+            if (!hasNext())
+                throw new NoSuchRecordException("Cannot peek past the last record");
+            // current record
+            return entry.records.get(position);
+        }
+
+        @Override
+        public List<Record> list() {
+            // remaining records
+            List<Record> list = new ArrayList<>(entry.records.subList(position, entry.records.size()));
+            // result has been consumed
+            position = entry.records.size();
+            return list;
+        }
+
+        @Override
+        public <T> List<T> list(Function<Record, T> mapFunction) {
+            // remaining records
+            List<T> list = new ArrayList<>(entry.records.size() - position);
+            while (hasNext())
+                list.add(mapFunction.apply(next()));
+            return list;
+        }
+
+        @Override
+        public ResultSummary consume() {
+            // result has been consumed
+            position = entry.records.size();
+            return entry.summary;
+        }
+
+        @Override
+        public ResultSummary summary() {
+            return entry.summary;
+        }
+    }
+
+    private static class Entry {
+
+        private final List<String> keys;
+        private final List<Record> records;
+        private final ResultSummary summary;
+        private final long expiration;
+
+        private Entry(List<String> keys, List<Record> records, ResultSummary summary, long expiration) {
+            this.keys = keys;
+            this.records = records;
+            this.summary = summary;
+            this.expiration = expiration;
+        }
+    }
+
+    private final int maximumSize;
+    private final long timeToLive;
+    private final LinkedHashMap<Statement, Entry> entries;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+
+    /**
+     * Creates a {@link Neo4JResultCache} instance.
+     *
+     * @param maximumSize The maximum number of statement results stored in the cache.
+     * @param timeToLive  The time a statement result remains in the cache after it has been stored, zero for no expiration.
+     * @param unit        The {@link TimeUnit} of the time to live value.
+     */
+    public Neo4JResultCache(int maximumSize, long timeToLive, TimeUnit unit) {
+        Objects.requireNonNull(unit, "unit cannot be null");
+        // validate arguments
+        if (maximumSize <= 0)
+            throw new IllegalArgumentException("maximumSize must be greater than zero");
+        if (timeToLive < 0)
+            throw new IllegalArgumentException("timeToLive cannot be negative");
+        // store fields
+        this.maximumSize = maximumSize;
+        this.timeToLive = unit.toNanos(timeToLive);
+        this.entries = new LinkedHashMap<Statement, Entry>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Statement, Entry> eldest) {
+                // check size
+                if (size() > Neo4JResultCache.this.maximumSize) {
+                    // update statistics
+                    evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getTimeToLive(TimeUnit unit) {
+        Objects.requireNonNull(unit, "unit cannot be null");
+        return unit.convert(timeToLive, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the number of statement results in the cache, the value includes expired entries not evicted yet.
+     *
+     * @return The number of statement results in the cache.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of statements served from the cache.
+     *
+     * @return The number of cache hits.
+     */
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of statements executed in the server because the result was not in the cache.
+     *
+     * @return The number of cache misses.
+     */
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the number of statement results removed from the cache because of size or expiration.
+     *
+     * @return The number of cache evictions.
+     */
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Removes the result of the given statement from the cache.
+     *
+     * @param statement The {@link Statement} (text and parameters).
+     */
+    public synchronized void invalidate(Statement statement) {
+        Objects.requireNonNull(statement, "statement cannot be null");
+        // remove entry
+        entries.remove(statement);
+    }
+
+    /**
+     * Removes all statement results from the cache.
+     */
+    public synchronized void invalidateAll() {
+        // remove entries
+        entries.clear();
+    }
+
+    StatementResult execute(Neo4JSession session, Statement statement) {
+        Objects.requireNonNull(session, "session cannot be null");
+        Objects.requireNonNull(statement, "statement cannot be null");
+        // find entry
+        Entry entry = get(statement);
+        if (entry == null) {
+            // execute statement
+            StatementResult result = session.executeStatement(statement);
+            // read all records
+            List<Record> records = Collections.unmodifiableList(result.list());
+            // process summary
+            ResultSummary summary = result.consume();
+            ResultSummaryLogger.log(summary);
+            // create entry
+            entry = new Entry(result.keys(), records, summary, timeToLive == 0 ? Long.MAX_VALUE : System.nanoTime() + timeToLive);
+            // store it
+            synchronized (this) {
+                entries.put(statement, entry);
+            }
+        }
+        return new CachedStatementResult(entry);
+    }
+
+    private synchronized Entry get(Statement statement) {
+        // find entry
+        Entry entry = entries.get(statement);
+        if (entry != null) {
+            // check entry expired
+            if (entry.expiration == Long.MAX_VALUE || System.nanoTime() - entry.expiration <= 0) {
+                // update statistics
+                hitCount++;
+                return entry;
+            }
+            // remove it
+            entries.remove(statement);
+            // update statistics
+            evictionCount++;
+        }
+        // update statistics
+        missCount++;
+        return null;
+    }
+}
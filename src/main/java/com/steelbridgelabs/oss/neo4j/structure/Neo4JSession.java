@@ -19,8 +19,10 @@
 package com.steelbridgelabs.oss.neo4j.structure;
 
 import com.steelbridgelabs.oss.neo4j.structure.summary.ResultSummaryLogger;
+import com.steelbridgelabs.oss.neo4j.structure.summary.ResultSummaryMetrics;
 import org.apache.tinkerpop.gremlin.structure.Direction;
 import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Element;
 import org.apache.tinkerpop.gremlin.structure.Graph;
 import org.apache.tinkerpop.gremlin.structure.Transaction;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
@@ -36,10 +38,16 @@ import org.neo4j.driver.v1.types.Relationship;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -64,23 +72,28 @@ class Neo4JSession implements AutoCloseable {
     private final Session session;
     private final Neo4JElementIdProvider<?> vertexIdProvider;
     private final Neo4JElementIdProvider<?> edgeIdProvider;
-    private final Map<Object, Neo4JVertex> vertices = new HashMap<>();
-    private final Map<Object, Neo4JEdge> edges = new HashMap<>();
-    private final Set<Object> deletedVertices = new HashSet<>();
-    private final Set<Object> deletedEdges = new HashSet<>();
+    private final Map<Object, Neo4JVertex> vertices;
+    private final Map<Object, Neo4JEdge> edges;
+    private final Set<Object> deletedVertices;
+    private final Set<Object> deletedEdges;
     private final Set<Neo4JVertex> transientVertices = new HashSet<>();
     private final Set<Neo4JEdge> transientEdges = new HashSet<>();
-    private final Map<Object, Neo4JVertex> transientVertexIndex = new HashMap<>();
-    private final Map<Object, Neo4JEdge> transientEdgeIndex = new HashMap<>();
+    private final Map<Object, Neo4JVertex> transientVertexIndex;
+    private final Map<Object, Neo4JEdge> transientEdgeIndex;
     private final Set<Neo4JVertex> vertexUpdateQueue = new HashSet<>();
     private final Set<Neo4JEdge> edgeUpdateQueue = new HashSet<>();
     private final Set<Neo4JVertex> vertexDeleteQueue = new HashSet<>();
     private final Set<Neo4JEdge> edgeDeleteQueue = new HashSet<>();
+    private final Set<Neo4JVertex> serverUpdatedVertices = new HashSet<>();
+    private final Set<Object> missingVertices;
+    private final Set<Object> missingEdges;
     private final boolean readonly;
 
     private org.neo4j.driver.v1.Transaction transaction;
     private boolean verticesLoaded = false;
     private boolean edgesLoaded = false;
+    private int pinnedVertices = 0;
+    private int pinnedEdges = 0;
     private boolean profilerEnabled = false;
 
     Neo4JSession(Neo4JGraph graph, Session session, Neo4JElementIdProvider<?> vertexIdProvider, Neo4JElementIdProvider<?> edgeIdProvider, boolean readonly) {
@@ -98,6 +111,48 @@ class Neo4JSession implements AutoCloseable {
         this.vertexIdProvider = vertexIdProvider;
         this.edgeIdProvider = edgeIdProvider;
         this.readonly = readonly;
+        // use primitive long maps when providers generate long identifiers
+        if (isLongIdentifierProvider(vertexIdProvider)) {
+            // vertex maps
+            this.vertices = new Neo4JLongMap<>(true);
+            this.deletedVertices = Collections.newSetFromMap(new Neo4JLongMap<>(false));
+            this.transientVertexIndex = new Neo4JLongMap<>(false);
+            this.missingVertices = Collections.newSetFromMap(new Neo4JLongMap<>(false));
+        }
+        else {
+            // vertex maps
+            this.vertices = new LinkedHashMap<>(16, 0.75f, true);
+            this.deletedVertices = new HashSet<>();
+            this.transientVertexIndex = new HashMap<>();
+            this.missingVertices = new HashSet<>();
+        }
+        if (isLongIdentifierProvider(edgeIdProvider)) {
+            // edge maps
+            this.edges = new Neo4JLongMap<>(true);
+            this.deletedEdges = Collections.newSetFromMap(new Neo4JLongMap<>(false));
+            this.transientEdgeIndex = new Neo4JLongMap<>(false);
+            this.missingEdges = Collections.newSetFromMap(new Neo4JLongMap<>(false));
+        }
+        else {
+            // edge maps
+            this.edges = new LinkedHashMap<>(16, 0.75f, true);
+            this.deletedEdges = new HashSet<>();
+            this.transientEdgeIndex = new HashMap<>();
+            this.missingEdges = new HashSet<>();
+        }
+    }
+
+    private static boolean isLongIdentifierProvider(Neo4JElementIdProvider<?> provider) {
+        // loop class hierarchy
+        for (Class<?> type = provider.getClass(); type != null; type = type.getSuperclass()) {
+            // loop implemented interfaces
+            for (Type item : type.getGenericInterfaces()) {
+                // check it is Neo4JElementIdProvider<T>
+                if (item instanceof ParameterizedType && ((ParameterizedType)item).getRawType() == Neo4JElementIdProvider.class)
+                    return ((ParameterizedType)item).getActualTypeArguments()[0] == Long.class;
+            }
+        }
+        return false;
     }
 
     public org.neo4j.driver.v1.Transaction beginTransaction() {
@@ -137,10 +192,14 @@ class Neo4JSession implements AutoCloseable {
             vertexUpdateQueue.forEach(Neo4JVertex::commit);
             // commit dirty edges
             edgeUpdateQueue.forEach(Neo4JEdge::commit);
+            // commit vertices updated in server
+            serverUpdatedVertices.forEach(Neo4JVertex::commit);
             // move transient vertices to vertices
             transientVertices.forEach(vertex -> vertices.put(vertex.id(), vertex));
             // move transient edges to edges
             transientEdges.forEach(edge -> edges.put(edge.id(), edge));
+            // elements in memory might exceed session capacity
+            evict();
             // clean internal structures
             deletedEdges.clear();
             edgeDeleteQueue.clear();
@@ -152,6 +211,14 @@ class Neo4JSession implements AutoCloseable {
             transientEdgeIndex.clear();
             vertexUpdateQueue.clear();
             edgeUpdateQueue.clear();
+            serverUpdatedVertices.clear();
+            pinnedVertices = 0;
+            pinnedEdges = 0;
+            missingVertices.clear();
+            missingEdges.clear();
+            // clear session after commit if required
+            if (graph.isClearSessionOnCommit())
+                clear();
             // log information
             if (logger.isDebugEnabled())
                 logger.debug("Successfully committed transaction [{}]", transaction.hashCode());
@@ -180,6 +247,8 @@ class Neo4JSession implements AutoCloseable {
             vertexUpdateQueue.forEach(Neo4JVertex::rollback);
             // rollback dirty edges
             edgeUpdateQueue.forEach(Neo4JEdge::rollback);
+            // rollback vertices updated in server
+            serverUpdatedVertices.forEach(Neo4JVertex::rollback);
             // restore deleted vertices
             vertexDeleteQueue.forEach(vertex -> {
                 // restore in map
@@ -205,6 +274,11 @@ class Neo4JSession implements AutoCloseable {
             transientEdgeIndex.clear();
             vertexUpdateQueue.clear();
             edgeUpdateQueue.clear();
+            serverUpdatedVertices.clear();
+            pinnedVertices = 0;
+            pinnedEdges = 0;
+            missingVertices.clear();
+            missingEdges.clear();
             // log information
             if (logger.isDebugEnabled())
                 logger.debug("Successfully rolled-back transaction [{}]", transaction.hashCode());
@@ -226,6 +300,11 @@ class Neo4JSession implements AutoCloseable {
         }
     }
 
+    boolean hasPendingChanges() {
+        // check there are changes that will be sent to the database on commit
+        return !transientVertices.isEmpty() || !transientEdges.isEmpty() || !vertexUpdateQueue.isEmpty() || !edgeUpdateQueue.isEmpty() || !vertexDeleteQueue.isEmpty() || !edgeDeleteQueue.isEmpty();
+    }
+
     String lastBookmark() {
         // last bookmark in session
         return session.lastBookmark();
@@ -242,6 +321,8 @@ class Neo4JSession implements AutoCloseable {
         Neo4JVertex vertex = new Neo4JVertex(graph, this, vertexIdProvider, edgeIdProvider, Arrays.asList(ElementHelper.getLabelValue(keyValues).orElse(Vertex.DEFAULT_LABEL).split(Neo4JVertex.LabelDelimiter)));
         // add vertex to transient set (before processing properties to avoid having a transient vertex in update queue)
         transientVertices.add(vertex);
+        // ids not found in database might be created by this session
+        missingVertices.clear();
         // attach properties
         ElementHelper.attachProperties(vertex, keyValues);
         // check vertex has id
@@ -268,6 +349,8 @@ class Neo4JSession implements AutoCloseable {
         Neo4JEdge edge = new Neo4JEdge(graph, this, edgeIdProvider, label, out, in);
         // register transient edge (before processing properties to avoid having a transient edge in update queue)
         transientEdges.add(edge);
+        // ids not found in database might be created by this session
+        missingEdges.clear();
         // attach properties
         ElementHelper.attachProperties(edge, keyValues);
         // register transient edge with adjacent vertices
@@ -310,8 +393,10 @@ class Neo4JSession implements AutoCloseable {
             if (ids.length > 0) {
                 // parameters as a stream
                 Set<Object> identifiers = Arrays.stream(ids).map(id -> processIdentifier(vertexIdProvider, id)).collect(Collectors.toSet());
+                // load vertices available in element cache
+                loadCachedVertices(identifiers);
                 // filter ids, remove ids already in memory (only ids that might exist on server)
-                List<Object> filter = identifiers.stream().filter(id -> !vertices.containsKey(id) && !transientVertexIndex.containsKey(id)).collect(Collectors.toList());
+                List<Object> filter = identifiers.stream().filter(id -> !vertices.containsKey(id) && !transientVertexIndex.containsKey(id) && !isVertexMissing(id)).collect(Collectors.toList());
                 // check we need to execute statement in server
                 if (!filter.isEmpty()) {
                     // vertex match predicate
@@ -323,11 +408,15 @@ class Neo4JSession implements AutoCloseable {
                         // execute statement
                         StatementResult result = executeStatement(statement);
                         // create stream from query
-                        Stream<Vertex> query = vertices(result);
+                        // identifiers found in server (elements might be evicted from session while loading)
+                        Set<Object> found = new HashSet<>();
+                        Stream<Vertex> query = vertices(result).peek(element -> found.add(element.id()));
                         // combine stream from memory and query result
                         Iterator<Vertex> iterator = combine(Stream.concat(identifiers.stream().filter(vertices::containsKey).map(id -> (Vertex)vertices.get(id)), identifiers.stream().filter(transientVertexIndex::containsKey).map(id -> (Vertex)transientVertexIndex.get(id))), query);
                         // process summary (query has been already consumed by combine)
                         ResultSummaryLogger.log(result.consume());
+                        // remember ids not found in database
+                        registerMissingVertices(filter, found);
                         // return iterator
                         return iterator;
                     }
@@ -336,11 +425,15 @@ class Neo4JSession implements AutoCloseable {
                     // execute statement
                     StatementResult result = executeStatement(statement);
                     // create stream from query
-                    Stream<Vertex> query = vertices(result);
+                    // identifiers found in server (elements might be evicted from session while loading)
+                    Set<Object> found = new HashSet<>();
+                    Stream<Vertex> query = vertices(result).peek(element -> found.add(element.id()));
                     // combine stream from memory and query result
                     Iterator<Vertex> iterator = combine(Stream.concat(identifiers.stream().filter(vertices::containsKey).map(id -> (Vertex)vertices.get(id)), identifiers.stream().filter(transientVertexIndex::containsKey).map(id -> (Vertex)transientVertexIndex.get(id))), query);
                     // process summary (query has been already consumed by combine)
                     ResultSummaryLogger.log(result.consume());
+                    // remember ids not found in database
+                    registerMissingVertices(filter, found);
                     // return iterator
                     return iterator;
                 }
@@ -393,8 +486,10 @@ class Neo4JSession implements AutoCloseable {
             if (ids.length > 0) {
                 // parameters as a stream
                 Set<Object> identifiers = Arrays.stream(ids).map(id -> processIdentifier(edgeIdProvider, id)).collect(Collectors.toSet());
+                // load edges available in element cache
+                loadCachedEdges(identifiers);
                 // filter ids, remove ids already in memory (only ids that might exist on server)
-                List<Object> filter = identifiers.stream().filter(id -> !edges.containsKey(id) && !transientEdgeIndex.containsKey(id)).collect(Collectors.toList());
+                List<Object> filter = identifiers.stream().filter(id -> !edges.containsKey(id) && !transientEdgeIndex.containsKey(id) && !isEdgeMissing(id)).collect(Collectors.toList());
                 // check we need to execute statement in server
                 if (!filter.isEmpty()) {
                     // change operator on single id filtering (performance optimization)
@@ -404,11 +499,15 @@ class Neo4JSession implements AutoCloseable {
                         // execute statement
                         StatementResult result = executeStatement(statement);
                         // find edges
-                        Stream<Edge> query = edges(result);
+                        // identifiers found in server (elements might be evicted from session while loading)
+                        Set<Object> found = new HashSet<>();
+                        Stream<Edge> query = edges(result).peek(element -> found.add(element.id()));
                         // combine stream from memory and query result
                         Iterator<Edge> iterator = combine(Stream.concat(identifiers.stream().filter(edges::containsKey).map(id -> (Edge)edges.get(id)), identifiers.stream().filter(transientEdgeIndex::containsKey).map(id -> (Edge)transientEdgeIndex.get(id))), query);
                         // process summary (query has been already consumed by combine)
                         ResultSummaryLogger.log(result.consume());
+                        // remember ids not found in database
+                        registerMissingEdges(filter, found);
                         // return iterator
                         return iterator;
                     }
@@ -417,11 +516,15 @@ class Neo4JSession implements AutoCloseable {
                     // execute statement
                     StatementResult result = executeStatement(statement);
                     // find edges
-                    Stream<Edge> query = edges(result);
+                    // identifiers found in server (elements might be evicted from session while loading)
+                    Set<Object> found = new HashSet<>();
+                    Stream<Edge> query = edges(result).peek(element -> found.add(element.id()));
                     // combine stream from memory and query result
                     Iterator<Edge> iterator = combine(Stream.concat(identifiers.stream().filter(edges::containsKey).map(id -> (Edge)edges.get(id)), identifiers.stream().filter(transientEdgeIndex::containsKey).map(id -> (Edge)transientEdgeIndex.get(id))), query);
                     // process summary (query has been already consumed by combine)
                     ResultSummaryLogger.log(result.consume());
+                    // remember ids not found in database
+                    registerMissingEdges(filter, found);
                     // return iterator
                     return iterator;
                 }
@@ -462,6 +565,38 @@ class Neo4JSession implements AutoCloseable {
             .filter(Objects::nonNull);
     }
 
+    void loadEdges(Collection<Neo4JVertex> vertices, Direction direction, Set<String> labels) {
+        Objects.requireNonNull(vertices, "vertices cannot be null");
+        Objects.requireNonNull(direction, "direction cannot be null");
+        Objects.requireNonNull(labels, "labels cannot be null");
+        // vertices with edges not in memory
+        List<Neo4JVertex> candidates = vertices.stream().filter(vertex -> !vertex.isEdgesLoaded(direction, labels)).distinct().collect(Collectors.toList());
+        // load adjacency from graph cache (readonly graphs), vertices served from cache are marked as loaded
+        if (readonly)
+            candidates.forEach(vertex -> vertex.loadCachedAdjacency(direction, labels));
+        // vertices with edges not available in cache
+        List<Neo4JVertex> list = candidates.stream().filter(vertex -> !vertex.isEdgesLoaded(direction, labels)).collect(Collectors.toList());
+        if (!list.isEmpty()) {
+            // relationship types
+            String types = labels.stream().map(label -> ":`" + label + "`").collect(Collectors.joining("|"));
+            // vertex match predicate
+            String predicate = partition.vertexMatchPredicate("m");
+            // cypher statement, edges are loaded for all vertices at once
+            Statement statement = new Statement("UNWIND {ids} AS id MATCH " + generateVertexMatchPattern("n") + (direction == Direction.IN ? "<-[r" + types + "]-" : "-[r" + types + "]-") + (direction == Direction.OUT ? ">" : "") + generateVertexMatchPattern("m") + " WHERE " + vertexIdProvider.matchPredicateOperand("n") + " = id" + (predicate != null ? " AND " + predicate : "") + " RETURN n, r, m", Values.parameters("ids", list.stream().map(Neo4JVertex::id).collect(Collectors.toList())));
+            // execute statement
+            StatementResult result = executeStatement(statement);
+            // load edges, edges are registered with adjacent vertices
+            edges(result).forEach(edge -> { });
+            // process summary (query has been already consumed)
+            ResultSummaryLogger.log(result.consume());
+            // after this line it is safe to update loaded flags and labels in memory
+            list.forEach(vertex -> vertex.setEdgesLoaded(direction, labels));
+            // store adjacency in graph cache (readonly graphs)
+            if (readonly)
+                list.forEach(vertex -> vertex.cacheAdjacency(direction, labels));
+        }
+    }
+
     private static <T> Iterator<T> combine(Stream<T> collection, Stream<T> query) {
         // create a copy of first stream (state can be modified in the middle of the iteration)
         List<T> copy = collection.collect(Collectors.toCollection(LinkedList::new));
@@ -516,6 +651,11 @@ class Neo4JSession implements AutoCloseable {
         edges.remove(id);
     }
 
+    Set<Object> deletedEdgeIdentifiers() {
+        // edges deleted in session
+        return Collections.unmodifiableSet(deletedEdges);
+    }
+
     private static <T> void verifyIdentifiers(Class<T> elementClass, Object... ids) {
         // check length
         if (ids.length > 0) {
@@ -545,9 +685,102 @@ class Neo4JSession implements AutoCloseable {
         return provider.processIdentifier(id);
     }
 
+    private boolean isVertexMissing(Object id) {
+        // check session
+        if (missingVertices.contains(id))
+            return true;
+        // element cache
+        Neo4JElementCache cache = readonly ? graph.getElementCache() : null;
+        return cache != null && cache.isVertexMissing(id);
+    }
+
+    private boolean isEdgeMissing(Object id) {
+        // check session
+        if (missingEdges.contains(id))
+            return true;
+        // element cache
+        Neo4JElementCache cache = readonly ? graph.getElementCache() : null;
+        return cache != null && cache.isEdgeMissing(id);
+    }
+
+    private void registerMissingVertices(List<Object> identifiers, Set<Object> found) {
+        // element cache
+        Neo4JElementCache cache = readonly ? graph.getElementCache() : null;
+        // loop identifiers not loaded by statement
+        identifiers.stream().filter(id -> !found.contains(id)).forEach(id -> {
+            // register in session
+            missingVertices.add(id);
+            // register in element cache
+            if (cache != null)
+                cache.putMissingVertex(id);
+        });
+    }
+
+    private void registerMissingEdges(List<Object> identifiers, Set<Object> found) {
+        // element cache
+        Neo4JElementCache cache = readonly ? graph.getElementCache() : null;
+        // loop identifiers not loaded by statement
+        identifiers.stream().filter(id -> !found.contains(id)).forEach(id -> {
+            // register in session
+            missingEdges.add(id);
+            // register in element cache
+            if (cache != null)
+                cache.putMissingEdge(id);
+        });
+    }
+
+    void clearMissingIdentifiers() {
+        // elements might have been created
+        missingVertices.clear();
+        missingEdges.clear();
+    }
+
+    private void loadCachedVertices(Set<Object> identifiers) {
+        // element cache
+        Neo4JElementCache cache = readonly ? graph.getElementCache() : null;
+        if (cache != null) {
+            // loop identifiers not in memory
+            for (Object id : identifiers) {
+                if (!vertices.containsKey(id)) {
+                    // cached node
+                    Node node = cache.vertex(id);
+                    if (node != null)
+                        loadVertex(node, false);
+                }
+            }
+        }
+    }
+
+    private void loadCachedEdges(Set<Object> identifiers) {
+        // element cache
+        Neo4JElementCache cache = readonly ? graph.getElementCache() : null;
+        if (cache != null) {
+            // loop identifiers not in memory
+            for (Object id : identifiers) {
+                if (!edges.containsKey(id)) {
+                    // cached relationship
+                    Neo4JElementCache.EdgeState state = cache.edge(id);
+                    if (state != null)
+                        loadEdge(state.getOut(), state.getRelationship(), state.getIn(), false);
+                }
+            }
+        }
+    }
+
     private Vertex loadVertex(Record record) {
         // node
         Node node = record.get(0).asNode();
+        // load vertex
+        return loadVertex(node);
+    }
+
+    Vertex loadVertex(Node node) {
+        // node read from server
+        return loadVertex(node, true);
+    }
+
+    private Vertex loadVertex(Node node, boolean store) {
+        Objects.requireNonNull(node, "node cannot be null");
         // vertex id
         Object vertexId = vertexIdProvider.get(node);
         // check vertex has been deleted
@@ -557,6 +790,10 @@ class Neo4JSession implements AutoCloseable {
             if (vertex == null) {
                 // check node belongs to partition
                 if (partition.containsVertex(StreamSupport.stream(node.labels().spliterator(), false).collect(Collectors.toSet()))) {
+                    // element cache (only nodes read from server, cached entries must expire on time)
+                    Neo4JElementCache cache = store && readonly ? graph.getElementCache() : null;
+                    if (cache != null)
+                        cache.putVertex(vertexId, node);
                     // create and register vertex
                     return registerVertex(new Neo4JVertex(graph, this, vertexIdProvider, edgeIdProvider, node));
                 }
@@ -571,8 +808,16 @@ class Neo4JSession implements AutoCloseable {
     }
 
     private Edge loadEdge(Record record) {
-        // relationship
-        Relationship relationship = record.get(1).asRelationship();
+        // use overloaded method
+        return loadEdge(record.get(0).asNode(), record.get(1).asRelationship(), record.get(2).asNode());
+    }
+
+    Edge loadEdge(Node firstNode, Relationship relationship, Node secondNode) {
+        // relationship read from server
+        return loadEdge(firstNode, relationship, secondNode, true);
+    }
+
+    Edge loadEdge(Node firstNode, Relationship relationship, Node secondNode, boolean store) {
         // edge id
         Object edgeId = edgeIdProvider.get(relationship);
         // check edge has been deleted
@@ -580,9 +825,6 @@ class Neo4JSession implements AutoCloseable {
             // check we have record in memory
             Neo4JEdge edge = edges.get(edgeId);
             if (edge == null) {
-                // nodes
-                Node firstNode = record.get(0).asNode();
-                Node secondNode = record.get(2).asNode();
                 // node ids
                 Object firstNodeId = vertexIdProvider.get(firstNode);
                 Object secondNodeId = vertexIdProvider.get(secondNode);
@@ -608,6 +850,10 @@ class Neo4JSession implements AutoCloseable {
                 // find out start and end of the relationship (edge could come in either direction)
                 Neo4JVertex out = relationship.startNodeId() == firstNode.id() ? firstVertex : secondVertex;
                 Neo4JVertex in = relationship.endNodeId() == firstNode.id() ? firstVertex : secondVertex;
+                // element cache (only relationships read from server, cached entries must expire on time)
+                Neo4JElementCache cache = store && readonly ? graph.getElementCache() : null;
+                if (cache != null)
+                    cache.putEdge(edgeId, firstNode, relationship, secondNode);
                 // create edge
                 edge = new Neo4JEdge(graph, this, edgeIdProvider, out, relationship, in);
                 // register with adjacent vertices
@@ -626,6 +872,8 @@ class Neo4JSession implements AutoCloseable {
     private Vertex registerVertex(Neo4JVertex vertex) {
         // map vertex
         vertices.put(vertex.id(), vertex);
+        // check session capacity
+        evict();
         // return vertex
         return vertex;
     }
@@ -635,10 +883,143 @@ class Neo4JSession implements AutoCloseable {
         Object id = edge.id();
         // map edge
         edges.put(id, edge);
+        // check session capacity
+        evict();
         // return vertex
         return edge;
     }
 
+    private void evict() {
+        // session capacity
+        int capacity = graph.getSessionCapacity();
+        if (capacity > 0)
+            evict(capacity);
+    }
+
+    private void evict(int capacity) {
+        // check there are edges to evict (pinned edges found in last scan do not count)
+        if (edges.size() - pinnedEdges > capacity) {
+            // pinned edges found in scan
+            int pinned = 0;
+            // evict least recently used edges
+            for (Iterator<Neo4JEdge> iterator = edges.values().iterator(); edges.size() > capacity && iterator.hasNext(); ) {
+                // current edge
+                Neo4JEdge edge = iterator.next();
+                // dirty edges remain in memory until transaction is completed
+                if (isEvictable(edge)) {
+                    // remove it from map
+                    iterator.remove();
+                    // remove it from adjacent vertices
+                    detachEdge(edge);
+                }
+                else
+                    pinned++;
+            }
+            // all edges were visited, remaining edges are pinned (skip scans until more edges are registered)
+            if (edges.size() > capacity)
+                pinnedEdges = pinned;
+        }
+        // check there are vertices to evict (pinned vertices found in last scan do not count)
+        if (vertices.size() - pinnedVertices > capacity) {
+            // pinned vertices found in scan
+            int pinned = 0;
+            // evict least recently used vertices
+            for (Iterator<Neo4JVertex> iterator = vertices.values().iterator(); vertices.size() > capacity && iterator.hasNext(); ) {
+                // current vertex
+                Neo4JVertex vertex = iterator.next();
+                // dirty vertices (and vertices with transient or dirty edges) remain in memory until transaction is completed
+                if (isEvictable(vertex)) {
+                    // remove it from map
+                    iterator.remove();
+                    // remove adjacent edges
+                    detachVertex(vertex);
+                }
+                else
+                    pinned++;
+            }
+            // all vertices were visited, remaining vertices are pinned (skip scans until more vertices are registered)
+            if (vertices.size() > capacity)
+                pinnedVertices = pinned;
+        }
+    }
+
+    void clear() {
+        // log information
+        if (logger.isDebugEnabled())
+            logger.debug("Clearing session [{}]", session.hashCode());
+        // evict all elements without pending changes
+        pinnedVertices = 0;
+        pinnedEdges = 0;
+        evict(0);
+        // elements might be created by other sessions
+        missingVertices.clear();
+        missingEdges.clear();
+    }
+
+    void evict(Element... elements) {
+        Objects.requireNonNull(elements, "elements cannot be null");
+        // loop elements
+        for (Element element : elements) {
+            // vertex
+            if (element instanceof Neo4JVertex) {
+                // vertex instance
+                Neo4JVertex vertex = (Neo4JVertex)element;
+                // check vertex is registered in session
+                if (vertices.get(vertex.id()) == vertex && isEvictable(vertex)) {
+                    // remove it from map
+                    vertices.remove(vertex.id());
+                    // remove adjacent edges
+                    detachVertex(vertex);
+                }
+            }
+            else if (element instanceof Neo4JEdge) {
+                // edge instance
+                Neo4JEdge edge = (Neo4JEdge)element;
+                // check edge is registered in session
+                if (edges.get(edge.id()) == edge && isEvictable(edge)) {
+                    // remove it from map
+                    edges.remove(edge.id());
+                    // remove it from adjacent vertices
+                    detachEdge(edge);
+                }
+            }
+        }
+    }
+
+    private boolean isEvictable(Neo4JEdge edge) {
+        // dirty edges remain in memory until transaction is completed
+        return !edgeUpdateQueue.contains(edge);
+    }
+
+    private boolean isEvictable(Neo4JVertex vertex) {
+        // dirty vertices (and vertices with transient or dirty edges) remain in memory until transaction is completed
+        return !vertexUpdateQueue.contains(vertex) && !serverUpdatedVertices.contains(vertex) && (transientEdges.isEmpty() && edgeUpdateQueue.isEmpty() || vertex.noneAdjacentEdgeMatch(edge -> transientEdges.contains(edge) || edgeUpdateQueue.contains(edge)));
+    }
+
+    private void detachVertex(Neo4JVertex vertex) {
+        // edges referencing the vertex instance must be removed from memory
+        vertex.adjacentEdges().forEach(edge -> {
+            // remove it from map
+            edges.remove(edge.id());
+            // remove it from adjacent vertices
+            detachEdge(edge);
+        });
+        // vertices must be loaded from server
+        verticesLoaded = false;
+    }
+
+    private void detachEdge(Neo4JEdge edge) {
+        // remove references from adjacent vertices, edges must be loaded again from server
+        edge.vertices(Direction.BOTH).forEachRemaining(adjacent -> {
+            // remove from vertex
+            ((Neo4JVertex)adjacent).removeEdge(edge);
+            // reset loaded flags
+            ((Neo4JVertex)adjacent).resetEdgesLoaded();
+        });
+        // edges must be loaded from server
+        edgesLoaded = false;
+    }
+
     void removeVertex(Neo4JVertex vertex) {
         // vertex id
         Object id = vertex.id();
@@ -668,6 +1049,88 @@ class Neo4JSession implements AutoCloseable {
         }
     }
 
+    void markVerticesDeleted(Collection<?> ids) {
+        Objects.requireNonNull(ids, "ids cannot be null");
+        // process identifiers
+        for (Object id : ids) {
+            // log information
+            if (logger.isDebugEnabled())
+                logger.debug("Vertex deleted in server: {}", id);
+            // mark vertex as deleted (prevent returning vertex in query results)
+            deletedVertices.add(id);
+            // remove vertex from map
+            Neo4JVertex vertex = vertices.remove(id);
+            if (vertex != null) {
+                // relationships were deleted in server with the vertex (DETACH DELETE)
+                vertex.adjacentEdges().forEach(edge -> {
+                    // edge id
+                    Object edgeId = edge.id();
+                    // mark edge as deleted (prevent returning edge in query results)
+                    deletedEdges.add(edgeId);
+                    // remove references from adjacent vertices, edges must be loaded again in case of a rollback
+                    edge.vertices(Direction.BOTH).forEachRemaining(adjacent -> {
+                        // remove from vertex
+                        ((Neo4JVertex)adjacent).removeEdge(edge);
+                        // reset loaded flags
+                        ((Neo4JVertex)adjacent).resetEdgesLoaded();
+                    });
+                    // remove edge from map
+                    edges.remove(edgeId);
+                });
+            }
+        }
+    }
+
+    List<Object> loadedVertexIds() {
+        // identifiers of the vertices in memory
+        return new ArrayList<>(vertices.keySet());
+    }
+
+    void markVerticesCreated() {
+        // log information
+        if (logger.isDebugEnabled())
+            logger.debug("Vertices created in server");
+        // vertices must be loaded from server
+        verticesLoaded = false;
+    }
+
+    void markEdgesCreated(Collection<?> vertexIds) {
+        Objects.requireNonNull(vertexIds, "vertexIds cannot be null");
+        // log information
+        if (logger.isDebugEnabled())
+            logger.debug("Edges created in server");
+        // process identifiers
+        for (Object id : vertexIds) {
+            // check vertex is loaded in session
+            Neo4JVertex vertex = vertices.get(id);
+            if (vertex != null) {
+                // edges must be loaded from server
+                vertex.resetEdgesLoaded();
+            }
+        }
+        // edges must be loaded from server
+        edgesLoaded = false;
+    }
+
+    void markVerticesUpdated(Collection<?> ids, Map<String, Object> properties) {
+        Objects.requireNonNull(ids, "ids cannot be null");
+        Objects.requireNonNull(properties, "properties cannot be null");
+        // process identifiers
+        for (Object id : ids) {
+            // check vertex is loaded in session
+            Neo4JVertex vertex = vertices.get(id);
+            if (vertex != null) {
+                // log information
+                if (logger.isDebugEnabled())
+                    logger.debug("Vertex updated in server: {}", vertex);
+                // update property values in memory
+                vertex.updateProperties(properties);
+                // commit or rollback values with transaction
+                serverUpdatedVertices.add(vertex);
+            }
+        }
+    }
+
     void dirtyVertex(Neo4JVertex vertex) {
         // check element is a transient one
         if (!transientVertices.contains(vertex)) {
@@ -812,8 +1275,10 @@ class Neo4JSession implements AutoCloseable {
         try {
             // statement to execute
             Statement cypherStatement = statement;
-            // check we need to modify statement
-            if (profilerEnabled) {
+            // PROFILE appended to record profile() metrics only
+            boolean profiled = false;
+            // check we need to modify statement (profiler enabled or traversal step being profiled)
+            if (profilerEnabled || ResultSummaryMetrics.isActive()) {
                 // statement text
                 String text = cypherStatement.text();
                 if (text != null) {
@@ -823,12 +1288,16 @@ class Neo4JSession implements AutoCloseable {
                     if (!text.startsWith("PROFILE") && !text.startsWith("EXPLAIN")) {
                         // create new statement
                         cypherStatement = new Statement("PROFILE " + statement.text(), statement.parameters());
+                        // profile table is logged only when profiler is enabled
+                        profiled = !profilerEnabled;
                     }
                 }
             }
             // log information
             if (logger.isDebugEnabled())
                 logger.debug("Executing Cypher statement on transaction [{}]: {}", transaction.hashCode(), cypherStatement.toString());
+            // record start time in profile() metrics
+            ResultSummaryMetrics.started(cypherStatement, profiled);
             // execute on transaction
             return transaction.run(cypherStatement);
         }
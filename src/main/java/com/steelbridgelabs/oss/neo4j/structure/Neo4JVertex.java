@@ -28,6 +28,7 @@ import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.apache.tinkerpop.gremlin.structure.VertexProperty;
 import org.apache.tinkerpop.gremlin.structure.util.ElementHelper;
 import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
 import org.neo4j.driver.internal.types.TypeRepresentation;
 import org.neo4j.driver.v1.Record;
 import org.neo4j.driver.v1.Statement;
@@ -49,9 +50,10 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -65,18 +67,17 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
     private static class Neo4JVertexProperty<T> implements VertexProperty<T> {
 
         private final Neo4JVertex vertex;
-        private final Object id;
         private final String name;
         private final T value;
 
-        public Neo4JVertexProperty(Neo4JVertex vertex, Object id, String name, T value) {
+        private Object id = null;
+
+        public Neo4JVertexProperty(Neo4JVertex vertex, String name, T value) {
             Objects.requireNonNull(vertex, "vertex cannot be null");
-            Objects.requireNonNull(id, "id cannot be null");
             Objects.requireNonNull(name, "name cannot be null");
             Objects.requireNonNull(value, "value cannot be null");
             // store fields
             this.vertex = vertex;
-            this.id = id;
             this.name = name;
             this.value = value;
         }
@@ -93,6 +94,9 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
 
         @Override
         public Object id() {
+            // allocate identifier on first use (loading vertices does not touch shared state)
+            if (id == null)
+                id = propertyIdProvider.incrementAndGet();
             return id;
         }
 
@@ -121,13 +125,19 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
             // check cardinality
             Cardinality cardinality = vertex.cardinalities.get(name);
             if (cardinality != null) {
+                // properties might be shared with last committed state
+                vertex.copyOnWrite();
                 // check it is single value
                 if (cardinality != Cardinality.single) {
                     // get list of properties in vertex
-                    Collection<?> vertexProperties = vertex.properties.get(name);
+                    Collection<VertexProperty> vertexProperties = vertex.properties.get(name);
                     if (vertexProperties != null) {
+                        // copy collection (collections are not modified once stored in vertex, iterators might reference them)
+                        vertexProperties = cardinality == Cardinality.list ? new ArrayList<>(vertexProperties) : new HashSet<>(vertexProperties);
                         // remove this instance from list
                         vertexProperties.remove(this);
+                        // update vertex properties
+                        vertex.properties.put(name, vertexProperties);
                         // check properties are empty, remove key from vertex properties
                         if (vertexProperties.isEmpty()) {
                             // remove property
@@ -174,6 +184,114 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         }
     }
 
+    private static class Neo4JAdjacentEdges {
+
+        private static final Neo4JEdge[] NoEdges = new Neo4JEdge[0];
+
+        private final Map<String, Set<Neo4JEdge>> buckets = new HashMap<>();
+        private final Map<String, Neo4JEdge[]> snapshots = new HashMap<>();
+
+        void add(Neo4JEdge edge) {
+            // add edge to relationship type bucket
+            if (buckets.computeIfAbsent(edge.label(), label -> new HashSet<>()).add(edge)) {
+                // bucket snapshot is no longer valid
+                snapshots.remove(edge.label());
+            }
+        }
+
+        void remove(Neo4JEdge edge) {
+            // relationship type bucket
+            Set<Neo4JEdge> bucket = buckets.get(edge.label());
+            if (bucket != null && bucket.remove(edge)) {
+                // bucket snapshot is no longer valid
+                snapshots.remove(edge.label());
+                // remove empty bucket
+                if (bucket.isEmpty())
+                    buckets.remove(edge.label());
+            }
+        }
+
+        <T> Iterator<T> iterator(Set<String> labels, Function<Neo4JEdge, T> function) {
+            // buckets to iterate
+            Collection<String> keys = labels.isEmpty() ? buckets.keySet() : labels;
+            // collect bucket snapshots
+            Neo4JEdge[][] arrays = new Neo4JEdge[keys.size()][];
+            int index = 0;
+            for (String key : keys)
+                arrays[index++] = snapshot(key);
+            // iterator on immutable arrays, buckets can be modified while iterating
+            return new Neo4JSnapshotIterator<>(arrays, function);
+        }
+
+        private Neo4JEdge[] snapshot(String label) {
+            // check snapshot is still valid
+            Neo4JEdge[] snapshot = snapshots.get(label);
+            if (snapshot == null) {
+                // relationship type bucket
+                Set<Neo4JEdge> bucket = buckets.get(label);
+                if (bucket == null)
+                    return NoEdges;
+                // create snapshot, it is reused until the bucket is modified
+                snapshot = bucket.toArray(new Neo4JEdge[bucket.size()]);
+                // store it
+                snapshots.put(label, snapshot);
+            }
+            return snapshot;
+        }
+
+        Stream<Neo4JEdge> stream() {
+            // all buckets
+            return buckets.values().stream().flatMap(Set::stream);
+        }
+
+        Stream<Neo4JEdge> stream(Set<String> labels) {
+            // check we need all edges
+            if (labels.isEmpty())
+                return stream();
+            // edges in the requested buckets only
+            return labels.stream().map(buckets::get).filter(Objects::nonNull).flatMap(Set::stream);
+        }
+
+        void forEach(Consumer<Neo4JEdge> consumer) {
+            // loop buckets
+            buckets.values().forEach(bucket -> bucket.forEach(consumer));
+        }
+    }
+
+    private static class Neo4JSnapshotIterator<T> implements Iterator<T> {
+
+        private final Neo4JEdge[][] arrays;
+        private final Function<Neo4JEdge, T> function;
+
+        private int array = 0;
+        private int index = 0;
+
+        Neo4JSnapshotIterator(Neo4JEdge[][] arrays, Function<Neo4JEdge, T> function) {
+            this.arrays = arrays;
+            this.function = function;
+        }
+
+        @Override
+        public boolean hasNext() {
+            // skip exhausted arrays
+            while (array < arrays.length && index == arrays[array].length) {
+                // move to next array
+                array++;
+                index = 0;
+            }
+            return array < arrays.length;
+        }
+
+        @Override
+        public T next() {
+            // check we have more elements
+            if (!hasNext())
+                throw new NoSuchElementException();
+            // map edge
+            return function.apply(arrays[array][index++]);
+        }
+    }
+
     public static final String LabelDelimiter = "::";
 
     private static final AtomicLong propertyIdProvider = new AtomicLong(0L);
@@ -184,26 +302,27 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
     private final Neo4JSession session;
     private final Neo4JElementIdProvider<?> vertexIdProvider;
     private final Neo4JElementIdProvider<?> edgeIdProvider;
-    private final Map<String, Collection<VertexProperty>> properties = new HashMap<>();
-    private final Map<String, VertexProperty.Cardinality> cardinalities = new HashMap<>();
-    private final Set<Neo4JEdge> outEdges = new HashSet<>();
-    private final Set<Neo4JEdge> inEdges = new HashSet<>();
+    private final Neo4JAdjacentEdges outEdges = new Neo4JAdjacentEdges();
+    private final Neo4JAdjacentEdges inEdges = new Neo4JAdjacentEdges();
     private final Set<String> outEdgeLabels = new HashSet<>();
     private final Set<String> inEdgeLabels = new HashSet<>();
-    private final SortedSet<String> labelsAdded = new TreeSet<>();
-    private final SortedSet<String> labelsRemoved = new TreeSet<>();
-    private final SortedSet<String> labels;
     private final Set<String> additionalLabels;
 
     private Object generatedId = null;
     private boolean outEdgesLoaded = false;
     private boolean inEdgesLoaded = false;
     private boolean dirty = false;
-    private SortedSet<String> matchLabels;
-    private SortedSet<String> originalLabels;
-    private Set<String> graphLabels;
+    private Neo4JLabelSet labels;
+    private Neo4JLabelSet labelsAdded = Neo4JLabelSet.Empty;
+    private Neo4JLabelSet labelsRemoved = Neo4JLabelSet.Empty;
+    private Neo4JLabelSet matchLabels;
+    private Neo4JLabelSet originalLabels;
+    private Neo4JLabelSet graphLabels;
     private Set<String> removedProperties = new HashSet<>();
+    private Map<String, Collection<VertexProperty>> properties = new HashMap<>();
+    private Map<String, VertexProperty.Cardinality> cardinalities = new HashMap<>();
     private Map<String, Collection<VertexProperty>> originalProperties;
+    private boolean propertiesIterated = false;
     private Map<String, VertexProperty.Cardinality> originalCardinalities;
 
     Neo4JVertex(Neo4JGraph graph, Neo4JSession session, Neo4JElementIdProvider<?> vertexIdProvider, Neo4JElementIdProvider<?> edgeIdProvider, Collection<String> labels) {
@@ -219,16 +338,16 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         this.session = session;
         this.vertexIdProvider = vertexIdProvider;
         this.edgeIdProvider = edgeIdProvider;
-        this.labels = new TreeSet<>(labels);
+        this.labels = Neo4JLabelSet.of(labels);
         // this is the original set of labels
-        this.originalLabels = Collections.emptySortedSet();
+        this.originalLabels = Neo4JLabelSet.Empty;
         // labels used to match vertex in database
-        this.matchLabels = Collections.emptySortedSet();
+        this.matchLabels = Neo4JLabelSet.Empty;
         // graph labels
-        this.graphLabels = additionalLabels;
-        // initialize original properties and cardinalities
-        this.originalProperties = new HashMap<>();
-        this.originalCardinalities = new HashMap<>();
+        this.graphLabels = Neo4JLabelSet.of(additionalLabels);
+        // initialize original properties and cardinalities (shared until first modification)
+        this.originalProperties = properties;
+        this.originalCardinalities = cardinalities;
         // generate id
         this.id = vertexIdProvider.generate();
         // this is a new vertex, everything is in memory
@@ -252,13 +371,13 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         // from node
         this.id = vertexIdProvider.get(node);
         // graph labels (additional & partition labels in original node)
-        this.graphLabels = StreamSupport.stream(node.labels().spliterator(), false).filter(label -> additionalLabels.contains(label) && !partition.validateLabel(label)).collect(Collectors.toSet());
+        this.graphLabels = Neo4JLabelSet.of(StreamSupport.stream(node.labels().spliterator(), false).filter(label -> additionalLabels.contains(label) && !partition.validateLabel(label)).collect(Collectors.toList()));
         // labels, do not store additional && partition labels
-        this.labels = StreamSupport.stream(node.labels().spliterator(), false).filter(label -> !graphLabels.contains(label)).collect(Collectors.toCollection(TreeSet::new));
-        // this is the original set of labels
-        this.originalLabels = new TreeSet<>(this.labels);
+        this.labels = Neo4JLabelSet.of(StreamSupport.stream(node.labels().spliterator(), false).filter(label -> !graphLabels.contains(label)).collect(Collectors.toList()));
+        // this is the original set of labels (immutable, shared until labels are modified)
+        this.originalLabels = this.labels;
         // labels used to match the vertex in the database
-        this.matchLabels = StreamSupport.stream(node.labels().spliterator(), false).collect(Collectors.toCollection(TreeSet::new));
+        this.matchLabels = this.labels.union(graphLabels);
         // id field name (if any)
         String idFieldName = vertexIdProvider.fieldName();
         // copy properties from node, exclude identifier
@@ -270,7 +389,7 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
             switch (type.constructor()) {
                 case LIST:
                     // process values
-                    properties.put(key, value.asList().stream().map(item -> new Neo4JVertexProperty<>(this, propertyIdProvider.incrementAndGet(), key, item)).collect(Collectors.toList()));
+                    properties.put(key, value.asList().stream().map(item -> new Neo4JVertexProperty<>(this, key, item)).collect(Collectors.toList()));
                     // cardinality
                     cardinalities.put(key, VertexProperty.Cardinality.list);
                     break;
@@ -278,15 +397,15 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                     throw new RuntimeException("TODO: implement maps");
                 default:
                     // add property
-                    properties.put(key, Collections.singletonList(new Neo4JVertexProperty<>(this, propertyIdProvider.incrementAndGet(), key, value.asObject())));
+                    properties.put(key, Collections.singletonList(new Neo4JVertexProperty<>(this, key, value.asObject())));
                     // cardinality
                     cardinalities.put(key, VertexProperty.Cardinality.single);
                     break;
             }
         });
-        // initialize original properties and cardinalities
-        this.originalProperties = new HashMap<>(properties);
-        this.originalCardinalities = new HashMap<>(cardinalities);
+        // initialize original properties and cardinalities (shared until first modification)
+        this.originalProperties = properties;
+        this.originalCardinalities = cardinalities;
     }
 
     /**
@@ -303,7 +422,7 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
     @Override
     public String label() {
         // labels separated by "::"
-        return labels.stream().collect(Collectors.joining(LabelDelimiter));
+        return labels.text();
     }
 
     public String[] labels() {
@@ -316,11 +435,13 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         if (!partition.validateLabel(label))
             throw new IllegalArgumentException("Invalid label, label name cannot be the same as Graph partition labels");
         // add label to set
-        if (labels.add(label)) {
+        if (!labels.contains(label)) {
+            // update labels
+            labels = labels.with(label);
             // notify session
             session.dirtyVertex(this);
             // we need to update labels
-            labelsAdded.add(label);
+            labelsAdded = labelsAdded.with(label);
             // indicate label was added
             return true;
         }
@@ -336,13 +457,17 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         if (additionalLabels.contains(label))
             throw new IllegalArgumentException("Invalid label, label name cannot be removed since it is part of additional labels for vertices");
         // remove label from set
-        if (labels.remove(label)) {
+        if (labels.contains(label)) {
+            // update labels
+            labels = labels.without(label);
             // check this label was previously added in this session
-            if (!labelsAdded.remove(label)) {
+            if (labelsAdded.contains(label))
+                labelsAdded = labelsAdded.without(label);
+            else {
                 // notify session
                 session.dirtyVertex(this);
                 // we need to update labels
-                labelsRemoved.add(label);
+                labelsRemoved = labelsRemoved.with(label);
             }
             // indicate label was removed
             return true;
@@ -362,9 +487,9 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
     public String matchPattern(String alias) {
         // generate match pattern
         if (alias != null)
-            return "(" + alias + processLabels(matchLabels, false) + ")";
+            return "(" + alias + matchLabels.fragment() + ")";
         // pattern without alias
-        return "(" + processLabels(matchLabels, false) + ")";
+        return "(" + matchLabels.fragment() + ")";
     }
 
     /**
@@ -437,6 +562,39 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         inEdges.remove(edge);
     }
 
+    void updateProperties(Map<String, Object> values) {
+        Objects.requireNonNull(values, "values cannot be null");
+        // properties might be shared with last committed state
+        copyOnWrite();
+        // update values in memory, the server already stores these values (vertex is not dirty)
+        values.forEach((name, value) -> {
+            // use value (single)
+            properties.put(name, Collections.singletonList(new Neo4JVertexProperty<>(this, name, value)));
+            // cardinality
+            cardinalities.put(name, VertexProperty.Cardinality.single);
+            // property is not removed
+            removedProperties.remove(name);
+        });
+    }
+
+    void resetEdgesLoaded() {
+        // edges not in memory must be loaded from server
+        outEdgesLoaded = false;
+        inEdgesLoaded = false;
+        outEdgeLabels.clear();
+        inEdgeLabels.clear();
+    }
+
+    boolean noneAdjacentEdgeMatch(Predicate<Neo4JEdge> predicate) {
+        // check edges in memory without copying them
+        return outEdges.stream().noneMatch(predicate) && inEdges.stream().noneMatch(predicate);
+    }
+
+    Set<Neo4JEdge> adjacentEdges() {
+        // edges in memory
+        return Stream.concat(outEdges.stream(), inEdges.stream()).collect(Collectors.toSet());
+    }
+
     private void processEdgesWhereClause(String vertexAlias, List<Object> identifiers, String alias, StringBuilder builder, Map<String, Object> parameters) {
         // generate match predicate
         String predicate = partition.vertexMatchPredicate(vertexAlias);
@@ -469,6 +627,8 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         graph.tx().readWrite();
         // load labels in hash set (remove duplicates)
         Set<String> set = new HashSet<>(Arrays.asList(labels));
+        // load adjacency from graph cache
+        loadCachedAdjacency(direction, set);
         // parameters
         Map<String, Object> parameters = new HashMap<>();
         // vertex id
@@ -498,7 +658,7 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                     // execute command
                     Stream<Edge> query = session.edges(result);
                     // edges in memory plus the ones in database (return copy since edges can be deleted in the middle of the loop)
-                    Iterator<Edge> iterator = Stream.concat((labels.length != 0 ? outEdges.stream().filter(edge -> set.contains(edge.label())) : outEdges.stream()).map(edge -> (Edge)edge), query)
+                    Iterator<Edge> iterator = Stream.concat(outEdges.stream(set).map(edge -> (Edge)edge), query)
                         .collect(Collectors.toList())
                         .iterator();
                     // process summary (query has been already consumed by combine)
@@ -506,15 +666,14 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                     // after this line it is safe to update loaded flag and labels in memory
                     outEdgesLoaded = labels.length == 0;
                     outEdgeLabels.addAll(set);
+                    // store adjacency in graph cache
+                    cacheAdjacency(direction, set);
                     // return iterator
                     return iterator;
                 }
             }
-            // edges in memory (return copy since edges can be deleted in the middle of the loop)
-            return outEdges.stream().filter(edge -> labels.length == 0 || set.contains(edge.label()))
-                .map(edge -> (Edge)edge)
-                .collect(Collectors.toList())
-                .iterator();
+            // edges in memory (snapshot since edges can be deleted in the middle of the loop)
+            return outEdges.iterator(set, edge -> edge);
         }
         // in edges
         if (direction == Direction.IN) {
@@ -541,7 +700,7 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                     // execute command
                     Stream<Edge> query = session.edges(result);
                     // edges in memory plus the ones in database (return copy since edges can be deleted in the middle of the loop)
-                    Iterator<Edge> iterator = Stream.concat((labels.length != 0 ? inEdges.stream().filter(edge -> set.contains(edge.label())) : inEdges.stream()).map(edge -> (Edge)edge), query)
+                    Iterator<Edge> iterator = Stream.concat(inEdges.stream(set).map(edge -> (Edge)edge), query)
                         .collect(Collectors.toList())
                         .iterator();
                     // process summary (query has been already consumed by combine)
@@ -549,15 +708,14 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                     // after this line it is safe to update loaded flag and labels in memory
                     inEdgesLoaded = labels.length == 0;
                     inEdgeLabels.addAll(set);
+                    // store adjacency in graph cache
+                    cacheAdjacency(direction, set);
                     // return iterator
                     return iterator;
                 }
             }
-            // edges in memory (return copy since edges can be deleted in the middle of the loop)
-            return inEdges.stream().filter(edge -> labels.length == 0 || set.contains(edge.label()))
-                .map(edge -> (Edge)edge)
-                .collect(Collectors.toList())
-                .iterator();
+            // edges in memory (snapshot since edges can be deleted in the middle of the loop)
+            return inEdges.iterator(set, edge -> edge);
         }
         // check we have all edges in memory
         if (!outEdgesLoaded || !inEdgesLoaded) {
@@ -580,7 +738,7 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                 // execute command
                 Stream<Edge> query = session.edges(result);
                 // edges in memory plus the ones in database (return copy since edges can be deleted in the middle of the loop)
-                Iterator<Edge> iterator = Stream.concat(Stream.concat(labels.length != 0 ? outEdges.stream().filter(edge -> set.contains(edge.label())) : outEdges.stream(), labels.length != 0 ? inEdges.stream().filter(edge -> set.contains(edge.label())) : inEdges.stream()).map(edge -> (Edge)edge), query)
+                Iterator<Edge> iterator = Stream.concat(Stream.concat(outEdges.stream(set), inEdges.stream(set)).map(edge -> (Edge)edge), query)
                     .collect(Collectors.toList())
                     .iterator();
                 // process summary (query has been already consumed by combine)
@@ -591,15 +749,85 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                 // update labels in memory
                 outEdgeLabels.addAll(set);
                 inEdgeLabels.addAll(set);
+                // store adjacency in graph cache
+                cacheAdjacency(direction, set);
                 // return iterator
                 return iterator;
             }
         }
-        // edges in memory (return copy since edges can be deleted in the middle of the loop)
-        return Stream.concat(labels.length != 0 ? inEdges.stream().filter(edge -> set.contains(edge.label())) : inEdges.stream(), labels.length != 0 ? outEdges.stream().filter(edge -> set.contains(edge.label())) : outEdges.stream())
-            .map(edge -> (Edge)edge)
-            .collect(Collectors.toList())
-            .iterator();
+        // edges in memory (snapshot since edges can be deleted in the middle of the loop)
+        return IteratorUtils.concat(inEdges.iterator(set, edge -> edge), outEdges.iterator(set, edge -> edge));
+    }
+
+    /**
+     * Gets the edges between this vertex and the vertex with the given identifier. Edges in memory are used when all
+     * the vertex edges (in the given direction and labels) have been loaded in the session, otherwise a single CYPHER
+     * statement locating the edges between both vertices is executed.
+     *
+     * @param direction The direction of the edges relative to this vertex.
+     * @param vertexId  The identifier of the adjacent vertex or the adjacent {@link Vertex} instance.
+     * @param labels    The edge labels, all labels if empty.
+     * @return The edges between both vertices.
+     */
+    public Iterator<Edge> edgesBetween(Direction direction, Object vertexId, String... labels) {
+        // all edges
+        return edgesBetween(direction, vertexId, false, labels).iterator();
+    }
+
+    /**
+     * Checks an edge exists between this vertex and the vertex with the given identifier, see
+     * {@link #edgesBetween(Direction, Object, String...)}. The CYPHER statement is not executed when an edge is found in
+     * memory.
+     *
+     * @param direction The direction of the edge relative to this vertex.
+     * @param vertexId  The identifier of the adjacent vertex or the adjacent {@link Vertex} instance.
+     * @param labels    The edge labels, all labels if empty.
+     * @return <code>true</code> if an edge exists between both vertices, otherwise <code>false</code>.
+     */
+    public boolean hasEdge(Direction direction, Object vertexId, String... labels) {
+        // first edge
+        return !edgesBetween(direction, vertexId, true, labels).isEmpty();
+    }
+
+    private List<Edge> edgesBetween(Direction direction, Object vertexId, boolean single, String... labels) {
+        Objects.requireNonNull(direction, "direction cannot be null");
+        Objects.requireNonNull(vertexId, "vertexId cannot be null");
+        Objects.requireNonNull(labels, "labels cannot be null");
+        // transaction should be ready for io operations
+        graph.tx().readWrite();
+        // adjacent vertex identifier
+        Object identifier = vertexIdProvider.processIdentifier(vertexId instanceof Vertex ? ((Vertex)vertexId).id() : vertexId);
+        // load labels in hash set (remove duplicates)
+        Set<String> set = new HashSet<>(Arrays.asList(labels));
+        // edges in memory
+        Stream<Neo4JEdge> out = direction != Direction.IN ? outEdges.stream(set).filter(edge -> Objects.equals(edge.inVertex().id(), identifier)) : Stream.empty();
+        Stream<Neo4JEdge> in = direction != Direction.OUT ? inEdges.stream(set).filter(edge -> Objects.equals(edge.outVertex().id(), identifier)) : Stream.empty();
+        List<Edge> list = Stream.concat(out, in).distinct().map(edge -> (Edge)edge).collect(Collectors.toList());
+        // check we need to query database
+        if (single && !list.isEmpty() || isEdgesLoaded(direction, set))
+            return list;
+        // parameters
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("id", id());
+        parameters.put("oid", identifier);
+        // create string builder
+        StringBuilder builder = new StringBuilder();
+        // match clause
+        builder.append("MATCH ").append(matchPattern("n")).append(direction == Direction.IN ? "<-[r" : "-[r").append(set.stream().map(label -> ":`" + label + "`").collect(Collectors.joining("|"))).append(direction == Direction.OUT ? "]->(m" : "]-(m").append(processLabels(Collections.emptySet(), true)).append(")").append(" WHERE ").append(vertexIdProvider.matchPredicateOperand("n")).append(" = {id} AND ").append(vertexIdProvider.matchPredicateOperand("m")).append(" = {oid}");
+        // edge ids already in memory and edges deleted in session (LIMIT must not return a deleted edge)
+        List<Object> identifiers = Stream.concat(Stream.concat(outEdges.stream(), inEdges.stream()).map(Neo4JEdge::id).filter(Objects::nonNull), session.deletedEdgeIdentifiers().stream()).collect(Collectors.toList());
+        // process where clause
+        processEdgesWhereClause("m", identifiers, "r", builder, parameters);
+        // return
+        builder.append(" RETURN n, r, m").append(single ? " LIMIT 1" : "");
+        // execute statement
+        StatementResult result = session.executeStatement(new Statement(builder.toString(), parameters));
+        // edges in memory plus the ones in database
+        session.edges(result).forEach(list::add);
+        // process summary (query has been already consumed)
+        ResultSummaryLogger.log(result.consume());
+        // return edges
+        return list;
     }
 
     /**
@@ -613,6 +841,8 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         graph.tx().readWrite();
         // load labels in hash set (remove duplicates)
         Set<String> set = new HashSet<>(Arrays.asList(labels));
+        // load adjacency from graph cache
+        loadCachedAdjacency(direction, set);
         // parameters
         Map<String, Object> parameters = new HashMap<>();
         // vertex id
@@ -642,7 +872,7 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                     // execute command
                     Stream<Vertex> query = session.vertices(result);
                     // return copy since elements can be deleted in the middle of the loop
-                    Iterator<Vertex> iterator = Stream.concat((labels.length != 0 ? outEdges.stream().filter(edge -> set.contains(edge.label())) : outEdges.stream()).map(Edge::inVertex), query)
+                    Iterator<Vertex> iterator = Stream.concat(outEdges.stream(set).map(Edge::inVertex), query)
                         .collect(Collectors.toList())
                         .iterator();
                     // process summary (query has been already consumed by collector)
@@ -651,10 +881,8 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                     return iterator;
                 }
             }
-            // edges in memory (return copy since elements can be deleted in the middle of the loop)
-            return (labels.length != 0 ? outEdges.stream().filter(edge -> set.contains(edge.label())) : outEdges.stream()).map(Edge::inVertex)
-                .collect(Collectors.toList())
-                .iterator();
+            // edges in memory (snapshot since elements can be deleted in the middle of the loop)
+            return outEdges.iterator(set, Edge::inVertex);
         }
         // in edges
         if (direction == Direction.IN) {
@@ -681,7 +909,7 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                     // execute command
                     Stream<Vertex> query = session.vertices(result);
                     // return copy since elements can be deleted in the middle of the loop
-                    Iterator<Vertex> iterator = Stream.concat((labels.length != 0 ? inEdges.stream().filter(edge -> set.contains(edge.label())) : inEdges.stream()).map(Edge::outVertex), query)
+                    Iterator<Vertex> iterator = Stream.concat(inEdges.stream(set).map(Edge::outVertex), query)
                         .collect(Collectors.toList())
                         .iterator();
                     // process summary (query has been already consumed by collector)
@@ -690,10 +918,8 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                     return iterator;
                 }
             }
-            // edges in memory (return copy since elements can be deleted in the middle of the loop
-            return (labels.length != 0 ? inEdges.stream().filter(edge -> set.contains(edge.label())) : inEdges.stream()).map(Edge::outVertex)
-                .collect(Collectors.toList())
-                .iterator();
+            // edges in memory (snapshot since elements can be deleted in the middle of the loop)
+            return inEdges.iterator(set, Edge::outVertex);
         }
         // check we have all edges in memory
         if (!outEdgesLoaded || !inEdgesLoaded) {
@@ -716,7 +942,7 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                 // execute command
                 Stream<Vertex> query = session.vertices(result);
                 // return copy since elements can be deleted in the middle of the loop
-                Iterator<Vertex> iterator = Stream.concat(Stream.concat((labels.length != 0 ? outEdges.stream().filter(edge -> set.contains(edge.label())) : outEdges.stream()).map(Edge::inVertex), (labels.length != 0 ? inEdges.stream().filter(edge -> set.contains(edge.label())) : inEdges.stream()).map(Edge::outVertex)), query)
+                Iterator<Vertex> iterator = Stream.concat(Stream.concat(outEdges.stream(set).map(Edge::inVertex), inEdges.stream(set).map(Edge::outVertex)), query)
                     .collect(Collectors.toList())
                     .iterator();
                 // process summary (query has been already consumed by collector)
@@ -725,10 +951,8 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                 return iterator;
             }
         }
-        // edges in memory (return copy since edges can be deleted in the middle of the loop)
-        return Stream.concat((labels.length != 0 ? outEdges.stream().filter(edge -> set.contains(edge.label())) : outEdges.stream()).map(Edge::inVertex), (labels.length != 0 ? inEdges.stream().filter(edge -> set.contains(edge.label())) : inEdges.stream()).map(Edge::outVertex))
-            .collect(Collectors.toList())
-            .iterator();
+        // edges in memory (snapshot since edges can be deleted in the middle of the loop)
+        return IteratorUtils.concat(outEdges.iterator(set, Edge::inVertex), inEdges.iterator(set, Edge::outVertex));
     }
 
     /**
@@ -751,20 +975,20 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         // transaction should be ready for io operations
         graph.tx().readWrite();
         // vertex property
-        Neo4JVertexProperty<V> property = new Neo4JVertexProperty<>(this, propertyIdProvider.incrementAndGet(), name, value);
+        Neo4JVertexProperty<V> property = new Neo4JVertexProperty<>(this, name, value);
+        // properties might be shared with last committed state
+        copyOnWrite();
         // check cardinality
         switch (cardinality) {
             case list:
                 // get existing list for key
-                Collection<VertexProperty> list = properties.get(name);
-                if (list == null) {
-                    // initialize list
-                    list = new ArrayList<>();
-                    // use list
-                    properties.put(name, list);
-                    // cardinality
-                    cardinalities.put(name, VertexProperty.Cardinality.list);
-                }
+                Collection<VertexProperty> existingList = properties.get(name);
+                // copy list (collections are not modified once stored in vertex, iterators might reference them)
+                Collection<VertexProperty> list = existingList != null ? new ArrayList<>(existingList) : new ArrayList<>();
+                // use list
+                properties.put(name, list);
+                // cardinality
+                cardinalities.put(name, VertexProperty.Cardinality.list);
                 // add value to list, this will always call dirty method in session
                 if (list.add(property)) {
                     // notify session
@@ -775,19 +999,17 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                 break;
             case set:
                 // get existing set for key
-                Collection<VertexProperty> set = properties.get(name);
-                if (set == null) {
-                    // initialize set
-                    set = new HashSet<>();
+                Collection<VertexProperty> existingSet = properties.get(name);
+                // check value does not exist in collection, TODO: optimize this search
+                if (existingSet == null || existingSet.stream().noneMatch(item -> item.value().equals(value))) {
+                    // copy set (collections are not modified once stored in vertex, iterators might reference them)
+                    Collection<VertexProperty> set = existingSet != null ? new HashSet<>(existingSet) : new HashSet<>();
+                    // add property to set
+                    set.add(property);
                     // use set
                     properties.put(name, set);
                     // cardinality
                     cardinalities.put(name, VertexProperty.Cardinality.set);
-                }
-                // check value does not exist in collection, TODO: optimize this search
-                if (set.stream().noneMatch(item -> item.value().equals(value))) {
-                    // add property to set
-                    set.add(property);
                     // notify session
                     session.dirtyVertex(this);
                     // update flag
@@ -847,33 +1069,27 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         if (!properties.isEmpty()) {
             // no properties in filter
             if (propertyKeys.length == 0) {
-                // all properties (return a copy since properties iterator can be modified by calling remove())
-                return properties.entrySet().stream()
-                    .flatMap(entry -> entry.getValue().stream())
-                    .map(item -> (VertexProperty<V>)item)
-                    .collect(Collectors.toList())
-                    .iterator();
+                // map will be copied on next modification
+                propertiesIterated = true;
+                // all properties (iterate current map, properties iterator can be modified by calling remove())
+                return IteratorUtils.flatMap(properties.values().iterator(), list -> (Iterator<VertexProperty<V>>)(Iterator<?>)list.iterator());
             }
             // one property in filter
             if (propertyKeys.length == 1) {
                 // get list for key
                 Collection<?> list = properties.get(propertyKeys[0]);
                 if (list != null) {
-                    // all properties (return a copy since properties iterator can be modified by calling remove())
-                    return list.stream()
-                        .map(item -> (VertexProperty<V>)item)
-                        .collect(Collectors.toList())
-                        .iterator();
+                    // collections are not modified once stored in vertex
+                    return (Iterator<VertexProperty<V>>)(Iterator<?>)Collections.unmodifiableCollection(list).iterator();
                 }
                 // nothing on key
                 return Collections.emptyIterator();
             }
-            // loop property keys (return a copy since properties iterator can be modified by calling remove())
-            return Arrays.stream(propertyKeys)
-                .flatMap(key -> ((Collection<?>)properties.getOrDefault(key, Collections.EMPTY_LIST)).stream())
-                .map(item -> (VertexProperty<V>)item)
-                .collect(Collectors.toList())
-                .iterator();
+            // current map, it will be copied on next modification
+            Map<String, Collection<VertexProperty>> map = properties;
+            propertiesIterated = true;
+            // loop property keys
+            return IteratorUtils.flatMap(Arrays.asList(propertyKeys).iterator(), key -> (Iterator<VertexProperty<V>>)(Iterator<?>)map.getOrDefault(key, Collections.emptyList()).iterator());
         }
         // nothing
         return Collections.emptyIterator();
@@ -912,6 +1128,88 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         outEdges.add(edge);
     }
 
+    boolean isEdgesLoaded(Direction direction, Set<String> labels) {
+        Objects.requireNonNull(direction, "direction cannot be null");
+        Objects.requireNonNull(labels, "labels cannot be null");
+        // out edges
+        if (direction == Direction.OUT)
+            return outEdgesLoaded || !labels.isEmpty() && outEdgeLabels.containsAll(labels);
+        // in edges
+        if (direction == Direction.IN)
+            return inEdgesLoaded || !labels.isEmpty() && inEdgeLabels.containsAll(labels);
+        // both
+        return outEdgesLoaded && inEdgesLoaded || !labels.isEmpty() && outEdgeLabels.containsAll(labels) && inEdgeLabels.containsAll(labels);
+    }
+
+    void setEdgesLoaded(Direction direction, Set<String> labels) {
+        Objects.requireNonNull(direction, "direction cannot be null");
+        Objects.requireNonNull(labels, "labels cannot be null");
+        // out edges
+        if (direction == Direction.OUT || direction == Direction.BOTH) {
+            // update loaded flag and labels in memory
+            outEdgesLoaded = outEdgesLoaded || labels.isEmpty();
+            outEdgeLabels.addAll(labels);
+        }
+        // in edges
+        if (direction == Direction.IN || direction == Direction.BOTH) {
+            // update loaded flag and labels in memory
+            inEdgesLoaded = inEdgesLoaded || labels.isEmpty();
+            inEdgeLabels.addAll(labels);
+        }
+    }
+
+    void loadCachedAdjacency(Direction direction, Set<String> labels) {
+        // graph caches
+        Neo4JAdjacencyCache adjacencyCache = graph.getAdjacencyCache();
+        Neo4JElementCache elementCache = graph.getElementCache();
+        if (adjacencyCache == null || elementCache == null || isEdgesLoaded(direction, labels))
+            return;
+        // edges in adjacency entries
+        List<Neo4JElementCache.EdgeState> states = new ArrayList<>();
+        for (Direction item : direction == Direction.BOTH ? new Direction[]{Direction.OUT, Direction.IN} : new Direction[]{direction}) {
+            for (String label : labels.isEmpty() ? Collections.<String>singleton(null) : labels) {
+                // adjacency entry
+                Neo4JAdjacencyCache.Adjacency adjacency = adjacencyCache.get(id(), item, label);
+                if (adjacency == null)
+                    return;
+                // all edges must be available in element cache
+                for (Object edgeId : adjacency.getEdgeIds()) {
+                    // edge state
+                    Neo4JElementCache.EdgeState state = elementCache.edge(edgeId);
+                    if (state == null)
+                        return;
+                    // append it
+                    states.add(state);
+                }
+            }
+        }
+        // load edges into session (do not store them in element cache again)
+        states.forEach(state -> session.loadEdge(state.getOut(), state.getRelationship(), state.getIn(), false));
+        // edges are in memory
+        setEdgesLoaded(direction, labels);
+    }
+
+    void cacheAdjacency(Direction direction, Set<String> labels) {
+        // graph cache
+        Neo4JAdjacencyCache cache = graph.getAdjacencyCache();
+        if (cache == null)
+            return;
+        // loop directions
+        for (Direction item : direction == Direction.BOTH ? new Direction[]{Direction.OUT, Direction.IN} : new Direction[]{direction}) {
+            // edges in memory
+            Neo4JAdjacentEdges edges = item == Direction.OUT ? outEdges : inEdges;
+            for (String label : labels.isEmpty() ? Collections.<String>singleton(null) : labels) {
+                // edges with label
+                List<Neo4JEdge> list = (label == null ? edges.stream() : edges.stream(Collections.singleton(label))).collect(Collectors.toList());
+                // edge & neighbour identifiers
+                Object[] edgeIds = list.stream().map(Neo4JEdge::id).toArray();
+                Object[] neighbourIds = list.stream().map(edge -> item == Direction.OUT ? edge.inVertex().id() : edge.outVertex().id()).toArray();
+                // store adjacency
+                cache.put(id(), item, label, edgeIds, neighbourIds);
+            }
+        }
+    }
+
     private Map<String, Object> statementParameters() {
         // define collector
         Collector<Map.Entry<String, Collection<VertexProperty>>, Map<String, Object>, Map<String, Object>> collector = Collector.of(
@@ -951,14 +1249,14 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
     @Override
     public Neo4JDatabaseCommand insertCommand() {
         // concat labels with additional labels on insertion
-        SortedSet<String> labels = Stream.concat(this.labels.stream(), additionalLabels.stream()).collect(Collectors.toCollection(TreeSet::new));
+        Neo4JLabelSet labels = this.labels.union(additionalLabels);
         try {
             // parameters
             Value parameters = Values.parameters("vp", statementParameters());
             // check database side id generation is required
             if (id == null) {
                 // create statement
-                String statement = "CREATE (n" + processLabels(labels, false) + "{vp}) RETURN " + vertexIdProvider.matchPredicateOperand("n");
+                String statement = "CREATE (n" + labels.fragment() + "{vp}) RETURN " + vertexIdProvider.matchPredicateOperand("n");
                 // command statement
                 return new Neo4JDatabaseCommand(new Statement(statement, parameters), result -> {
                     // check we received data
@@ -971,7 +1269,7 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                 });
             }
             // command statement
-            return new Neo4JDatabaseCommand(new Statement("CREATE (" + processLabels(labels, false) + "{vp})", parameters));
+            return new Neo4JDatabaseCommand(new Statement("CREATE (" + labels.fragment() + "{vp})", parameters));
         }
         finally {
             // to find vertex in database (labels + additional labels)
@@ -1001,12 +1299,12 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
             // check labels were added
             if (!labelsAdded.isEmpty()) {
                 // add labels
-                builder.append(!dirty ? " SET v" : ", v").append(processLabels(labelsAdded, false));
+                builder.append(!dirty ? " SET v" : ", v").append(labelsAdded.fragment());
             }
             // check labels were removed
             if (!labelsRemoved.isEmpty()) {
                 // remove labels
-                builder.append(" REMOVE v").append(processLabels(labelsRemoved, false));
+                builder.append(" REMOVE v").append(labelsRemoved.fragment());
             }
             // command statement
             return new Neo4JDatabaseCommand(new Statement(builder.toString(), parameters));
@@ -1026,31 +1324,47 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
 
     void commit() {
         // commit labels
-        labelsAdded.clear();
-        labelsRemoved.clear();
-        originalLabels = new TreeSet<>(labels);
-        matchLabels = Stream.concat(originalLabels.stream(), graphLabels.stream()).collect(Collectors.toCollection(TreeSet::new));
-        // update property values
-        originalProperties = new HashMap<>(properties);
-        originalCardinalities = new HashMap<>(cardinalities);
+        labelsAdded = Neo4JLabelSet.Empty;
+        labelsRemoved = Neo4JLabelSet.Empty;
+        // check labels were modified (label sets are immutable)
+        if (originalLabels != labels) {
+            // update original labels
+            originalLabels = labels;
+            matchLabels = originalLabels.union(graphLabels);
+        }
+        // update property values, maps are copied on next modification
+        originalProperties = properties;
+        originalCardinalities = cardinalities;
         // reset removed properties
         removedProperties.clear();
         // reset flags
         dirty = false;
     }
 
+    private void copyOnWrite() {
+        // check properties are shared with last committed state or referenced by an iterator
+        if (properties == originalProperties || propertiesIterated) {
+            // copy maps
+            properties = new HashMap<>(properties);
+            cardinalities = new HashMap<>(cardinalities);
+            // maps are no longer shared
+            propertiesIterated = false;
+        }
+    }
+
     void rollback() {
         // restore labels
-        labelsAdded.clear();
-        labelsRemoved.clear();
-        labels.clear();
-        labels.addAll(originalLabels);
-        matchLabels = Stream.concat(originalLabels.stream(), graphLabels.stream()).collect(Collectors.toCollection(TreeSet::new));
-        // restore property values
-        properties.clear();
-        cardinalities.clear();
-        properties.putAll(originalProperties);
-        cardinalities.putAll(originalCardinalities);
+        labelsAdded = Neo4JLabelSet.Empty;
+        labelsRemoved = Neo4JLabelSet.Empty;
+        // check labels were modified (label sets are immutable)
+        if (originalLabels != labels) {
+            // restore original labels
+            labels = originalLabels;
+            matchLabels = originalLabels.union(graphLabels);
+        }
+        // restore property values, maps are copied on next modification
+        properties = originalProperties;
+        cardinalities = originalCardinalities;
         // reset removed properties
         removedProperties.clear();
         // reset flags
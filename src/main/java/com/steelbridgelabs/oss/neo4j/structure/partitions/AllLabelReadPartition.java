@@ -115,4 +115,18 @@ public class AllLabelReadPartition implements Neo4JReadPartition {
     public String vertexMatchPredicate(String alias) {
         return null;
     }
+
+    @Override
+    public boolean equals(Object other) {
+        // check instance
+        if (!(other instanceof AllLabelReadPartition))
+            return false;
+        // compare labels
+        return labels.equals(((AllLabelReadPartition)other).labels);
+    }
+
+    @Override
+    public int hashCode() {
+        return labels.hashCode();
+    }
 }
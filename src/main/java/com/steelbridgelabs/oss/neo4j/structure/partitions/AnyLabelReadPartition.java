@@ -121,4 +121,18 @@ public class AnyLabelReadPartition implements Neo4JReadPartition {
         }
         return null;
     }
+
+    @Override
+    public boolean equals(Object other) {
+        // check instance
+        if (!(other instanceof AnyLabelReadPartition))
+            return false;
+        // compare labels
+        return labels.equals(((AnyLabelReadPartition)other).labels);
+    }
+
+    @Override
+    public int hashCode() {
+        return labels.hashCode();
+    }
 }
@@ -99,4 +99,15 @@ public class NoReadPartition implements Neo4JReadPartition {
     public String vertexMatchPredicate(String alias) {
         return null;
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean equals(Object other) {
+        // all instances are equivalent
+        return other instanceof NoReadPartition;
+    }
+
+    @Override
+    public int hashCode() {
+        return NoReadPartition.class.hashCode();
+    }
+}
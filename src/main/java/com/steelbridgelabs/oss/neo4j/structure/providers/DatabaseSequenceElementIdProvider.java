@@ -29,12 +29,32 @@ import org.neo4j.driver.v1.types.Entity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.management.ManagementFactory;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * {@link Neo4JElementIdProvider} implementation based on a sequence generator stored in a Neo4J database Node.
+ * Identifiers are allocated from pools of <code>poolSize</code> identifiers reserved in the database, when a low
+ * watermark is configured the next pool is reserved asynchronously once the number of identifiers left in the current
+ * pool drops below the watermark. In adaptive mode (<code>minPoolSize</code> lower than <code>maxPoolSize</code>) the
+ * number of identifiers reserved on each request is computed from the observed allocation rate and refill latency, so
+ * a pool lasts at least one second (or ten times the refill latency) without wasting identifiers on idle services.
+ * <p>
+ * In sharded mode the sequence is split in <code>shards</code> Nodes (identified by the <code>shard</code> property),
+ * shard <code>i</code> generates identifiers congruent to <code>i</code> modulo <code>shards</code>, so providers
+ * using different shards do not contend on the same Node lock. Each provider uses a single shard, by default selected
+ * by hashing the JVM name. All providers sharing the database must use the same number of shards, the number of shards
+ * cannot be changed once identifiers were generated.
  */
 public class DatabaseSequenceElementIdProvider implements Neo4JElementIdProvider<Long> {
 
@@ -43,34 +63,95 @@ public class DatabaseSequenceElementIdProvider implements Neo4JElementIdProvider
     public static final String DefaultIdFieldName = "id";
     public static final String DefaultSequenceNodeLabel = "UniqueIdentifierGenerator";
     public static final long DefaultPoolSize = 1000;
+    public static final long DefaultLowWatermark = 0;
+
+    private static final long TargetRefillInterval = TimeUnit.SECONDS.toNanos(1);
+    private static final long RefillLatencyFactor = 10;
+
+    private static final class IdentifierPool {
+
+        private final AtomicLong identifier;
+        private final long maximum;
+        private final AtomicReference<CompletableFuture<IdentifierPool>> next = new AtomicReference<>();
+
+        IdentifierPool(long identifier, long maximum) {
+            this.identifier = new AtomicLong(identifier);
+            this.maximum = maximum;
+        }
+    }
 
     private final Driver driver;
     private final String idFieldName;
     private final String sequenceNodeLabel;
-    private final long poolSize;
-    private final AtomicLong atomicLong = new AtomicLong(0L);
+    private final long minPoolSize;
+    private final long maxPoolSize;
+    private final long lowWatermark;
+    private final Executor executor;
+    private final int shards;
+    private final int shard;
     private final Object monitor = new Object();
+    private final Object statistics = new Object();
 
-    private AtomicLong maximum = new AtomicLong(0L);
+    private volatile IdentifierPool pool = new IdentifierPool(0L, 0L);
+    private volatile long poolSize;
+    private long refillCount = 0;
+    private long refillLatency = 0;
+    private long lastRefillStart = 0;
+    private long lastRefillSize = 0;
 
     public DatabaseSequenceElementIdProvider(Driver driver) {
-        Objects.requireNonNull(driver, "driver cannot be null");
-        // initialize fields
-        this.driver = driver;
-        this.poolSize = DefaultPoolSize;
-        this.idFieldName = DefaultIdFieldName;
-        this.sequenceNodeLabel = DefaultSequenceNodeLabel;
+        this(driver, DefaultPoolSize, DefaultIdFieldName, DefaultSequenceNodeLabel);
     }
 
     public DatabaseSequenceElementIdProvider(Driver driver, long poolSize, String idFieldName, String sequenceNodeLabel) {
+        this(driver, poolSize, idFieldName, sequenceNodeLabel, DefaultLowWatermark);
+    }
+
+    public DatabaseSequenceElementIdProvider(Driver driver, long poolSize, String idFieldName, String sequenceNodeLabel, long lowWatermark) {
+        this(driver, poolSize, idFieldName, sequenceNodeLabel, lowWatermark, ForkJoinPool.commonPool());
+    }
+
+    public DatabaseSequenceElementIdProvider(Driver driver, long poolSize, String idFieldName, String sequenceNodeLabel, long lowWatermark, Executor executor) {
+        this(driver, poolSize, poolSize, idFieldName, sequenceNodeLabel, lowWatermark, executor);
+    }
+
+    public DatabaseSequenceElementIdProvider(Driver driver, long minPoolSize, long maxPoolSize, String idFieldName, String sequenceNodeLabel, long lowWatermark, Executor executor) {
+        this(driver, minPoolSize, maxPoolSize, idFieldName, sequenceNodeLabel, lowWatermark, executor, 1, 0);
+    }
+
+    public DatabaseSequenceElementIdProvider(Driver driver, long minPoolSize, long maxPoolSize, String idFieldName, String sequenceNodeLabel, long lowWatermark, Executor executor, int shards) {
+        this(driver, minPoolSize, maxPoolSize, idFieldName, sequenceNodeLabel, lowWatermark, executor, shards, Math.floorMod(ManagementFactory.getRuntimeMXBean().getName().hashCode(), Math.max(shards, 1)));
+    }
+
+    public DatabaseSequenceElementIdProvider(Driver driver, long minPoolSize, long maxPoolSize, String idFieldName, String sequenceNodeLabel, long lowWatermark, Executor executor, int shards, int shard) {
         Objects.requireNonNull(driver, "driver cannot be null");
         Objects.requireNonNull(idFieldName, "idFieldName cannot be null");
         Objects.requireNonNull(sequenceNodeLabel, "sequenceNodeLabel cannot be null");
+        Objects.requireNonNull(executor, "executor cannot be null");
+        // validate pool size
+        if (minPoolSize <= 0)
+            throw new IllegalArgumentException("minPoolSize must be greater than zero");
+        if (maxPoolSize < minPoolSize)
+            throw new IllegalArgumentException("maxPoolSize cannot be less than minPoolSize");
+        // validate watermark
+        if (lowWatermark < 0)
+            throw new IllegalArgumentException("lowWatermark cannot be negative");
+        // validate shards
+        if (shards <= 0)
+            throw new IllegalArgumentException("shards must be greater than zero");
+        if (shard < 0 || shard >= shards)
+            throw new IllegalArgumentException("shard must be in range [0, shards)");
         // initialize fields
         this.driver = driver;
-        this.poolSize = poolSize;
+        this.minPoolSize = minPoolSize;
+        this.maxPoolSize = maxPoolSize;
+        this.poolSize = minPoolSize;
         this.idFieldName = idFieldName;
         this.sequenceNodeLabel = sequenceNodeLabel;
+        this.lowWatermark = lowWatermark;
+        this.executor = executor;
+        this.shards = shards;
+        this.shard = shard;
     }
 
     /**
@@ -96,72 +177,203 @@ public class DatabaseSequenceElementIdProvider implements Neo4JElementIdProvider
         return entity.get(idFieldName).asLong();
     }
 
+    /**
+     * Gets the sequence shard used by this provider.
+     *
+     * @return The shard index in range [0, shards).
+     */
+    public int shard() {
+        return shard;
+    }
+
+    /**
+     * Gets the number of identifiers that will be reserved in the next request to the database.
+     *
+     * @return The current pool size.
+     */
+    public long poolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Gets the number of pools of identifiers reserved in the database.
+     *
+     * @return The number of pool refills.
+     */
+    public long refillCount() {
+        synchronized (statistics) {
+            return refillCount;
+        }
+    }
+
+    /**
+     * Gets the time it took to reserve the last pool of identifiers in the database.
+     *
+     * @return The last refill latency in milliseconds.
+     */
+    public long refillLatency() {
+        synchronized (statistics) {
+            return TimeUnit.NANOSECONDS.toMillis(refillLatency);
+        }
+    }
+
     /**
      * Generates a new identifier value. This {@link Neo4JElementIdProvider} will fetch a pool of identifiers
-     * from a Neo4J database Node.
+     * from a Neo4J database Node. Threads generating identifiers from the current pool do not block, only the thread
+     * exhausting the pool switches to the next one (waiting for it if it is still being reserved).
      *
      * @return A unique identifier within the database sequence generator.
      */
     @Override
     public Long generate() {
-        // get maximum identifier we can use (before obtaining new identifier to make sure it is in the current pool)
-        long max = maximum.get();
-        // generate new identifier
-        long identifier = atomicLong.incrementAndGet();
-        // check we need to obtain new identifier pool (identifier is out of range for current pool)
-        if (identifier > max) {
-            // loop until we get an identifier value
-            do {
+        // loop until we get an identifier value
+        while (true) {
+            // current pool
+            IdentifierPool current = pool;
+            // generate new sequence value
+            long value = current.identifier.incrementAndGet();
+            // check value is in range for current pool
+            if (value <= current.maximum) {
+                // check low watermark was reached
+                if (current.maximum - value < lowWatermark)
+                    prefetch(current);
+                // identifier in shard residue class
+                long identifier = value * shards + shard;
+                // log information
+                if (logger.isDebugEnabled())
+                    logger.debug("Current identifier: {}", identifier);
+                // return identifier
+                return identifier;
+            }
+            // switch to next pool
+            next(current);
+        }
+    }
+
+    private void prefetch(IdentifierPool current) {
+        // check next pool was already requested
+        if (current.next.get() == null) {
+            // future for next pool
+            CompletableFuture<IdentifierPool> future = new CompletableFuture<>();
+            // make sure only one thread requests the next pool
+            if (current.next.compareAndSet(null, future)) {
+                // log information
+                if (logger.isDebugEnabled())
+                    logger.debug("Low watermark reached, about to request a pool of identifiers from database, maximum id: {}", current.maximum);
+                // reserve pool in background
+                executor.execute(() -> reserve(future));
+            }
+        }
+    }
+
+    private void next(IdentifierPool current) {
+        // make sure only one thread switches pools
+        synchronized (monitor) {
+            // check another thread switched pools while the current thread was waiting
+            if (pool != current)
+                return;
+            // log information
+            if (logger.isDebugEnabled())
+                logger.debug("About to switch pool of identifiers, maximum id: {}", current.maximum);
+            // future for next pool
+            CompletableFuture<IdentifierPool> future = new CompletableFuture<>();
+            // reserve pool in current thread if it was not prefetched
+            if (current.next.compareAndSet(null, future))
+                reserve(future);
+            else
+                future = current.next.get();
+            try {
+                // wait for next pool
+                pool = future.join();
+            }
+            catch (CompletionException ex) {
+                // discard failed request, next call will request the pool again
+                current.next.compareAndSet(future, null);
+                // propagate error
+                if (ex.getCause() instanceof RuntimeException)
+                    throw (RuntimeException)ex.getCause();
+                throw ex;
+            }
+            // log information
+            if (logger.isDebugEnabled())
+                logger.debug("Switched pool of identifiers, current id: {}, maximum id: {}", pool.identifier.get(), pool.maximum);
+        }
+    }
+
+    private void reserve(CompletableFuture<IdentifierPool> future) {
+        try {
+            // reserve pool in database
+            future.complete(reserve());
+        }
+        catch (Throwable ex) {
+            // notify error
+            future.completeExceptionally(ex);
+        }
+    }
+
+    private IdentifierPool reserve() {
+        // number of identifiers to reserve
+        long size = poolSize;
+        // request start time
+        long start = System.nanoTime();
+        // create database session
+        try (Session session = driver.session()) {
+            // create transaction
+            try (Transaction transaction = session.beginTransaction()) {
+                // create cypher command, reserve size identifiers
+                Statement statement = shards == 1 ? new Statement("MERGE (g:`" + sequenceNodeLabel + "`) ON CREATE SET g.nextId = 1 ON MATCH SET g.nextId = g.nextId + {poolSize} RETURN g.nextId", Collections.singletonMap("poolSize", size)) : shardStatement(size);
+                // execute statement
+                StatementResult result = transaction.run(statement);
+                // process result
+                if (!result.hasNext())
+                    throw new IllegalStateException("Sequence node did not return the next identifier value");
+                // get record
+                Record record = result.next();
+                // get nextId value
+                long nextId = record.get(0).asLong();
+                // commit
+                transaction.success();
+                // update statistics and pool size
+                refilled(size, start, System.nanoTime());
+                // identifiers in (nextId - size, nextId]
+                return new IdentifierPool(nextId - size, nextId);
+            }
+        }
+    }
+
+    private Statement shardStatement(long size) {
+        // statement parameters
+        Map<String, Object> parameters = new HashMap<>(2);
+        parameters.put("shard", shard);
+        parameters.put("poolSize", size);
+        // create cypher command, reserve size identifiers in shard Node
+        return new Statement("MERGE (g:`" + sequenceNodeLabel + "`{shard: {shard}}) ON CREATE SET g.nextId = 1 ON MATCH SET g.nextId = g.nextId + {poolSize} RETURN g.nextId", parameters);
+    }
+
+    private void refilled(long size, long start, long end) {
+        synchronized (statistics) {
+            // check this is not the first refill
+            if (refillCount > 0 && minPoolSize < maxPoolSize) {
+                // time it took to allocate the identifiers reserved in the previous refill
+                long elapsed = Math.max(start - lastRefillStart, 1L);
+                // time a pool should last, long enough to amortize the refill latency
+                long target = Math.max(TargetRefillInterval, RefillLatencyFactor * (end - start));
+                // identifiers allocated in target time at the observed allocation rate
+                double desired = (double)lastRefillSize * target / elapsed;
+                // grow or shrink at most by a factor of two on each refill
+                long next = (long)Math.max(size / 2.0, Math.min(size * 2.0, desired));
+                // apply bounds
+                poolSize = Math.max(minPoolSize, Math.min(maxPoolSize, next));
                 // log information
                 if (logger.isDebugEnabled())
-                    logger.debug("About to request a pool of identifiers from database, maximum id: {}", max);
-                // make sure only one thread gets a new range of identifiers
-                synchronized (monitor) {
-                    // update maximum number in pool, do not switch the next two statements (in case another thread was executing the synchronized block while the current thread was waiting)
-                    max = maximum.get();
-                    identifier = atomicLong.incrementAndGet();
-                    // verify a new identifier is needed (compare it with current maximum)
-                    if (identifier >= max) {
-                        // create database session
-                        try (Session session = driver.session()) {
-                            // create transaction
-                            try (Transaction transaction = session.beginTransaction()) {
-                                // create cypher command, reserve poolSize identifiers
-                                Statement statement = new Statement("MERGE (g:`" + sequenceNodeLabel + "`) ON CREATE SET g.nextId = 1 ON MATCH SET g.nextId = g.nextId + {poolSize} RETURN g.nextId", Collections.singletonMap("poolSize", poolSize));
-                                // execute statement
-                                StatementResult result = transaction.run(statement);
-                                // process result
-                                if (result.hasNext()) {
-                                    // get record
-                                    Record record = result.next();
-                                    // get nextId value
-                                    long nextId = record.get(0).asLong();
-                                    // set value for next identifier (do not switch the next two statements!)
-                                    atomicLong.set(nextId - poolSize);
-                                    maximum.set(nextId);
-                                }
-                                // commit
-                                transaction.success();
-                            }
-                        }
-                        // update maximum number in pool
-                        max = maximum.get();
-                        // get a new identifier
-                        identifier = atomicLong.incrementAndGet();
-                        // log information
-                        if (logger.isDebugEnabled())
-                            logger.debug("Requested new pool of identifiers from database, current id: {}, maximum id: {}", identifier, max);
-                    }
-                    else if (logger.isDebugEnabled())
-                        logger.debug("No need to request pool of identifiers, current id: {}, maximum id: {}", identifier, max);
-                }
+                    logger.debug("Pool of {} identifiers allocated in {} ms, next pool size: {}", lastRefillSize, TimeUnit.NANOSECONDS.toMillis(elapsed), poolSize);
             }
-            while (identifier > max);
+            // update statistics
+            refillCount++;
+            refillLatency = end - start;
+            lastRefillStart = start;
+            lastRefillSize = size;
         }
-        else if (logger.isDebugEnabled())
-            logger.debug("Current identifier: {}", identifier);
-        // return identifier
-        return identifier;
     }
 
     /**
@@ -0,0 +1,212 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure.providers;
+
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JElementIdProvider;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraphConfigurationBuilder;
+import org.apache.commons.configuration.Configuration;
+import org.neo4j.driver.v1.types.Entity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link Neo4JElementIdProvider} implementation generating time ordered 64 bit identifiers in the client (Snowflake
+ * layout), no database round trips are required to create vertices and edges. Identifiers are composed of:
+ * <ul>
+ * <li>41 bits: milliseconds since the provider epoch (2016-01-01T00:00:00Z by default, about 69 years)</li>
+ * <li>10 bits: worker identifier, must be unique among the processes generating identifiers for the same database</li>
+ * <li>12 bits: sequence number within the same millisecond</li>
+ * </ul>
+ * When the clock moves backwards (or more than 4096 identifiers are generated in the same millisecond) the provider
+ * keeps generating identifiers from the last timestamp used, an {@link IllegalStateException} is thrown if the last
+ * timestamp is ahead of the clock by more than the maximum clock skew.
+ * <p>
+ * Worker identifiers must be assigned explicitly, two processes using the same worker identifier generate duplicate
+ * identifiers. When the provider is created by {@link com.steelbridgelabs.oss.neo4j.structure.Neo4JGraphFactory} the
+ * worker identifier is read from the {@link Neo4JGraphConfigurationBuilder#Neo4JWorkerIdConfigurationKey}
+ * configuration key, the provider cannot be created if the key is not present.
+ */
+public class TimeBasedElementIdProvider implements Neo4JElementIdProvider<Long> {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimeBasedElementIdProvider.class);
+
+    public static final String DefaultIdFieldName = "id";
+    public static final long DefaultEpoch = 1451606400000L;
+    public static final long DefaultMaximumClockSkew = 1000L;
+
+    public static final int WorkerIdBits = 10;
+    public static final int SequenceBits = 12;
+    public static final long MaximumWorkerId = (1L << WorkerIdBits) - 1;
+
+    private static final long SequenceMask = (1L << SequenceBits) - 1;
+    private static final int TimestampShift = WorkerIdBits + SequenceBits;
+
+    private final long workerId;
+    private final String idFieldName;
+    private final long epoch;
+    private final long maximumClockSkew;
+    private final LongSupplier clock;
+    private final AtomicLong last = new AtomicLong(0L);
+
+    public TimeBasedElementIdProvider(Configuration configuration) {
+        this(workerId(configuration));
+    }
+
+    public TimeBasedElementIdProvider(long workerId) {
+        this(workerId, DefaultIdFieldName, DefaultEpoch, DefaultMaximumClockSkew);
+    }
+
+    public TimeBasedElementIdProvider(long workerId, String idFieldName, long epoch, long maximumClockSkew) {
+        this(workerId, idFieldName, epoch, maximumClockSkew, System::currentTimeMillis);
+    }
+
+    TimeBasedElementIdProvider(long workerId, String idFieldName, long epoch, long maximumClockSkew, LongSupplier clock) {
+        Objects.requireNonNull(idFieldName, "idFieldName cannot be null");
+        Objects.requireNonNull(clock, "clock cannot be null");
+        // validate worker identifier
+        if (workerId < 0 || workerId > MaximumWorkerId)
+            throw new IllegalArgumentException("workerId must be in range [0, " + MaximumWorkerId + "]");
+        // validate clock skew
+        if (maximumClockSkew < 0)
+            throw new IllegalArgumentException("maximumClockSkew cannot be negative");
+        // initialize fields
+        this.workerId = workerId;
+        this.idFieldName = idFieldName;
+        this.epoch = epoch;
+        this.maximumClockSkew = maximumClockSkew;
+        this.clock = clock;
+    }
+
+    private static long workerId(Configuration configuration) {
+        Objects.requireNonNull(configuration, "configuration cannot be null");
+        // worker identifier must be assigned explicitly
+        if (!configuration.containsKey(Neo4JGraphConfigurationBuilder.Neo4JWorkerIdConfigurationKey))
+            throw new IllegalArgumentException("Configuration key " + Neo4JGraphConfigurationBuilder.Neo4JWorkerIdConfigurationKey + " is required, worker id must be unique among the processes generating identifiers");
+        // worker identifier
+        return configuration.getLong(Neo4JGraphConfigurationBuilder.Neo4JWorkerIdConfigurationKey);
+    }
+
+    /**
+     * Gets the worker identifier stored in the generated identifiers.
+     *
+     * @return The worker identifier.
+     */
+    public long workerId() {
+        return workerId;
+    }
+
+    /**
+     * Gets the field name used for {@link Entity} identifier.
+     *
+     * @return The field name used for {@link Entity} identifier or <code>null</code> if not using field for identifier.
+     */
+    @Override
+    public String fieldName() {
+        return idFieldName;
+    }
+
+    /**
+     * Gets the identifier value from a neo4j {@link Entity}.
+     *
+     * @param entity The neo4j {@link Entity}.
+     * @return The neo4j {@link Entity} identifier.
+     */
+    @Override
+    public Long get(Entity entity) {
+        Objects.requireNonNull(entity, "entity cannot be null");
+        // return property value
+        return entity.get(idFieldName).asLong();
+    }
+
+    /**
+     * Generates a new identifier value from the current time, the worker identifier and a sequence number.
+     *
+     * @return A unique identifier among the providers using different worker identifiers.
+     */
+    @Override
+    public Long generate() {
+        // loop until identifier is reserved
+        while (true) {
+            // last identifier generated
+            long previous = last.get();
+            // current timestamp
+            long timestamp = clock.getAsLong() - epoch;
+            // identifier for current timestamp, first sequence number
+            long identifier = (timestamp << TimestampShift) | (workerId << SequenceBits);
+            // check clock did not move backwards (or sequence was exhausted in current timestamp)
+            if (identifier <= previous) {
+                // last timestamp used
+                long lastTimestamp = previous >>> TimestampShift;
+                // check clock skew
+                if (lastTimestamp - timestamp > maximumClockSkew)
+                    throw new IllegalStateException(String.format("Clock moved backwards, refusing to generate identifiers for %d milliseconds", lastTimestamp - timestamp));
+                // next sequence number, move to next timestamp if sequence was exhausted
+                long sequence = (previous & SequenceMask) + 1;
+                identifier = sequence > SequenceMask ? ((lastTimestamp + 1) << TimestampShift) | (workerId << SequenceBits) : (previous & ~SequenceMask) | sequence;
+            }
+            // reserve identifier
+            if (last.compareAndSet(previous, identifier)) {
+                // log information
+                if (logger.isDebugEnabled())
+                    logger.debug("Current identifier: {}", identifier);
+                // return identifier
+                return identifier;
+            }
+        }
+    }
+
+    /**
+     * Process the given identifier converting it to the correct type if necessary.
+     *
+     * @param id The {@link org.apache.tinkerpop.gremlin.structure.Element} identifier.
+     * @return The {@link org.apache.tinkerpop.gremlin.structure.Element} identifier converted to the correct type if necessary.
+     */
+    @Override
+    public Long processIdentifier(Object id) {
+        Objects.requireNonNull(id, "Element identifier cannot be null");
+        // check for Long
+        if (id instanceof Long)
+            return (Long)id;
+        // check for numeric types
+        if (id instanceof Number)
+            return ((Number)id).longValue();
+        // check for string
+        if (id instanceof String)
+            return Long.valueOf((String)id);
+        // error
+        throw new IllegalArgumentException(String.format("Expected an id that is convertible to Long but received %s", id.getClass()));
+    }
+
+    /**
+     * Gets the MATCH WHERE predicate operand.
+     *
+     * @param alias The neo4j {@link Entity} alias in a MATCH statement.
+     * @return The MATCH WHERE predicate operand.
+     */
+    @Override
+    public String matchPredicateOperand(String alias) {
+        Objects.requireNonNull(alias, "alias cannot be null");
+        // alias.identifier
+        return alias + "." + idFieldName;
+    }
+}
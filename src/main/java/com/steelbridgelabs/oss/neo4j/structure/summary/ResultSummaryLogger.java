@@ -243,8 +243,10 @@ public class ResultSummaryLogger {
 
     public static void log(ResultSummary summary) {
         Objects.requireNonNull(summary, "summary cannot be null");
-        // log information
-        if (logger.isInfoEnabled() && summary.hasProfile()) {
+        // record statement in profile() metrics
+        boolean recorded = ResultSummaryMetrics.record(summary);
+        // log information (profile table is not logged for statements profiled only to record metrics)
+        if (logger.isInfoEnabled() && summary.hasProfile() && !recorded) {
             // create builder
             StringBuilder builder = new StringBuilder();
             // append statement
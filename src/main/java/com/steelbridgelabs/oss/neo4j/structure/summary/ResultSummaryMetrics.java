@@ -0,0 +1,183 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure.summary;
+
+import org.apache.tinkerpop.gremlin.process.traversal.util.MutableMetrics;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.summary.ProfiledPlan;
+import org.neo4j.driver.v1.summary.ResultSummary;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Records the CYPHER statements executed while a traversal step is being profiled (Gremlin <code>profile()</code>
+ * step) in the step {@link MutableMetrics}. Statements are grouped by text in nested metrics, the nested metrics
+ * duration is the client time from statement execution to the result summary and the following counts are recorded:
+ * <ul>
+ * <li>{@link #StatementsCountId}: number of statements executed.</li>
+ * <li>{@link #DBHitsCountId}: database hits reported by the CYPHER profile.</li>
+ * <li>{@link #RowsCountId}: rows reported by the CYPHER profile.</li>
+ * <li>{@link #ServerTimeCountId}: server time in milliseconds (result available after plus result consumed after).</li>
+ * </ul>
+ * Metrics are bound to the current thread.
+ *
+ * @author Rogelio J. Baucells
+ */
+public final class ResultSummaryMetrics {
+
+    public static final String StatementsCountId = "statements";
+    public static final String DBHitsCountId = "dbHits";
+    public static final String RowsCountId = "rows";
+    public static final String ServerTimeCountId = "serverTimeMillis";
+
+    private static final ThreadLocal<Deque<Supplier<MutableMetrics>>> scopes = ThreadLocal.withInitial(ArrayDeque::new);
+    private static final ThreadLocal<Map<Statement, Long>> startTimes = ThreadLocal.withInitial(HashMap::new);
+    private static final ThreadLocal<Set<Statement>> profiledStatements = ThreadLocal.withInitial(HashSet::new);
+
+    private ResultSummaryMetrics() {
+    }
+
+    /**
+     * Starts recording statements in the given metrics, statements are recorded in the innermost scope.
+     *
+     * @param metrics The {@link MutableMetrics} supplier.
+     */
+    public static void enter(Supplier<MutableMetrics> metrics) {
+        Objects.requireNonNull(metrics, "metrics cannot be null");
+        // push scope
+        scopes.get().push(metrics);
+    }
+
+    /**
+     * Stops recording statements in the innermost scope.
+     */
+    public static void exit() {
+        // current scopes
+        Deque<Supplier<MutableMetrics>> deque = scopes.get();
+        // pop scope
+        deque.pop();
+        // release state when last scope is closed
+        if (deque.isEmpty()) {
+            scopes.remove();
+            startTimes.remove();
+            profiledStatements.remove();
+        }
+    }
+
+    /**
+     * Checks statements are being recorded in the current thread.
+     *
+     * @return <code>true</code> if statements are being recorded, otherwise <code>false</code>.
+     */
+    public static boolean isActive() {
+        return !scopes.get().isEmpty();
+    }
+
+    /**
+     * Records the execution start time of the given statement.
+     *
+     * @param statement The {@link Statement} being executed.
+     */
+    public static void started(Statement statement) {
+        started(statement, false);
+    }
+
+    /**
+     * Records the execution start time of the given statement.
+     *
+     * @param statement The {@link Statement} being executed.
+     * @param profiled  <code>true</code> if the statement was prefixed with <code>PROFILE</code> only to record metrics.
+     */
+    public static void started(Statement statement, boolean profiled) {
+        Objects.requireNonNull(statement, "statement cannot be null");
+        // check we are recording statements
+        if (isActive()) {
+            // store start time
+            startTimes.get().put(statement, System.nanoTime());
+            // profile information must not be logged (see ResultSummaryLogger)
+            if (profiled)
+                profiledStatements.get().add(statement);
+        }
+    }
+
+    /**
+     * Records the given {@link ResultSummary} in the innermost scope metrics.
+     *
+     * @param summary The statement {@link ResultSummary}.
+     * @return <code>true</code> if the statement was prefixed with <code>PROFILE</code> only to record metrics, otherwise <code>false</code>.
+     */
+    public static boolean record(ResultSummary summary) {
+        Objects.requireNonNull(summary, "summary cannot be null");
+        // check we are recording statements
+        if (!isActive())
+            return false;
+        // start time
+        Long start = startTimes.get().remove(summary.statement());
+        // check statement was profiled to record metrics
+        boolean profiled = profiledStatements.get().remove(summary.statement());
+        // metrics in innermost scope
+        MutableMetrics metrics = scopes.get().peek().get();
+        if (metrics == null)
+            return profiled;
+        // statement text
+        String text = summary.statement().text();
+        // nested metrics (grouped by statement text)
+        MutableMetrics nested = metrics.getNested(text);
+        if (nested == null) {
+            // create metrics
+            nested = new MutableMetrics(text, text);
+            // register it
+            metrics.addNested(nested);
+        }
+        // client time
+        if (start != null)
+            nested.setDuration(nested.getDuration(TimeUnit.NANOSECONDS) + System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        // statement count
+        nested.incrementCount(StatementsCountId, 1);
+        // server time (negative if not available)
+        long serverTime = Math.max(summary.resultAvailableAfter(TimeUnit.MILLISECONDS), 0) + Math.max(summary.resultConsumedAfter(TimeUnit.MILLISECONDS), 0);
+        nested.incrementCount(ServerTimeCountId, serverTime);
+        // profile information
+        if (summary.hasProfile()) {
+            // profile
+            ProfiledPlan plan = summary.profile();
+            // db hits & rows
+            nested.incrementCount(DBHitsCountId, dbHits(plan));
+            nested.incrementCount(RowsCountId, plan.records());
+        }
+        return profiled;
+    }
+
+    private static long dbHits(ProfiledPlan plan) {
+        // operator db hits
+        long hits = plan.dbHits();
+        // children
+        for (ProfiledPlan child : plan.children())
+            hits += dbHits(child);
+        return hits;
+    }
+}
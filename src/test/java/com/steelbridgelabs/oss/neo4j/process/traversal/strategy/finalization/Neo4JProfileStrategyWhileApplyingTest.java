@@ -0,0 +1,193 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.finalization;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.Neo4JProfileStep;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JElementIdProvider;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import com.steelbridgelabs.oss.neo4j.structure.summary.ResultSummaryMetrics;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.ProfileStep;
+import org.apache.tinkerpop.gremlin.process.traversal.util.Metrics;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalMetrics;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.summary.ProfiledPlan;
+import org.neo4j.driver.v1.summary.ResultSummary;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JProfileStrategyWhileApplyingTest {
+
+    @Mock
+    private Driver driver;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private StatementResult statementResult;
+
+    @Mock
+    private ResultSummary resultSummary;
+
+    @Mock
+    private ProfiledPlan plan;
+
+    @Mock
+    private ProfiledPlan child;
+
+    @Mock
+    private Record record;
+
+    @Mock
+    private Value value;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenProfileTraversalShouldInsertStepAfterProfileSteps() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V().out().profile().asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertFalse("Failed to insert profile steps", traversal.getSteps().stream().filter(step -> step instanceof ProfileStep).anyMatch(step -> !(step.getNextStep() instanceof Neo4JProfileStep)));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenTraversalWithoutProfileShouldNotInsertSteps() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V().out().asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertFalse("Profile steps should not be inserted", traversal.getSteps().stream().anyMatch(step -> step instanceof Neo4JProfileStep));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenProfileTraversalShouldRecordCypherStatementInStepMetrics() {
+        // arrange
+        AtomicReference<Statement> executed = new AtomicReference<>();
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> {
+            executed.set((Statement)invocation.getArguments()[0]);
+            return statementResult;
+        });
+        Mockito.when(statementResult.single()).thenAnswer(invocation -> record);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(resultSummary.statement()).thenAnswer(invocation -> executed.get());
+        Mockito.when(resultSummary.resultAvailableAfter(Mockito.any(TimeUnit.class))).thenAnswer(invocation -> 2L);
+        Mockito.when(resultSummary.resultConsumedAfter(Mockito.any(TimeUnit.class))).thenAnswer(invocation -> 1L);
+        Mockito.when(resultSummary.hasProfile()).thenAnswer(invocation -> true);
+        Mockito.when(resultSummary.profile()).thenAnswer(invocation -> plan);
+        Mockito.when(plan.dbHits()).thenAnswer(invocation -> 3L);
+        Mockito.when(plan.records()).thenAnswer(invocation -> 1L);
+        Mockito.when(plan.operatorType()).thenAnswer(invocation -> "ProduceResults");
+        Mockito.when(plan.arguments()).thenAnswer(invocation -> Collections.emptyMap());
+        Mockito.when(plan.identifiers()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(plan.children()).thenAnswer(invocation -> Collections.singletonList(child));
+        Mockito.when(child.dbHits()).thenAnswer(invocation -> 4L);
+        Mockito.when(child.records()).thenAnswer(invocation -> 1L);
+        Mockito.when(child.operatorType()).thenAnswer(invocation -> "NodeByLabelScan");
+        Mockito.when(child.arguments()).thenAnswer(invocation -> Collections.emptyMap());
+        Mockito.when(child.identifiers()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(child.children()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(record.get(0)).thenAnswer(invocation -> value);
+        Mockito.when(value.asLong()).thenAnswer(invocation -> 5L);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            // act
+            TraversalMetrics result = graph.traversal().V().hasLabel("Order").count().profile().next();
+            // assert
+            Assert.assertTrue("Statement was not profiled", executed.get().text().startsWith("PROFILE "));
+            Metrics metrics = result.getMetrics(0).getNested(executed.get().text());
+            Assert.assertNotNull("Statement was not recorded", metrics);
+            Assert.assertEquals("Invalid statements count", 1L, metrics.getCount(ResultSummaryMetrics.StatementsCountId).longValue());
+            Assert.assertEquals("Invalid db hits", 7L, metrics.getCount(ResultSummaryMetrics.DBHitsCountId).longValue());
+            Assert.assertEquals("Invalid rows", 1L, metrics.getCount(ResultSummaryMetrics.RowsCountId).longValue());
+            Assert.assertEquals("Invalid server time", 3L, metrics.getCount(ResultSummaryMetrics.ServerTimeCountId).longValue());
+            Assert.assertFalse("Metrics scope was not released", ResultSummaryMetrics.isActive());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenProfileTraversalShouldNotLogCypherProfile() {
+        // arrange
+        AtomicReference<Statement> executed = new AtomicReference<>();
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> {
+            executed.set((Statement)invocation.getArguments()[0]);
+            return statementResult;
+        });
+        Mockito.when(statementResult.single()).thenAnswer(invocation -> record);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(resultSummary.statement()).thenAnswer(invocation -> executed.get());
+        Mockito.when(resultSummary.hasProfile()).thenAnswer(invocation -> true);
+        Mockito.when(resultSummary.profile()).thenAnswer(invocation -> plan);
+        Mockito.when(resultSummary.notifications()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(plan.children()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(record.get(0)).thenAnswer(invocation -> value);
+        Mockito.when(value.asLong()).thenAnswer(invocation -> 5L);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            // act
+            graph.traversal().V().hasLabel("Order").count().profile().next();
+            // assert
+            Assert.assertTrue("Statement was not profiled", executed.get().text().startsWith("PROFILE "));
+            Mockito.verify(plan, Mockito.never()).operatorType();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.Neo4JAdjacencyBatchStep;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JElementIdProvider;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.NoOpBarrierStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Session;
+
+import java.util.List;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JAdjacencyBatchStrategyWhileApplyingTest {
+
+    @Mock
+    private Driver driver;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenVertexStepShouldInsertBatchStep() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V().out("knows").outE("created").asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            List<VertexStep> steps = TraversalHelper.getStepsOfClass(VertexStep.class, traversal);
+            Assert.assertEquals("Invalid number of vertex steps", 2, steps.size());
+            for (VertexStep<?> step : steps) {
+                Step<?, ?> previous = step.getPreviousStep();
+                Assert.assertTrue("Failed to insert batch step", previous instanceof Neo4JAdjacencyBatchStep);
+                Assert.assertEquals("Invalid batch step direction", Direction.OUT, ((Neo4JAdjacencyBatchStep<?>)previous).getDirection());
+                Assert.assertArrayEquals("Invalid batch step labels", step.getEdgeLabels(), ((Neo4JAdjacencyBatchStep<?>)previous).getEdgeLabels());
+                Assert.assertEquals("Invalid batch step size", Neo4JAdjacencyBatchStrategy.DefaultBatchSize, ((Neo4JAdjacencyBatchStep<?>)previous).getMaxBarrierSize());
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenBarrierBeforeVertexStepShouldReplaceBarrier() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V().barrier().as("a").in("knows").asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertFalse("Failed to replace barrier step", traversal.getSteps().stream().anyMatch(step -> step instanceof NoOpBarrierStep));
+            Step<?, ?> previous = TraversalHelper.getLastStepOfAssignableClass(VertexStep.class, traversal).get().getPreviousStep();
+            Assert.assertTrue("Failed to insert batch step", previous instanceof Neo4JAdjacencyBatchStep);
+            Assert.assertEquals("Invalid batch step direction", Direction.IN, ((Neo4JAdjacencyBatchStep<?>)previous).getDirection());
+            Assert.assertTrue("Failed to copy barrier labels", previous.getLabels().contains("a"));
+        }
+    }
+
+    @Test
+    public void givenInvalidBatchSizeShouldThrowException() {
+        try {
+            // act
+            new Neo4JAdjacencyBatchStrategy(0);
+            // assert
+            Assert.fail("Invalid batch size should throw exception");
+        }
+        catch (IllegalArgumentException ex) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.Neo4JCypherStep;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JElementIdProvider;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.summary.ResultSummary;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JAggregationStrategyWhileApplyingTest {
+
+    @Mock
+    private Driver driver;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private StatementResult statementResult;
+
+    @Mock
+    private ResultSummary resultSummary;
+
+    @Mock
+    private Record record;
+
+    @Mock
+    private Value value0;
+
+    @Mock
+    private Value value1;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenCountTraversalShouldCompileCypherAggregation() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V().hasLabel("Order").count().asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertEquals("Failed to compile traversal", 1, traversal.getSteps().size());
+            Assert.assertTrue("Failed to compile traversal", traversal.getStartStep() instanceof Neo4JCypherStep);
+            Assert.assertEquals("Invalid CYPHER statement", "MATCH (n) WHERE (n:`Order` AND size(labels(n)) = 1) RETURN count(n)", ((Neo4JCypherStep)traversal.getStartStep()).getStatement().text());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenGroupCountByPropertyShouldCompileCypherAggregation() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V().has("amount", 10L).groupCount().by("status").asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertTrue("Failed to compile traversal", traversal.getStartStep() instanceof Neo4JCypherStep);
+            Statement statement = ((Neo4JCypherStep)traversal.getStartStep()).getStatement();
+            Assert.assertEquals("Invalid CYPHER statement", "MATCH (n) WHERE n.`amount` = {np0} RETURN n.`status`, count(*)", statement.text());
+            Assert.assertEquals("Invalid CYPHER statement parameter", 10L, statement.parameters().get("np0").asLong());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenDedupCountShouldCompileCypherAggregation() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V().values("status").dedup().count().asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertTrue("Failed to compile traversal", traversal.getStartStep() instanceof Neo4JCypherStep);
+            Assert.assertEquals("Invalid CYPHER statement", "MATCH (n) WHERE n.`status` IS NOT NULL UNWIND [] + n.`status` AS v RETURN count(DISTINCT v)", ((Neo4JCypherStep)traversal.getStartStep()).getStatement().text());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenAdjacentTraversalShouldNotCompileCypherAggregation() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V().out().values("amount").sum().asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertFalse("Traversal should not be compiled", traversal.getSteps().stream().anyMatch(step -> step instanceof Neo4JCypherStep));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenSumTraversalShouldReturnServerAggregation() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.single()).thenAnswer(invocation -> record);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(record.get(0)).thenAnswer(invocation -> value0);
+        Mockito.when(record.get(1)).thenAnswer(invocation -> value1);
+        Mockito.when(value0.asObject()).thenAnswer(invocation -> 30L);
+        Mockito.when(value1.asLong()).thenAnswer(invocation -> 2L);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            // act
+            Number result = graph.traversal().V().values("amount").sum().next();
+            // assert
+            Assert.assertEquals("Invalid sum() result", 30L, result);
+            Mockito.verify(transaction, Mockito.times(1)).run(Mockito.any(Statement.class));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenSumTraversalWithoutValuesShouldReturnZero() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.single()).thenAnswer(invocation -> record);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(record.get(0)).thenAnswer(invocation -> value0);
+        Mockito.when(record.get(1)).thenAnswer(invocation -> value1);
+        Mockito.when(value0.asObject()).thenAnswer(invocation -> 0L);
+        Mockito.when(value1.asLong()).thenAnswer(invocation -> 0L);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            // act
+            Number result = graph.traversal().V().values("amount").sum().next();
+            // assert
+            Assert.assertEquals("Invalid sum() result", 0, result);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenSumOverListPropertyShouldUnwindPropertyValues() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V().hasLabel("Order").values("amount").sum().asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertTrue("Failed to compile traversal", traversal.getStartStep() instanceof Neo4JCypherStep);
+            Assert.assertEquals("Invalid CYPHER statement", "MATCH (n) WHERE (n:`Order` AND size(labels(n)) = 1) AND n.`amount` IS NOT NULL UNWIND [] + n.`amount` AS v RETURN sum(v), count(v)", ((Neo4JCypherStep)traversal.getStartStep()).getStatement().text());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenGroupCountByListPropertyShouldFallbackToOriginalSteps() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.list()).thenAnswer(invocation -> Collections.singletonList(record));
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(record.get(0)).thenAnswer(invocation -> value0);
+        Mockito.when(record.get(1)).thenAnswer(invocation -> value1);
+        Mockito.when(value0.asObject()).thenAnswer(invocation -> Arrays.asList("a", "b"));
+        Mockito.when(value1.asLong()).thenAnswer(invocation -> 1L);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            // act
+            Map<Object, Long> result = graph.traversal().V().groupCount().<Object>by("status").next();
+            // assert
+            Assert.assertTrue("List keys should not be grouped", result.isEmpty());
+            Mockito.verify(transaction, Mockito.times(2)).run(Mockito.any(Statement.class));
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.Neo4JCypherStep;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JElementIdProvider;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.NoneStep;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.Values;
+import org.neo4j.driver.v1.summary.ResultSummary;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JBulkInsertStrategyWhileApplyingTest {
+
+    @Mock
+    private Driver driver;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private StatementResult statementResult;
+
+    @Mock
+    private ResultSummary resultSummary;
+
+    @Mock
+    private Record record;
+
+    @Mock
+    private Vertex vertex1;
+
+    @Mock
+    private Vertex vertex2;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenInjectAddVertexTraversalShouldCompileUnwindCreate() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.generate()).thenAnswer(invocation -> 10L);
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().inject(Arrays.asList(row("name", "marko"), row("name", "josh"))).unfold().addV("Person").property("name", __.select("name")).property("active", true).asAdmin();
+            traversal.addStep(new NoneStep<>(traversal));
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertEquals("Failed to compile traversal", 1, traversal.getSteps().size());
+            Assert.assertTrue("Failed to compile traversal", traversal.getStartStep() instanceof Neo4JCypherStep);
+            Statement statement = ((Neo4JCypherStep)traversal.getStartStep()).getStatement();
+            Assert.assertEquals("Invalid CYPHER statement", "UNWIND {np0} AS row CREATE (n:`Person`) SET n += row", statement.text());
+            List<Object> rows = statement.parameters().get("np0").asList();
+            Assert.assertEquals("Invalid CYPHER statement parameter", 2, rows.size());
+            Assert.assertEquals("Invalid CYPHER statement parameter", "josh", ((Map<String, Object>)rows.get(1)).get("name"));
+            Assert.assertEquals("Invalid CYPHER statement parameter", true, ((Map<String, Object>)rows.get(1)).get("active"));
+            Assert.assertNull("Identifiers should not be generated while compiling traversal", ((Map<String, Object>)rows.get(1)).get("id"));
+            Mockito.verify(provider, Mockito.never()).generate();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenInjectAddVertexTraversalShouldGenerateIdentifiersWhenExecuted() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.generate()).thenReturn(10L, 11L);
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            ArgumentCaptor<Statement> captor = ArgumentCaptor.forClass(Statement.class);
+            // act
+            graph.traversal().inject(Arrays.asList(row("name", "marko"), row("name", "josh"))).unfold().addV("Person").property("name", __.select("name")).iterate();
+            // assert
+            Mockito.verify(transaction, Mockito.times(1)).run(captor.capture());
+            List<Object> rows = captor.getValue().parameters().get("np0").asList();
+            Assert.assertEquals("Invalid CYPHER statement parameter", 10L, ((Map<String, Object>)rows.get(0)).get("id"));
+            Assert.assertEquals("Invalid CYPHER statement parameter", 11L, ((Map<String, Object>)rows.get(1)).get("id"));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenInjectAddEdgeTraversalShouldCompileUnwindCreate() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + ".id");
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(vertex1.id()).thenAnswer(invocation -> 1L);
+        Mockito.when(vertex2.id()).thenAnswer(invocation -> 2L);
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Map<String, Object> row = row("weight", 0.5);
+            row.put("out", vertex1);
+            row.put("in", vertex2);
+            Traversal.Admin<?, ?> traversal = graph.traversal().inject(Collections.singletonList(row)).unfold().addE("knows").from(__.select("out")).to(__.select("in")).property("weight", __.select("weight")).asAdmin();
+            traversal.addStep(new NoneStep<>(traversal));
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertTrue("Failed to compile traversal", traversal.getStartStep() instanceof Neo4JCypherStep);
+            Statement statement = ((Neo4JCypherStep)traversal.getStartStep()).getStatement();
+            Assert.assertEquals("Invalid CYPHER statement", "UNWIND {np0} AS id MATCH (e) WHERE e.id = id RETURN count(DISTINCT id)", statement.text());
+            Assert.assertEquals("Invalid CYPHER statement parameter", new HashSet<>(Arrays.asList(1L, 2L)), new HashSet<>(statement.parameters().get("np0").asList()));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenEndpointsFoundShouldCreateEdges() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.single()).thenAnswer(invocation -> record);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(record.get(0)).thenReturn(Values.value(2L), Values.value(1L));
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + ".id");
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(vertex1.id()).thenAnswer(invocation -> 1L);
+        Mockito.when(vertex2.id()).thenAnswer(invocation -> 2L);
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Map<String, Object> row = row("weight", 0.5);
+            row.put("out", vertex1);
+            row.put("in", vertex2);
+            ArgumentCaptor<Statement> captor = ArgumentCaptor.forClass(Statement.class);
+            // act
+            graph.traversal().inject(Collections.singletonList(row)).unfold().addE("knows").from(__.select("out")).to(__.select("in")).property("weight", __.select("weight")).iterate();
+            // assert
+            Mockito.verify(transaction, Mockito.times(2)).run(captor.capture());
+            Statement statement = captor.getAllValues().get(1);
+            Assert.assertEquals("Invalid CYPHER statement", "UNWIND {op0} AS row MATCH (o) WHERE o.id = row.o MATCH (i) WHERE i.id = row.i CREATE (o)-[r:`knows`]->(i) SET r += row.p RETURN count(r)", statement.text());
+            Map<String, Object> parameter = (Map<String, Object>)statement.parameters().get("op0").asList().get(0);
+            Assert.assertEquals("Invalid CYPHER statement parameter", 1L, parameter.get("o"));
+            Assert.assertEquals("Invalid CYPHER statement parameter", 2L, parameter.get("i"));
+            Assert.assertEquals("Invalid CYPHER statement parameter", 0.5, ((Map<String, Object>)parameter.get("p")).get("weight"));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenMissingEndpointShouldNotCreateEdges() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.single()).thenAnswer(invocation -> record);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(record.get(0)).thenAnswer(invocation -> Values.value(1L));
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + ".id");
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(vertex1.id()).thenAnswer(invocation -> 1L);
+        Mockito.when(vertex2.id()).thenAnswer(invocation -> 2L);
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("out", vertex1);
+            row.put("in", vertex2);
+            // act
+            graph.traversal().inject(Collections.singletonList(row)).unfold().addE("knows").from(__.select("out")).to(__.select("in")).iterate();
+            // assert
+            Assert.fail("Missing endpoint should throw exception");
+        }
+        catch (IllegalStateException ex) {
+            // expected, edges are not created
+            Mockito.verify(transaction, Mockito.times(1)).run(Mockito.any(Statement.class));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenRowWithoutSelectedKeyShouldNotCompileUnwindCreate() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().inject(Arrays.asList(row("name", "marko"), row("age", 29L))).unfold().addV("Person").property("name", __.select("name")).asAdmin();
+            traversal.addStep(new NoneStep<>(traversal));
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertFalse("Traversal should not be compiled", traversal.getSteps().stream().anyMatch(step -> step instanceof Neo4JCypherStep));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenReadonlyGraphShouldNotCompileUnwindCreate() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider, true)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().inject(Arrays.asList(row("name", "marko"), row("name", "josh"))).unfold().addV("Person").property("name", __.select("name")).asAdmin();
+            traversal.addStep(new NoneStep<>(traversal));
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertFalse("Traversal should not be compiled", traversal.getSteps().stream().anyMatch(step -> step instanceof Neo4JCypherStep));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenBatchSizeShouldExecuteStatementPerBatch() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            // act
+            graph.traversal().withStrategies(new Neo4JBulkInsertStrategy(2)).inject(Arrays.asList(row("name", "marko"), row("name", "josh"), row("name", "peter"))).unfold().addV("Person").property("name", __.select("name")).iterate();
+            // assert
+            Mockito.verify(transaction, Mockito.times(2)).run(Mockito.any(Statement.class));
+            Assert.assertFalse("Bulk inserts should not be pending changes", graph.hasPendingChanges());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenVerticesLoadedInSessionShouldQueryServerAfterBulkInsert() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            graph.traversal().V().toList();
+            graph.traversal().inject(Arrays.asList(row("name", "marko"), row("name", "josh"))).unfold().addV("Person").property("name", __.select("name")).iterate();
+            // act
+            graph.traversal().V().toList();
+            // assert
+            Mockito.verify(transaction, Mockito.times(3)).run(Mockito.any(Statement.class));
+        }
+    }
+
+    @Test
+    public void givenInvalidBatchSizeShouldThrowException() {
+        try {
+            // act
+            new Neo4JBulkInsertStrategy(0);
+            // assert
+            Assert.fail("Invalid batch size should throw exception");
+        }
+        catch (IllegalArgumentException ex) {
+            // expected
+        }
+    }
+
+    private static Map<String, Object> row(String key, Object value) {
+        Map<String, Object> row = new HashMap<>();
+        row.put(key, value);
+        return row;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.Neo4JCypherStep;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JElementIdProvider;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.decoration.EventStrategy;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.types.Node;
+import org.neo4j.driver.v1.util.Function;
+
+import java.util.Collections;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JDropStrategyWhileApplyingTest {
+
+    @Mock
+    private Driver driver;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private StatementResult statementResult;
+
+    @Mock
+    private ResultSummary resultSummary;
+
+    @Mock
+    private Record record;
+
+    @Mock
+    private Value value;
+
+    @Mock
+    private Node node;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenDropTraversalShouldCompileDetachDelete() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + ".id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V().hasLabel("Session").has("expired", true).drop().asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertEquals("Failed to compile traversal", 1, traversal.getSteps().size());
+            Assert.assertTrue("Failed to compile traversal", traversal.getStartStep() instanceof Neo4JCypherStep);
+            Assert.assertEquals("Invalid CYPHER statement", "MATCH (n) WHERE (n:`Session` AND size(labels(n)) = 1) AND n.`expired` = {np0} WITH n, n.id AS id DETACH DELETE n RETURN id", ((Neo4JCypherStep)traversal.getStartStep()).getStatement().text());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenEventStrategyShouldNotCompileDetachDelete() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().withStrategies(EventStrategy.build().create()).V().hasLabel("Session").drop().asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertFalse("Traversal should not be compiled", traversal.getSteps().stream().anyMatch(step -> step instanceof Neo4JCypherStep));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenBatchSizeShouldCompileDetachDeleteWithLimit() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + ".id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().withStrategies(new Neo4JDropStrategy(100)).V().hasLabel("Session").drop().asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertTrue("Failed to compile traversal", traversal.getStartStep() instanceof Neo4JCypherStep);
+            Assert.assertEquals("Invalid CYPHER statement", "MATCH (n) WHERE (n:`Session` AND size(labels(n)) = 1) WITH n, n.id AS id LIMIT 100 DETACH DELETE n RETURN id", ((Neo4JCypherStep)traversal.getStartStep()).getStatement().text());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenBatchSizeShouldExecuteStatementUntilLastBatch() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.list(Mockito.any(Function.class)))
+            .thenAnswer(invocation -> Collections.singletonList(((Function<Record, ?>)invocation.getArguments()[0]).apply(record)))
+            .thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(record.get(0)).thenAnswer(invocation -> value);
+        Mockito.when(value.asObject()).thenAnswer(invocation -> 1L);
+        Mockito.when(node.labels()).thenAnswer(invocation -> Collections.singletonList("Session"));
+        Mockito.when(node.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(provider.get(Mockito.eq(node))).thenAnswer(invocation -> 1L);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + ".id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            // load vertex in session
+            Assert.assertNotNull("Failed to load vertex", graph.loadVertex(node));
+            // act
+            graph.traversal().withStrategies(new Neo4JDropStrategy(1)).V().hasLabel("Session").drop().iterate();
+            // assert
+            Mockito.verify(transaction, Mockito.times(2)).run(Mockito.any(Statement.class));
+            Assert.assertNull("Failed to mark vertex as deleted", graph.loadVertex(node));
+        }
+    }
+
+    @Test
+    public void givenInvalidBatchSizeShouldThrowException() {
+        try {
+            // act
+            new Neo4JDropStrategy(0);
+            // assert
+            Assert.fail("Invalid batch size should throw exception");
+        }
+        catch (IllegalArgumentException ex) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.Neo4JEdgesBetweenStep;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JElementIdProvider;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Session;
+
+import java.util.List;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JEdgesBetweenStrategyWhileApplyingTest {
+
+    @Mock
+    private Driver driver;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenEdgeExistenceCheckShouldReplaceSteps() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V(1L).outE("follows").where(__.inV().hasId(2L)).asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            List<Neo4JEdgesBetweenStep> steps = TraversalHelper.getStepsOfAssignableClassRecursively(Neo4JEdgesBetweenStep.class, traversal);
+            Assert.assertEquals("Failed to replace steps", 1, steps.size());
+            Assert.assertEquals("Invalid direction", Direction.OUT, steps.get(0).getDirection());
+            Assert.assertEquals("Invalid vertex identifier", 2L, steps.get(0).getVertexId());
+            Assert.assertTrue("Failed to replace steps", TraversalHelper.getStepsOfAssignableClassRecursively(VertexStep.class, traversal).isEmpty());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenEdgeExistenceCheckInChildTraversalShouldReplaceSteps() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V(1L).not(__.bothE("knows").where(__.otherV().hasId(2L))).asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            List<Neo4JEdgesBetweenStep> steps = TraversalHelper.getStepsOfAssignableClassRecursively(Neo4JEdgesBetweenStep.class, traversal);
+            Assert.assertEquals("Failed to replace steps", 1, steps.size());
+            Assert.assertEquals("Invalid direction", Direction.BOTH, steps.get(0).getDirection());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenFilterOnAdjacentVertexPropertyShouldNotReplaceSteps() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V(1L).outE("follows").where(__.inV().has("name", "josh")).asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertTrue("Steps should not be replaced", TraversalHelper.getStepsOfAssignableClassRecursively(Neo4JEdgesBetweenStep.class, traversal).isEmpty());
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.Neo4JCypherStep;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JElementIdProvider;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.types.Node;
+import org.neo4j.driver.v1.util.Function;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JMatchStrategyWhileApplyingTest {
+
+    @Mock
+    private Driver driver;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private StatementResult statementResult;
+
+    @Mock
+    private ResultSummary resultSummary;
+
+    @Mock
+    private Record record;
+
+    @Mock
+    private Value value0;
+
+    @Mock
+    private Value value1;
+
+    @Mock
+    private Node node0;
+
+    @Mock
+    private Node node1;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenMatchTraversalShouldCompileCypherStatement() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V().match(__.as("a").out("knows").as("b"), __.as("b").hasLabel("Person"), __.as("a").where(P.neq("b"))).asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertEquals("Failed to compile traversal", 1, traversal.getSteps().size());
+            Assert.assertTrue("Failed to compile traversal", traversal.getStartStep() instanceof Neo4JCypherStep);
+            Assert.assertEquals("Invalid CYPHER statement", "MATCH (n0) MATCH (n0)-[:`knows`]->(n1) WHERE (n1:`Person` AND size(labels(n1)) = 1) AND n0 <> n1 RETURN n0, n1", ((Neo4JCypherStep)traversal.getStartStep()).getStatement().text());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenMatchTraversalWithMultipleHopsShouldCompileEachHopInMatchClause() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V().has("name", "marko").match(__.as("a").both("knows").in("created").as("b"), __.as("b").out("created").as("c")).asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertTrue("Failed to compile traversal", traversal.getStartStep() instanceof Neo4JCypherStep);
+            Assert.assertEquals("Invalid CYPHER statement", "MATCH (n0) MATCH (n0)-[:`knows`]-(n3) MATCH (n3)<-[:`created`]-(n1) MATCH (n1)-[:`created`]->(n2) WHERE n0.`name` = {n0p0} RETURN n0, n1, n2", ((Neo4JCypherStep)traversal.getStartStep()).getStatement().text());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenWhereAndDedupAfterMatchShouldCompileCypherStatement() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V().match(__.as("a").out("knows").as("b"), __.as("a").out("knows").as("c")).where("b", P.neq("c")).where(__.as("b").out("knows").as("c")).dedup().select("b").asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertTrue("Failed to compile traversal", traversal.getStartStep() instanceof Neo4JCypherStep);
+            Assert.assertEquals("Invalid CYPHER statement", "MATCH (n0) MATCH (n0)-[:`knows`]->(n1) MATCH (n0)-[:`knows`]->(n2) WHERE n1 <> n2 AND (n1)-[:`knows`]->(n2) RETURN DISTINCT n0, n1, n2", ((Neo4JCypherStep)traversal.getStartStep()).getStatement().text());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenMatchTraversalOverPropertiesShouldNotCompileCypherStatement() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V().match(__.as("a").out("knows").as("b"), __.as("b").values("name").as("c")).asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertFalse("Traversal should not be compiled", traversal.getSteps().stream().anyMatch(step -> step instanceof Neo4JCypherStep));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenMatchTraversalShouldReturnBindings() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.list(Mockito.any(Function.class))).thenAnswer(invocation -> Collections.singletonList(((Function<Record, ?>)invocation.getArguments()[0]).apply(record)));
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(record.get(0)).thenAnswer(invocation -> value0);
+        Mockito.when(record.get(1)).thenAnswer(invocation -> value1);
+        Mockito.when(value0.asNode()).thenAnswer(invocation -> node0);
+        Mockito.when(value1.asNode()).thenAnswer(invocation -> node1);
+        Mockito.when(node0.labels()).thenAnswer(invocation -> Collections.singletonList("Person"));
+        Mockito.when(node0.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(node1.labels()).thenAnswer(invocation -> Collections.singletonList("Person"));
+        Mockito.when(node1.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(provider.get(Mockito.eq(node0))).thenAnswer(invocation -> 1L);
+        Mockito.when(provider.get(Mockito.eq(node1))).thenAnswer(invocation -> 2L);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            // act
+            Map<String, Object> result = graph.traversal().V().match(__.as("a").out("knows").as("b")).next();
+            // assert
+            Assert.assertEquals("Invalid match() result", 2, result.size());
+            Assert.assertEquals("Invalid match() binding", 1L, ((Vertex)result.get("a")).id());
+            Assert.assertEquals("Invalid match() binding", 2L, ((Vertex)result.get("b")).id());
+            Mockito.verify(transaction, Mockito.times(1)).run(Mockito.any(Statement.class));
+        }
+    }
+}
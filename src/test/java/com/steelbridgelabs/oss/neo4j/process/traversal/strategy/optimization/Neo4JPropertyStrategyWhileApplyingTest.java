@@ -0,0 +1,221 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.Neo4JCypherStep;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JElementIdProvider;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.NoneStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.AddPropertyStep;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.decoration.EventStrategy;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.Values;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.util.Function;
+import org.neo4j.driver.v1.types.Node;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JPropertyStrategyWhileApplyingTest {
+
+    @Mock
+    private Driver driver;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private StatementResult statementResult;
+
+    @Mock
+    private ResultSummary resultSummary;
+
+    @Mock
+    private Node node;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenPropertyTraversalShouldCompileSetClause() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + ".id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V().has("tenant", "t1").property("migrated", true).property(VertexProperty.Cardinality.single, "version", 2L).asAdmin();
+            traversal.addStep(new NoneStep<>(traversal));
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertEquals("Failed to compile traversal", 1, traversal.getSteps().size());
+            Assert.assertTrue("Failed to compile traversal", traversal.getStartStep() instanceof Neo4JCypherStep);
+            Statement statement = ((Neo4JCypherStep)traversal.getStartStep()).getStatement();
+            Assert.assertEquals("Invalid CYPHER statement", "MATCH (n) WHERE n.`tenant` = {np0} AND ((n.`migrated` IS NOT NULL AND NOT [] + n.`migrated` = [n.`migrated`]) OR (n.`version` IS NOT NULL AND NOT [] + n.`version` = [n.`version`])) RETURN n.id LIMIT 1", statement.text());
+            Assert.assertTrue("Invalid CYPHER statement parameter", statement.parameters().get("np1").asBoolean());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenPropertyTraversalReturningValuesShouldNotCompileSetClause() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V().has("tenant", "t1").property("migrated", true).asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertFalse("Traversal should not be compiled", traversal.getSteps().stream().anyMatch(step -> step instanceof Neo4JCypherStep));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenEventStrategyShouldNotCompileSetClause() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().withStrategies(EventStrategy.build().create()).V().has("tenant", "t1").property("migrated", true).asAdmin();
+            traversal.addStep(new NoneStep<>(traversal));
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertFalse("Traversal should not be compiled", traversal.getSteps().stream().anyMatch(step -> step instanceof Neo4JCypherStep));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenListCardinalityShouldNotCompileSetClause() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + ".id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V().has("tenant", "t1").property(VertexProperty.Cardinality.list, "tags", "a").asAdmin();
+            traversal.addStep(new NoneStep<>(traversal));
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertFalse("Traversal should not be compiled", traversal.getSteps().stream().anyMatch(step -> step instanceof Neo4JCypherStep));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenPropertyStepWithoutBytecodeShouldNotCompileSetClause() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + ".id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V().has("tenant", "t1").asAdmin();
+            traversal.addStep(new AddPropertyStep<>(traversal, VertexProperty.Cardinality.list, "tags", "a"));
+            traversal.addStep(new NoneStep<>(traversal));
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertFalse("Traversal should not be compiled", traversal.getSteps().stream().anyMatch(step -> step instanceof Neo4JCypherStep));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenPropertyTraversalShouldUpdateVerticesInSession() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.hasNext()).thenAnswer(invocation -> false);
+        Mockito.when(statementResult.list(Mockito.any(Function.class))).thenAnswer(invocation -> Collections.singletonList(1L));
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(node.labels()).thenAnswer(invocation -> Collections.singletonList("Tenant"));
+        Mockito.when(node.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(provider.get(Mockito.eq(node))).thenAnswer(invocation -> 1L);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + ".id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            // load vertex in session
+            Vertex vertex = graph.loadVertex(node);
+            Assert.assertNotNull("Failed to load vertex", vertex);
+            // act
+            graph.traversal().V().hasLabel("Tenant").property("migrated", true).iterate();
+            // assert
+            ArgumentCaptor<Statement> captor = ArgumentCaptor.forClass(Statement.class);
+            Mockito.verify(transaction, Mockito.times(2)).run(captor.capture());
+            Statement statement = captor.getAllValues().get(1);
+            Assert.assertEquals("Invalid CYPHER statement", "MATCH (n) WHERE (n:`Tenant` AND size(labels(n)) = 1) SET n.`migrated` = {np0} WITH n WHERE n.id IN {np1} RETURN n.id", statement.text());
+            Assert.assertEquals("Invalid CYPHER statement parameter", Collections.singletonList(1L), statement.parameters().get("np1").asList());
+            Assert.assertEquals("Failed to update vertex in session", true, vertex.value("migrated"));
+            Assert.assertFalse("Server side update should not be a pending change", graph.hasPendingChanges());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @SuppressWarnings("unchecked")
+    public void givenPropertyStoredAsListInServerShouldEvaluateOriginalSteps() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.hasNext()).thenAnswer(invocation -> true);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(node.labels()).thenAnswer(invocation -> Collections.singletonList("Tenant"));
+        Mockito.when(node.keys()).thenAnswer(invocation -> Collections.singletonList("tags"));
+        Mockito.when(node.get(Mockito.eq("tags"))).thenAnswer(invocation -> Values.value(Arrays.asList("a", "b")));
+        Mockito.when(provider.get(Mockito.eq(node))).thenAnswer(invocation -> 1L);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(provider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + ".id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            // load vertex in session
+            Vertex vertex = graph.loadVertex(node);
+            Assert.assertNotNull("Failed to load vertex", vertex);
+            // act
+            graph.traversal().V(1L).property("tags", "c").iterate();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.Neo4JCypherStep;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JElementIdProvider;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.Path;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.types.Node;
+import org.neo4j.driver.v1.types.Relationship;
+import org.neo4j.driver.v1.util.Function;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JRepeatStrategyWhileApplyingTest {
+
+    @Mock
+    private Driver driver;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private StatementResult statementResult;
+
+    @Mock
+    private ResultSummary resultSummary;
+
+    @Mock
+    private Record record;
+
+    @Mock
+    private Value value;
+
+    @Mock
+    private org.neo4j.driver.v1.types.Path path;
+
+    @Mock
+    private org.neo4j.driver.v1.types.Path.Segment segment;
+
+    @Mock
+    private Node node0;
+
+    @Mock
+    private Node node1;
+
+    @Mock
+    private Relationship relationship;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenRepeatTimesShouldCompileMatchClauses() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V().has("name", "marko").repeat(__.out("knows")).times(2).asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertEquals("Failed to compile traversal", 1, traversal.getSteps().size());
+            Assert.assertTrue("Failed to compile traversal", traversal.getStartStep() instanceof Neo4JCypherStep);
+            Assert.assertEquals("Invalid CYPHER statement", "MATCH (n0) MATCH (n0)-[r1:`knows`]->(n1) MATCH (n1)-[r2:`knows`]->(n2) WHERE n0.`name` = {n0p0} RETURN n2", ((Neo4JCypherStep)traversal.getStartStep()).getStatement().text());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenRepeatTimesWithPathShouldReturnVerticesAndRelationships() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V().times(2).repeat(__.both()).path().asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertTrue("Failed to compile traversal", traversal.getStartStep() instanceof Neo4JCypherStep);
+            Assert.assertEquals("Invalid CYPHER statement", "MATCH (n0) MATCH (n0)-[r1]-(n1) MATCH (n1)-[r2]-(n2) RETURN n0, r1, n1, r2, n2", ((Neo4JCypherStep)traversal.getStartStep()).getStatement().text());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenShortestPathTraversalShouldCompileShortestPath() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(provider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + ".id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V(1L).repeat(__.out("knows", "likes").simplePath()).until(__.hasId(2L)).limit(1).path().asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertEquals("Failed to compile traversal", 1, traversal.getSteps().size());
+            Assert.assertTrue("Failed to compile traversal", traversal.getStartStep() instanceof Neo4JCypherStep);
+            Assert.assertEquals("Invalid CYPHER statement", "MATCH (n0) MATCH (n1) WHERE n0.id = {n0p0} AND n1.id IN {n1p1} AND n0 <> n1 MATCH p = shortestPath((n0)-[:`knows`|`likes`*]->(n1)) RETURN p ORDER BY length(p) LIMIT 1", ((Neo4JCypherStep)traversal.getStartStep()).getStatement().text());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenUntilTraversalWithoutLimitShouldNotCompileCypherStatement() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(provider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + ".id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V(1L).repeat(__.out()).until(__.hasId(2L)).path().asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertFalse("Traversal should not be compiled", traversal.getSteps().stream().anyMatch(step -> step instanceof Neo4JCypherStep));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenUntilTraversalWithoutIdentifierShouldNotCompileCypherStatement() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(provider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + ".id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V(1L).repeat(__.out("knows")).until(__.has("name", "marko")).limit(1).path().asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertFalse("Traversal should not be compiled", traversal.getSteps().stream().anyMatch(step -> step instanceof Neo4JCypherStep));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenSimplePathWithToLabelShouldNotCompileCypherStatement() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(provider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + ".id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Traversal.Admin<?, ?> traversal = graph.traversal().V(1L).repeat(__.out("knows").simplePath().to("x")).until(__.hasId(2L)).limit(1).path().asAdmin();
+            // act
+            traversal.applyStrategies();
+            // assert
+            Assert.assertFalse("Traversal should not be compiled", traversal.getSteps().stream().anyMatch(step -> step instanceof Neo4JCypherStep));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenShortestPathTraversalShouldReturnHydratedPath() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.list(Mockito.any(Function.class))).thenAnswer(invocation -> Collections.singletonList(((Function<Record, ?>)invocation.getArguments()[0]).apply(record)));
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(record.get(0)).thenAnswer(invocation -> value);
+        Mockito.when(value.asPath()).thenAnswer(invocation -> path);
+        Mockito.when(path.iterator()).thenAnswer(invocation -> Collections.singletonList(segment).iterator());
+        Mockito.when(path.nodes()).thenAnswer(invocation -> Arrays.asList(node0, node1));
+        Mockito.when(segment.start()).thenAnswer(invocation -> node0);
+        Mockito.when(segment.relationship()).thenAnswer(invocation -> relationship);
+        Mockito.when(segment.end()).thenAnswer(invocation -> node1);
+        Mockito.when(node0.id()).thenAnswer(invocation -> 10L);
+        Mockito.when(node0.labels()).thenAnswer(invocation -> Collections.singletonList("Person"));
+        Mockito.when(node0.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(node1.id()).thenAnswer(invocation -> 20L);
+        Mockito.when(node1.labels()).thenAnswer(invocation -> Collections.singletonList("Person"));
+        Mockito.when(node1.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(relationship.startNodeId()).thenAnswer(invocation -> 10L);
+        Mockito.when(relationship.endNodeId()).thenAnswer(invocation -> 20L);
+        Mockito.when(relationship.type()).thenAnswer(invocation -> "knows");
+        Mockito.when(relationship.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(provider.get(Mockito.eq(node0))).thenAnswer(invocation -> 1L);
+        Mockito.when(provider.get(Mockito.eq(node1))).thenAnswer(invocation -> 2L);
+        Mockito.when(provider.get(Mockito.eq(relationship))).thenAnswer(invocation -> 3L);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(provider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + ".id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            // act
+            Path result = graph.traversal().V(1L).repeat(__.out("knows")).until(__.hasId(2L)).limit(1).path().next();
+            // assert
+            Assert.assertEquals("Invalid path size", 2, result.size());
+            Assert.assertEquals("Invalid path vertex", 1L, ((Vertex)result.get(0)).id());
+            Assert.assertEquals("Invalid path vertex", 2L, ((Vertex)result.get(1)).id());
+            Mockito.verify(transaction, Mockito.times(1)).run(Mockito.any(Statement.class));
+        }
+    }
+}
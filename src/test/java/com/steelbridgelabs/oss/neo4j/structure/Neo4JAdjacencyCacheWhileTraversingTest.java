@@ -0,0 +1,142 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.types.Node;
+import org.neo4j.driver.v1.types.Relationship;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JAdjacencyCacheWhileTraversingTest {
+
+    @Mock
+    private Driver driver;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private StatementResult statementResult;
+
+    @Mock
+    private ResultSummary resultSummary;
+
+    @Mock
+    private Record record;
+
+    @Mock
+    private Value nodeValue;
+
+    @Mock
+    private Value relationshipValue;
+
+    @Mock
+    private Value otherNodeValue;
+
+    @Mock
+    private Node node;
+
+    @Mock
+    private Node otherNode;
+
+    @Mock
+    private Relationship relationship;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenAdjacencyLoadedByTraversalShouldServeAdjacencyFromCacheInOtherGraph() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.doAnswer(invocation -> {
+            ((Consumer<Record>)invocation.getArguments()[0]).accept(record);
+            return null;
+        }).when(statementResult).forEachRemaining(Mockito.any(Consumer.class));
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(record.get(0)).thenAnswer(invocation -> nodeValue);
+        Mockito.when(record.get(1)).thenAnswer(invocation -> relationshipValue);
+        Mockito.when(record.get(2)).thenAnswer(invocation -> otherNodeValue);
+        Mockito.when(nodeValue.asNode()).thenAnswer(invocation -> node);
+        Mockito.when(relationshipValue.asRelationship()).thenAnswer(invocation -> relationship);
+        Mockito.when(otherNodeValue.asNode()).thenAnswer(invocation -> otherNode);
+        Mockito.when(node.id()).thenAnswer(invocation -> 1L);
+        Mockito.when(node.labels()).thenAnswer(invocation -> Collections.singletonList("Person"));
+        Mockito.when(node.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(otherNode.id()).thenAnswer(invocation -> 2L);
+        Mockito.when(otherNode.labels()).thenAnswer(invocation -> Collections.singletonList("Person"));
+        Mockito.when(otherNode.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(relationship.type()).thenAnswer(invocation -> "knows");
+        Mockito.when(relationship.startNodeId()).thenAnswer(invocation -> 1L);
+        Mockito.when(relationship.endNodeId()).thenAnswer(invocation -> 2L);
+        Mockito.when(relationship.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(provider.get(Mockito.eq(node))).thenAnswer(invocation -> 1L);
+        Mockito.when(provider.get(Mockito.eq(otherNode))).thenAnswer(invocation -> 2L);
+        Mockito.when(provider.get(Mockito.eq(relationship))).thenAnswer(invocation -> 100L);
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(provider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + ".id");
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Neo4JElementCache elementCache = new Neo4JElementCache(10, 0, TimeUnit.SECONDS);
+        elementCache.putVertex(1L, node);
+        Neo4JAdjacencyCache adjacencyCache = new Neo4JAdjacencyCache(10, 0, TimeUnit.SECONDS);
+        try (Neo4JGraph graph1 = new Neo4JGraph(driver, provider, provider, true); Neo4JGraph graph2 = new Neo4JGraph(driver, provider, provider, true)) {
+            graph1.setElementCache(elementCache);
+            graph1.setAdjacencyCache(adjacencyCache);
+            graph2.setElementCache(elementCache);
+            graph2.setAdjacencyCache(adjacencyCache);
+            graph1.traversal().V(1L).out().toList();
+            // act
+            List<Vertex> result = graph2.traversal().V(1L).out().toList();
+            // assert
+            Assert.assertEquals("Invalid number of vertices", 1, result.size());
+            Assert.assertEquals("Invalid vertex", 2L, result.get(0).id());
+            Assert.assertEquals("Invalid adjacency cache size", 1, adjacencyCache.size());
+            Mockito.verify(transaction, Mockito.times(1)).run(Mockito.any(Statement.class));
+        }
+    }
+}
@@ -98,4 +98,27 @@ public class Neo4JEdgeWhileRollbackTest {
         // assert
         Assert.assertFalse("Failed to rollback edge state", edge.isDirty());
     }
+
+    @Test
+    public void givenCommittedPropertyShouldRollbackToCommittedValue() {
+        // arrange
+        Mockito.when(graph.tx()).thenAnswer(invocation -> transaction);
+        Mockito.when(relationship.get(Mockito.eq("id"))).thenAnswer(invocation -> Values.value(1L));
+        Mockito.when(relationship.type()).thenAnswer(invocation -> "label");
+        Mockito.when(relationship.keys()).thenAnswer(invocation -> Collections.singleton("key1"));
+        Mockito.when(relationship.get(Mockito.eq("key1"))).thenAnswer(invocation -> Values.value("value1"));
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        ArgumentCaptor<Long> argument = ArgumentCaptor.forClass(Long.class);
+        Mockito.when(provider.processIdentifier(argument.capture())).thenAnswer(invocation -> argument.getValue());
+        Neo4JEdge edge = new Neo4JEdge(graph, session, provider, outVertex, relationship, inVertex);
+        edge.property("key1", "value2");
+        edge.commit();
+        edge.property("key1", "value3");
+        // act
+        edge.rollback();
+        // assert
+        Assert.assertNotNull(edge.property("key1"));
+        Property<String> property = edge.property("key1");
+        Assert.assertEquals("Failed to rollback property value", "value2", property.value());
+    }
 }
@@ -0,0 +1,238 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import com.steelbridgelabs.oss.neo4j.structure.partitions.AnyLabelReadPartition;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.types.Node;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JElementCacheWhileLookingUpVerticesTest {
+
+    @Mock
+    private Driver driver;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private StatementResult statementResult;
+
+    @Mock
+    private ResultSummary resultSummary;
+
+    @Mock
+    private Record record;
+
+    @Mock
+    private Value value;
+
+    @Mock
+    private Node node;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenVertexLoadedByGraphShouldServeVertexFromCacheInOtherGraph() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.doAnswer(invocation -> {
+            ((Consumer<Record>)invocation.getArguments()[0]).accept(record);
+            return null;
+        }).when(statementResult).forEachRemaining(Mockito.any(Consumer.class));
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(record.get(0)).thenAnswer(invocation -> value);
+        Mockito.when(value.asNode()).thenAnswer(invocation -> node);
+        Mockito.when(node.labels()).thenAnswer(invocation -> Collections.singletonList("Person"));
+        Mockito.when(node.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(provider.get(Mockito.eq(node))).thenAnswer(invocation -> 1L);
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(provider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + ".id");
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Neo4JElementCache cache = new Neo4JElementCache(10, 0, TimeUnit.SECONDS);
+        try (Neo4JGraph graph1 = new Neo4JGraph(driver, provider, provider, true); Neo4JGraph graph2 = new Neo4JGraph(driver, provider, provider, true)) {
+            graph1.setElementCache(cache);
+            graph2.setElementCache(cache);
+            graph1.vertices(1L).next();
+            // act
+            Iterator<Vertex> result = graph2.vertices(1L);
+            // assert
+            Assert.assertTrue("Failed to find vertex in cache", result.hasNext());
+            Assert.assertEquals("Invalid vertex", 1L, result.next().id());
+            Assert.assertEquals("Invalid cache size", 1, cache.vertexCount());
+            Mockito.verify(transaction, Mockito.times(1)).run(Mockito.any(Statement.class));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenVertexServedFromCacheShouldNotExtendTimeToLive() throws InterruptedException {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(node.labels()).thenAnswer(invocation -> Collections.singletonList("Person"));
+        Mockito.when(node.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(provider.get(Mockito.eq(node))).thenAnswer(invocation -> 1L);
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Neo4JElementCache cache = new Neo4JElementCache(10, 200, TimeUnit.MILLISECONDS);
+        cache.putVertex(1L, node);
+        Thread.sleep(120);
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider, true)) {
+            graph.setElementCache(cache);
+            Assert.assertTrue("Failed to find vertex in cache", graph.vertices(1L).hasNext());
+        }
+        // act
+        Thread.sleep(120);
+        // assert
+        Assert.assertNull("Vertex should expire after time to live since it was read from server", cache.vertex(1L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenInvalidatedVertexShouldFetchVertexFromDatabase() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(node.labels()).thenAnswer(invocation -> Collections.singletonList("Person"));
+        Mockito.when(node.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(provider.get(Mockito.eq(node))).thenAnswer(invocation -> 1L);
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(provider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + ".id");
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Neo4JElementCache cache = new Neo4JElementCache(10, 0, TimeUnit.SECONDS);
+        cache.putVertex(1L, node);
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider, true)) {
+            graph.setElementCache(cache);
+            cache.invalidateVertex(1L);
+            // act
+            Iterator<Vertex> result = graph.vertices(1L);
+            // assert
+            Assert.assertFalse("Vertex should not be found", result.hasNext());
+            Mockito.verify(transaction, Mockito.times(1)).run(Mockito.any(Statement.class));
+        }
+    }
+
+    @Test
+    public void givenCacheAtMaximumSizeShouldEvictLeastRecentlyUsedVertex() {
+        // arrange
+        Neo4JElementCache cache = new Neo4JElementCache(2, 0, TimeUnit.SECONDS);
+        cache.putVertex(1L, node);
+        cache.putVertex(2L, node);
+        cache.vertex(1L);
+        // act
+        cache.putVertex(3L, node);
+        // assert
+        Assert.assertNotNull("Recently used vertex should not be evicted", cache.vertex(1L));
+        Assert.assertNull("Least recently used vertex should be evicted", cache.vertex(2L));
+        Assert.assertNotNull("Vertex should be in cache", cache.vertex(3L));
+    }
+
+    @Test
+    public void givenExpiredVertexShouldNotReturnVertex() throws InterruptedException {
+        // arrange
+        Neo4JElementCache cache = new Neo4JElementCache(2, 1, TimeUnit.MILLISECONDS);
+        cache.putVertex(1L, node);
+        Thread.sleep(5);
+        // act
+        Node result = cache.vertex(1L);
+        // assert
+        Assert.assertNull("Expired vertex should not be returned", result);
+        Assert.assertEquals("Expired vertex should be evicted", 0, cache.vertexCount());
+    }
+
+    @Test
+    public void givenDifferentBookmarksShouldInvalidateCache() {
+        // arrange
+        Neo4JElementCache cache = new Neo4JElementCache(2, 0, TimeUnit.SECONDS);
+        cache.synchronize(Collections.singletonList("bookmark-1"));
+        cache.putVertex(1L, node);
+        // act
+        cache.synchronize(Collections.singletonList("bookmark-2"));
+        // assert
+        Assert.assertNull("Cache should be invalidated", cache.vertex(1L));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void givenReadWriteGraphShouldNotAcceptElementCache() {
+        // arrange
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            // act
+            graph.setElementCache(new Neo4JElementCache(2, 0, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenGraphsWithDifferentPartitionsShouldNotShareElementCache() {
+        // arrange
+        Neo4JElementCache cache = new Neo4JElementCache(2, 0, 1, TimeUnit.SECONDS);
+        try (Neo4JGraph graph1 = new Neo4JGraph(new AnyLabelReadPartition("A"), new String[]{"A"}, driver, provider, provider, true); Neo4JGraph graph2 = new Neo4JGraph(new AnyLabelReadPartition("B"), new String[]{"B"}, driver, provider, provider, true)) {
+            graph1.setElementCache(cache);
+            // act
+            graph2.setElementCache(cache);
+        }
+    }
+
+    @Test
+    public void givenGraphsWithEqualPartitionsShouldShareElementCache() {
+        // arrange
+        Neo4JElementCache cache = new Neo4JElementCache(2, 0, 1, TimeUnit.SECONDS);
+        try (Neo4JGraph graph1 = new Neo4JGraph(new AnyLabelReadPartition("A", "B"), new String[]{"A"}, driver, provider, provider, true); Neo4JGraph graph2 = new Neo4JGraph(new AnyLabelReadPartition("B", "A"), new String[]{"A"}, driver, provider, provider, true)) {
+            graph1.setElementCache(cache);
+            // act
+            graph2.setElementCache(cache);
+            // assert
+            Assert.assertSame("Failed to share element cache", cache, graph2.getElementCache());
+        }
+    }
+}
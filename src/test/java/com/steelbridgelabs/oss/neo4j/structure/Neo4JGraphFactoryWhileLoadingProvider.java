@@ -18,6 +18,8 @@
 
 package com.steelbridgelabs.oss.neo4j.structure;
 
+import com.steelbridgelabs.oss.neo4j.structure.providers.TimeBasedElementIdProvider;
+import org.apache.commons.configuration.Configuration;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -110,4 +112,23 @@ public class Neo4JGraphFactoryWhileLoadingProvider {
         // assert
         Assert.assertNotNull("Failed to create provider instance", provider);
     }
+
+    @Test
+    public void givenProviderWithConfigurationArgumentConstructorShouldCreateInstance() throws IllegalAccessException, InstantiationException, ClassNotFoundException {
+        // arrange
+        Configuration configuration = Neo4JGraphConfigurationBuilder.connect("localhost", (short)7687, "user", "password").withWorkerId(3).build();
+        // act
+        Neo4JElementIdProvider<?> provider = Neo4JGraphFactory.loadProvider(driver, configuration, TimeBasedElementIdProvider.class.getName());
+        // assert
+        Assert.assertTrue("Failed to create provider instance", provider instanceof TimeBasedElementIdProvider);
+        Assert.assertEquals("Invalid worker id", 3L, ((TimeBasedElementIdProvider)provider).workerId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenConfigurationWithoutWorkerIdShouldNotCreateTimeBasedProvider() throws IllegalAccessException, InstantiationException, ClassNotFoundException {
+        // arrange
+        Configuration configuration = Neo4JGraphConfigurationBuilder.connect("localhost", (short)7687, "user", "password").build();
+        // act
+        Neo4JGraphFactory.loadProvider(driver, configuration, TimeBasedElementIdProvider.class.getName());
+    }
 }
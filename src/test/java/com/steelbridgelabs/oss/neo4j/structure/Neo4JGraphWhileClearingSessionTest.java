@@ -0,0 +1,171 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.types.Node;
+
+import java.util.Collections;
+import java.util.function.Consumer;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JGraphWhileClearingSessionTest {
+
+    @Mock
+    private Driver driver;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private StatementResult statementResult;
+
+    @Mock
+    private ResultSummary resultSummary;
+
+    @Mock
+    private Record record;
+
+    @Mock
+    private Value value;
+
+    @Mock
+    private Node node1;
+
+    @Mock
+    private Node node2;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenClearSessionShouldLoadVertexFromServer() {
+        // arrange
+        arrange();
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            graph.vertices(1L);
+            // act
+            graph.clearSession();
+            graph.vertices(1L);
+            // assert
+            Mockito.verify(transaction, Mockito.times(2)).run(Mockito.any(Statement.class));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenClearSessionShouldNotRemoveDirtyVertex() {
+        // arrange
+        arrange();
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Vertex vertex = graph.vertices(1L).next();
+            vertex.property("name", "marko");
+            // act
+            graph.clearSession();
+            Vertex result = graph.vertices(1L).next();
+            // assert
+            Assert.assertSame("Dirty vertex should remain in session", vertex, result);
+            Mockito.verify(transaction, Mockito.times(1)).run(Mockito.any(Statement.class));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenEvictedVertexShouldLoadOnlyEvictedVertexFromServer() {
+        // arrange
+        arrange();
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Vertex vertex = graph.vertices(1L).next();
+            graph.vertices(2L);
+            // act
+            graph.evict(vertex);
+            graph.vertices(2L);
+            Vertex result = graph.vertices(1L).next();
+            // assert
+            Assert.assertNotSame("Evicted vertex should be loaded from server", vertex, result);
+            Mockito.verify(transaction, Mockito.times(3)).run(Mockito.any(Statement.class));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenClearSessionOnCommitShouldLoadVertexFromServerAfterCommit() {
+        // arrange
+        arrange();
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            graph.setClearSessionOnCommit(true);
+            graph.vertices(1L);
+            // act
+            graph.tx().commit();
+            graph.vertices(1L);
+            // assert
+            Mockito.verify(transaction, Mockito.times(2)).run(Mockito.any(Statement.class));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void arrange() {
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.isOpen()).thenAnswer(invocation -> true);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> {
+            // node with requested id
+            Node node = ((Statement)invocation.getArguments()[0]).parameters().get("id").asLong() == 1L ? node1 : node2;
+            Mockito.doAnswer(forEach -> {
+                ((Consumer<Record>)forEach.getArguments()[0]).accept(record);
+                return null;
+            }).when(statementResult).forEachRemaining(Mockito.any(Consumer.class));
+            Mockito.when(value.asNode()).thenAnswer(result -> node);
+            return statementResult;
+        });
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(record.get(0)).thenAnswer(invocation -> value);
+        Mockito.when(node1.labels()).thenAnswer(invocation -> Collections.singletonList("Person"));
+        Mockito.when(node1.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(node2.labels()).thenAnswer(invocation -> Collections.singletonList("Person"));
+        Mockito.when(node2.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(provider.get(Mockito.eq(node1))).thenAnswer(invocation -> 1L);
+        Mockito.when(provider.get(Mockito.eq(node2))).thenAnswer(invocation -> 2L);
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(provider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + ".id");
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.summary.ResultSummary;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JGraphWhileUsingResultCacheTest {
+
+    @Mock
+    private Driver driver;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private StatementResult statementResult;
+
+    @Mock
+    private ResultSummary resultSummary;
+
+    @Mock
+    private Record record;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenSameStatementShouldReturnCachedRecords() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.list()).thenAnswer(invocation -> Collections.singletonList(record));
+        Mockito.when(statementResult.keys()).thenAnswer(invocation -> Collections.singletonList("name"));
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Neo4JResultCache cache = new Neo4JResultCache(10, 0, TimeUnit.SECONDS);
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider, true)) {
+            graph.setResultCache(cache);
+            graph.execute("MATCH (n:Country) WHERE n.code = {code} RETURN n.name", Collections.singletonMap("code", "US")).list();
+            // act
+            StatementResult result = graph.execute("MATCH (n:Country) WHERE n.code = {code} RETURN n.name", Collections.singletonMap("code", "US"));
+            // assert
+            List<Record> records = result.list();
+            Assert.assertEquals("Invalid number of records", 1, records.size());
+            Assert.assertSame("Invalid record", record, records.get(0));
+            Assert.assertEquals("Invalid result keys", Collections.singletonList("name"), result.keys());
+            Assert.assertEquals("Invalid hit count", 1, cache.hitCount());
+            Assert.assertEquals("Invalid miss count", 1, cache.missCount());
+            Mockito.verify(transaction, Mockito.times(1)).run(Mockito.any(Statement.class));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenDifferentParametersShouldExecuteStatement() {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.list()).thenAnswer(invocation -> Collections.singletonList(record));
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Neo4JResultCache cache = new Neo4JResultCache(1, 0, TimeUnit.SECONDS);
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider, true)) {
+            graph.setResultCache(cache);
+            graph.execute("MATCH (n:Country) WHERE n.code = {code} RETURN n.name", Collections.singletonMap("code", "US"));
+            // act
+            graph.execute("MATCH (n:Country) WHERE n.code = {code} RETURN n.name", Collections.singletonMap("code", "CA"));
+            // assert
+            Assert.assertEquals("Invalid miss count", 2, cache.missCount());
+            Assert.assertEquals("Invalid eviction count", 1, cache.evictionCount());
+            Assert.assertEquals("Invalid cache size", 1, cache.size());
+            Mockito.verify(transaction, Mockito.times(2)).run(Mockito.any(Statement.class));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenExpiredResultShouldExecuteStatement() throws InterruptedException {
+        // arrange
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.list()).thenAnswer(invocation -> Collections.singletonList(record));
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Neo4JResultCache cache = new Neo4JResultCache(10, 1, TimeUnit.MILLISECONDS);
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider, true)) {
+            graph.setResultCache(cache);
+            graph.execute("MATCH (n:Country) RETURN n.name");
+            Thread.sleep(5);
+            // act
+            graph.execute("MATCH (n:Country) RETURN n.name");
+            // assert
+            Assert.assertEquals("Invalid hit count", 0, cache.hitCount());
+            Assert.assertEquals("Invalid eviction count", 1, cache.evictionCount());
+            Mockito.verify(transaction, Mockito.times(2)).run(Mockito.any(Statement.class));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void givenReadWriteGraphShouldNotAcceptResultCache() {
+        // arrange
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            // act
+            graph.setResultCache(new Neo4JResultCache(10, 0, TimeUnit.SECONDS));
+        }
+    }
+}
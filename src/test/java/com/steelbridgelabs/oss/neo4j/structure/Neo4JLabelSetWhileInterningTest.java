@@ -0,0 +1,71 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+public class Neo4JLabelSetWhileInterningTest {
+
+    @Test
+    public void givenSameLabelsInDifferentOrderShouldReturnSameInstance() {
+        // arrange
+        Neo4JLabelSet set = Neo4JLabelSet.of(Arrays.asList("Person", "Employee"));
+        // act
+        Neo4JLabelSet result = Neo4JLabelSet.of(Arrays.asList("Employee", "Person", "Employee"));
+        // assert
+        Assert.assertSame("Failed to intern label set", set, result);
+    }
+
+    @Test
+    public void givenLabelsShouldPrecomputeCypherFragment() {
+        // arrange
+        Neo4JLabelSet set = Neo4JLabelSet.of(Arrays.asList("Person", "Employee"));
+        // act
+        String result = set.fragment();
+        // assert
+        Assert.assertEquals("Invalid CYPHER fragment", ":`Employee`:`Person`", result);
+        Assert.assertEquals("Invalid label text", "Employee::Person", set.text());
+    }
+
+    @Test
+    public void givenLabelAddedAndRemovedShouldReturnOriginalInstance() {
+        // arrange
+        Neo4JLabelSet set = Neo4JLabelSet.of(Arrays.asList("Person"));
+        // act
+        Neo4JLabelSet result = set.with("Employee").without("Employee");
+        // assert
+        Assert.assertSame("Failed to intern label set", set, result);
+    }
+
+    @Test
+    public void givenExistingLabelShouldNotCreateNewSet() {
+        // arrange
+        Neo4JLabelSet set = Neo4JLabelSet.of(Arrays.asList("Person"));
+        // act
+        Neo4JLabelSet result = set.with("Person");
+        // assert
+        Assert.assertSame("Label set should not be modified", set, result);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+public class Neo4JLongMapWhileUpdatingTest {
+
+    @Test
+    public void givenLongKeyShouldReturnValue() {
+        // arrange
+        Neo4JLongMap<String> map = new Neo4JLongMap<>(false);
+        map.put(1L, "a");
+        map.put(2L, "b");
+        // act
+        String result = map.get(2L);
+        // assert
+        Assert.assertEquals("Invalid value", "b", result);
+        Assert.assertEquals("Invalid size", 2, map.size());
+        Assert.assertTrue("Key should be in map", map.containsKey(1L));
+        Assert.assertFalse("Key should not be in map", map.containsKey(3L));
+    }
+
+    @Test
+    public void givenNonLongKeyShouldNotFindValue() {
+        // arrange
+        Neo4JLongMap<String> map = new Neo4JLongMap<>(false);
+        map.put(1L, "a");
+        // act
+        String result = map.get(1);
+        // assert
+        Assert.assertNull("Non long keys should not be found", result);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNonLongKeyShouldThrowExceptionOnPut() {
+        // arrange
+        Neo4JLongMap<String> map = new Neo4JLongMap<>(false);
+        // act
+        map.put("1", "a");
+    }
+
+    @Test
+    public void givenAccessOrderShouldIterateLeastRecentlyUsedFirst() {
+        // arrange
+        Neo4JLongMap<String> map = new Neo4JLongMap<>(true);
+        map.put(1L, "a");
+        map.put(2L, "b");
+        map.put(3L, "c");
+        // act
+        map.get(1L);
+        // assert
+        Assert.assertEquals("Invalid iteration order", Arrays.asList("b", "c", "a"), new ArrayList<>(map.values()));
+    }
+
+    @Test
+    public void givenIteratorRemoveShouldRemoveEntry() {
+        // arrange
+        Neo4JLongMap<String> map = new Neo4JLongMap<>(false);
+        map.put(1L, "a");
+        map.put(2L, "b");
+        map.put(3L, "c");
+        Iterator<String> iterator = map.values().iterator();
+        iterator.next();
+        // act
+        iterator.remove();
+        // assert
+        Assert.assertEquals("Invalid size", 2, map.size());
+        Assert.assertFalse("Key should not be in map", map.containsKey(1L));
+        Assert.assertEquals("Invalid iteration order", Arrays.asList("b", "c"), new ArrayList<>(map.values()));
+    }
+
+    @Test
+    public void givenRandomUpdatesShouldMatchHashMap() {
+        // arrange
+        Neo4JLongMap<Long> map = new Neo4JLongMap<>(false);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(17);
+        // act
+        for (int i = 0; i < 100000; i++) {
+            // random key
+            long key = random.nextInt(5000) * 4096L;
+            // update maps
+            if (random.nextBoolean())
+                Assert.assertEquals("Invalid put() result", expected.put(key, (long)i), map.put(key, (long)i));
+            else
+                Assert.assertEquals("Invalid remove() result", expected.remove(key), map.remove(key));
+        }
+        // assert
+        Assert.assertEquals("Invalid map contents", expected, map);
+    }
+}
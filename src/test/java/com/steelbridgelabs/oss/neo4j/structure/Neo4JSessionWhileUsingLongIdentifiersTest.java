@@ -0,0 +1,149 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import com.steelbridgelabs.oss.neo4j.structure.providers.Neo4JNativeElementIdProvider;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.types.Node;
+
+import java.util.Collections;
+import java.util.function.Consumer;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JSessionWhileUsingLongIdentifiersTest {
+
+    @Mock
+    private Driver driver;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Transaction transaction;
+
+    private final Neo4JElementIdProvider<Long> provider = new Neo4JNativeElementIdProvider();
+
+    @Mock
+    private StatementResult statementResult;
+
+    @Mock
+    private ResultSummary resultSummary;
+
+    @Mock
+    private Record record;
+
+    @Mock
+    private Value value;
+
+    @Mock
+    private Node node1;
+
+    @Mock
+    private Node node2;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenIntegerIdentifierShouldReturnVertexInSession() {
+        // arrange
+        arrange();
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            Vertex vertex = graph.vertices(1L).next();
+            // act
+            Vertex result = graph.vertices(1).next();
+            // assert
+            Assert.assertSame("Vertex should be returned from session", vertex, result);
+            Mockito.verify(transaction, Mockito.times(1)).run(Mockito.any(Statement.class));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenSessionAtCapacityShouldEvictLeastRecentlyUsedVertex() {
+        // arrange
+        arrange();
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            graph.setSessionCapacity(1);
+            graph.vertices(1L);
+            graph.vertices(2L);
+            // act
+            graph.vertices(2L);
+            graph.vertices(1L);
+            // assert
+            Mockito.verify(transaction, Mockito.times(3)).run(Mockito.any(Statement.class));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenMissingIdentifierShouldNotQueryServerTwice() {
+        // arrange
+        arrange();
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            graph.vertices(1L, 3L);
+            // act
+            graph.vertices(3L);
+            // assert
+            Mockito.verify(transaction, Mockito.times(1)).run(Mockito.any(Statement.class));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void arrange() {
+        Mockito.when(driver.session(Mockito.any(AccessMode.class), Mockito.any(Iterable.class))).thenReturn(session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.isOpen()).thenAnswer(invocation -> true);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> {
+            // node with requested id
+            Value id = ((Statement)invocation.getArguments()[0]).parameters().get("id");
+            Node node = id.isNull() || id.asLong() == 1L ? node1 : node2;
+            Mockito.doAnswer(forEach -> {
+                ((Consumer<Record>)forEach.getArguments()[0]).accept(record);
+                return null;
+            }).when(statementResult).forEachRemaining(Mockito.any(Consumer.class));
+            Mockito.when(value.asNode()).thenAnswer(result -> node);
+            return statementResult;
+        });
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(record.get(0)).thenAnswer(invocation -> value);
+        Mockito.when(node1.id()).thenAnswer(invocation -> 1L);
+        Mockito.when(node1.labels()).thenAnswer(invocation -> Collections.singletonList("Person"));
+        Mockito.when(node1.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(node2.id()).thenAnswer(invocation -> 2L);
+        Mockito.when(node2.labels()).thenAnswer(invocation -> Collections.singletonList("Person"));
+        Mockito.when(node2.keys()).thenAnswer(invocation -> Collections.emptyList());
+    }
+}
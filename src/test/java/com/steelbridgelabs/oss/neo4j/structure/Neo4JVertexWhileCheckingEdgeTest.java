@@ -0,0 +1,166 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Transaction;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Values;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.types.Node;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JVertexWhileCheckingEdgeTest {
+
+    @Mock
+    private Neo4JGraph graph;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private Neo4JSession session;
+
+    @Mock
+    private Neo4JReadPartition partition;
+
+    @Mock
+    private Node node;
+
+    @Mock
+    private Neo4JElementIdProvider vertexIdProvider;
+
+    @Mock
+    private Neo4JElementIdProvider edgeIdProvider;
+
+    @Mock
+    private Graph.Features.VertexFeatures vertexFeatures;
+
+    @Mock
+    private Graph.Features features;
+
+    @Mock
+    private Neo4JVertex otherVertex;
+
+    @Mock
+    private Neo4JEdge edge;
+
+    @Mock
+    private StatementResult statementResult;
+
+    @Mock
+    private ResultSummary resultSummary;
+
+    @Test
+    public void givenEdgesNotInMemoryShouldExecuteSingleStatement() {
+        // arrange
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("id", 1L);
+        parameters.put("oid", 2L);
+        Mockito.when(vertexFeatures.getCardinality(Mockito.anyString())).thenAnswer(invocation -> VertexProperty.Cardinality.single);
+        Mockito.when(features.vertex()).thenAnswer(invocation -> vertexFeatures);
+        Mockito.when(partition.validateLabel(Mockito.anyString())).thenAnswer(invocation -> true);
+        Mockito.when(graph.tx()).thenAnswer(invocation -> transaction);
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.features()).thenAnswer(invocation -> features);
+        Mockito.when(node.get(Mockito.eq("id"))).thenAnswer(invocation -> Values.value(1L));
+        Mockito.when(node.labels()).thenAnswer(invocation -> Collections.singletonList("l1"));
+        Mockito.when(node.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(vertexIdProvider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> invocation.getArguments()[0] + ".id");
+        Mockito.when(vertexIdProvider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(vertexIdProvider.get(Mockito.any())).thenAnswer(invocation -> 1L);
+        Mockito.when(vertexIdProvider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`)-[r:`follows`]->(m) WHERE n.id = {id} AND m.id = {oid} RETURN n, r, m LIMIT 1", parameters)))).thenAnswer(invocation -> statementResult);
+        Mockito.when(session.edges(Mockito.eq(statementResult))).thenAnswer(invocation -> Collections.singleton(edge).stream());
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Neo4JVertex vertex = new Neo4JVertex(graph, session, vertexIdProvider, edgeIdProvider, node);
+        // act
+        boolean result = vertex.hasEdge(Direction.OUT, 2L, "follows");
+        // assert
+        Assert.assertTrue("Failed to find edge", result);
+        Mockito.verify(session, Mockito.times(1)).executeStatement(Mockito.any(Statement.class));
+    }
+
+    @Test
+    public void givenEdgeInMemoryShouldNotExecuteStatement() {
+        // arrange
+        Mockito.when(vertexFeatures.getCardinality(Mockito.anyString())).thenAnswer(invocation -> VertexProperty.Cardinality.single);
+        Mockito.when(features.vertex()).thenAnswer(invocation -> vertexFeatures);
+        Mockito.when(partition.validateLabel(Mockito.anyString())).thenAnswer(invocation -> true);
+        Mockito.when(graph.tx()).thenAnswer(invocation -> transaction);
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.features()).thenAnswer(invocation -> features);
+        Mockito.when(node.get(Mockito.eq("id"))).thenAnswer(invocation -> Values.value(1L));
+        Mockito.when(node.labels()).thenAnswer(invocation -> Collections.singletonList("l1"));
+        Mockito.when(node.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(vertexIdProvider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(vertexIdProvider.get(Mockito.any())).thenAnswer(invocation -> 1L);
+        Mockito.when(vertexIdProvider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(otherVertex.id()).thenAnswer(invocation -> 2L);
+        Mockito.when(edge.inVertex()).thenAnswer(invocation -> otherVertex);
+        Mockito.when(edge.label()).thenAnswer(invocation -> "follows");
+        Neo4JVertex vertex = new Neo4JVertex(graph, session, vertexIdProvider, edgeIdProvider, node);
+        vertex.addOutEdge(edge);
+        // act
+        boolean result = vertex.hasEdge(Direction.OUT, otherVertex, "follows");
+        // assert
+        Assert.assertTrue("Failed to find edge", result);
+        Mockito.verify(session, Mockito.never()).executeStatement(Mockito.any(Statement.class));
+    }
+
+    @Test
+    public void givenEdgesLoadedInMemoryShouldNotExecuteStatement() {
+        // arrange
+        Mockito.when(vertexFeatures.getCardinality(Mockito.anyString())).thenAnswer(invocation -> VertexProperty.Cardinality.single);
+        Mockito.when(features.vertex()).thenAnswer(invocation -> vertexFeatures);
+        Mockito.when(partition.validateLabel(Mockito.anyString())).thenAnswer(invocation -> true);
+        Mockito.when(graph.tx()).thenAnswer(invocation -> transaction);
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.features()).thenAnswer(invocation -> features);
+        Mockito.when(node.get(Mockito.eq("id"))).thenAnswer(invocation -> Values.value(1L));
+        Mockito.when(node.labels()).thenAnswer(invocation -> Collections.singletonList("l1"));
+        Mockito.when(node.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(vertexIdProvider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(vertexIdProvider.get(Mockito.any())).thenAnswer(invocation -> 1L);
+        Mockito.when(vertexIdProvider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Neo4JVertex vertex = new Neo4JVertex(graph, session, vertexIdProvider, edgeIdProvider, node);
+        vertex.setEdgesLoaded(Direction.OUT, Collections.singleton("follows"));
+        // act
+        boolean result = vertex.hasEdge(Direction.OUT, 2L, "follows");
+        // assert
+        Assert.assertFalse("Edge should not exist", result);
+        Mockito.verify(session, Mockito.never()).executeStatement(Mockito.any(Statement.class));
+    }
+}
@@ -466,4 +466,73 @@ public class Neo4JVertexWhileGettingOutEdgesTest {
         // assert
         Assert.assertFalse("Edges iterator should be empty", edges.hasNext());
     }
+
+    @Test
+    public void givenLabelShouldGetEdgesInRelationshipTypeBucket() {
+        // arrange
+        Mockito.when(vertexFeatures.getCardinality(Mockito.anyString())).thenAnswer(invocation -> VertexProperty.Cardinality.single);
+        Mockito.when(features.vertex()).thenAnswer(invocation -> vertexFeatures);
+        Mockito.when(partition.validateLabel(Mockito.anyString())).thenAnswer(invocation -> true);
+        Mockito.when(graph.tx()).thenAnswer(invocation -> transaction);
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.features()).thenAnswer(invocation -> features);
+        Mockito.when(node.get(Mockito.eq("id"))).thenAnswer(invocation -> Values.value(1L));
+        Mockito.when(node.labels()).thenAnswer(invocation -> Collections.singletonList("l1"));
+        Mockito.when(node.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(vertexIdProvider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(vertexIdProvider.get(Mockito.any())).thenAnswer(invocation -> 1L);
+        Mockito.when(edge1.id()).thenAnswer(invocation -> 100L);
+        Mockito.when(edge1.label()).thenAnswer(invocation -> "EL1");
+        Mockito.when(edge2.id()).thenAnswer(invocation -> 200L);
+        Mockito.when(edge2.label()).thenAnswer(invocation -> "EL2");
+        Neo4JVertex vertex = new Neo4JVertex(graph, session, vertexIdProvider, edgeIdProvider, node);
+        vertex.setEdgesLoaded(Direction.OUT, Collections.emptySet());
+        vertex.addOutEdge(edge1);
+        vertex.addOutEdge(edge2);
+        vertex.removeEdge(edge1);
+        // act
+        Iterator<Edge> edges = vertex.edges(Direction.OUT, "EL2");
+        // assert
+        Assert.assertTrue("Edges iterator is empty", edges.hasNext());
+        Assert.assertEquals("Invalid edge", edge2, edges.next());
+        Assert.assertFalse("Edges iterator cannot not contain two elements", edges.hasNext());
+        Assert.assertFalse("Removed edge should not be returned", vertex.edges(Direction.OUT, "EL1").hasNext());
+        Mockito.verify(session, Mockito.never()).executeStatement(Mockito.any(Statement.class));
+    }
+
+    @Test
+    public void givenEdgeRemovedWhileIteratingShouldIterateSnapshot() {
+        // arrange
+        Mockito.when(vertexFeatures.getCardinality(Mockito.anyString())).thenAnswer(invocation -> VertexProperty.Cardinality.single);
+        Mockito.when(features.vertex()).thenAnswer(invocation -> vertexFeatures);
+        Mockito.when(partition.validateLabel(Mockito.anyString())).thenAnswer(invocation -> true);
+        Mockito.when(graph.tx()).thenAnswer(invocation -> transaction);
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.features()).thenAnswer(invocation -> features);
+        Mockito.when(node.get(Mockito.eq("id"))).thenAnswer(invocation -> Values.value(1L));
+        Mockito.when(node.labels()).thenAnswer(invocation -> Collections.singletonList("l1"));
+        Mockito.when(node.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(vertexIdProvider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(vertexIdProvider.get(Mockito.any())).thenAnswer(invocation -> 1L);
+        Mockito.when(edge1.id()).thenAnswer(invocation -> 100L);
+        Mockito.when(edge1.label()).thenAnswer(invocation -> "EL1");
+        Mockito.when(edge2.id()).thenAnswer(invocation -> 200L);
+        Mockito.when(edge2.label()).thenAnswer(invocation -> "EL2");
+        Neo4JVertex vertex = new Neo4JVertex(graph, session, vertexIdProvider, edgeIdProvider, node);
+        vertex.setEdgesLoaded(Direction.OUT, Collections.emptySet());
+        vertex.addOutEdge(edge1);
+        vertex.addOutEdge(edge2);
+        Iterator<Edge> edges = vertex.edges(Direction.OUT);
+        // act
+        vertex.removeEdge(edge1);
+        vertex.removeEdge(edge2);
+        // assert
+        Assert.assertTrue("Edges iterator is empty", edges.hasNext());
+        Assert.assertNotNull("Failed to get edge", edges.next());
+        Assert.assertTrue("Edges iterator does not contain two elements", edges.hasNext());
+        Assert.assertNotNull("Failed to get edge", edges.next());
+        Assert.assertFalse("Edges iterator cannot contain three elements", edges.hasNext());
+        Assert.assertFalse("Removed edges should not be returned", vertex.edges(Direction.OUT).hasNext());
+        Mockito.verify(session, Mockito.never()).executeStatement(Mockito.any(Statement.class));
+    }
 }
@@ -192,4 +192,63 @@ public class Neo4JVertexWhileGettingPropertiesTest {
         result.next();
         Assert.assertFalse("Too many properties in edge", result.hasNext());
     }
+
+    @Test
+    public void givenListPropertyShouldGetStableAndDistinctPropertyIdentifiers() {
+        // arrange
+        Mockito.when(vertexFeatures.getCardinality(Mockito.anyString())).thenAnswer(invocation -> VertexProperty.Cardinality.list);
+        Mockito.when(features.vertex()).thenAnswer(invocation -> vertexFeatures);
+        Mockito.when(partition.validateLabel(Mockito.anyString())).thenAnswer(invocation -> true);
+        Mockito.when(graph.tx()).thenAnswer(invocation -> transaction);
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.features()).thenAnswer(invocation -> features);
+        Mockito.when(node.get(Mockito.eq("id"))).thenAnswer(invocation -> Values.value(1L));
+        Mockito.when(node.labels()).thenAnswer(invocation -> Collections.singletonList("l1"));
+        Mockito.when(node.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(provider.generate()).thenAnswer(invocation -> 2L);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, provider, node);
+        vertex.property(VertexProperty.Cardinality.list, "test", 1L);
+        vertex.property(VertexProperty.Cardinality.list, "test", 2L);
+        // act
+        Iterator<VertexProperty<Long>> result = vertex.properties("test");
+        // assert
+        VertexProperty<Long> first = result.next();
+        VertexProperty<Long> second = result.next();
+        Assert.assertNotNull("Property identifier cannot be null", first.id());
+        Assert.assertEquals("Property identifier must be stable", first.id(), first.id());
+        Assert.assertNotEquals("Property identifiers must be distinct", first.id(), second.id());
+        Assert.assertNotEquals("Properties must not be equal", first, second);
+    }
+
+    @Test
+    public void givenPropertyRemovedWhileIteratingShouldIterateSnapshot() {
+        // arrange
+        Mockito.when(vertexFeatures.getCardinality(Mockito.anyString())).thenAnswer(invocation -> VertexProperty.Cardinality.list);
+        Mockito.when(features.vertex()).thenAnswer(invocation -> vertexFeatures);
+        Mockito.when(partition.validateLabel(Mockito.anyString())).thenAnswer(invocation -> true);
+        Mockito.when(graph.tx()).thenAnswer(invocation -> transaction);
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.features()).thenAnswer(invocation -> features);
+        Mockito.when(node.get(Mockito.eq("id"))).thenAnswer(invocation -> Values.value(1L));
+        Mockito.when(node.labels()).thenAnswer(invocation -> Collections.singletonList("l1"));
+        Mockito.when(node.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(provider.generate()).thenAnswer(invocation -> 2L);
+        Mockito.when(provider.fieldName()).thenAnswer(invocation -> "id");
+        Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, provider, node);
+        vertex.property(VertexProperty.Cardinality.list, "test", 1L);
+        vertex.property(VertexProperty.Cardinality.list, "test", 2L);
+        vertex.property(VertexProperty.Cardinality.list, "other", 3L);
+        Iterator<VertexProperty<Long>> result = vertex.properties();
+        // act
+        vertex.properties().forEachRemaining(Property::remove);
+        // assert
+        int count = 0;
+        while (result.hasNext()) {
+            result.next();
+            count++;
+        }
+        Assert.assertEquals("Invalid number of properties in iterator", 3, count);
+        Assert.assertFalse("Properties should be removed", vertex.properties().hasNext());
+    }
 }
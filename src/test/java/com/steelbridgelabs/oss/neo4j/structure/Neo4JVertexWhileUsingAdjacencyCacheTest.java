@@ -0,0 +1,226 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import com.steelbridgelabs.oss.neo4j.structure.partitions.AllLabelReadPartition;
+import com.steelbridgelabs.oss.neo4j.structure.partitions.AnyLabelReadPartition;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Transaction;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Values;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.types.Node;
+import org.neo4j.driver.v1.types.Relationship;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JVertexWhileUsingAdjacencyCacheTest {
+
+    @Mock
+    private Neo4JGraph graph;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private Neo4JSession session;
+
+    @Mock
+    private Neo4JReadPartition partition;
+
+    @Mock
+    private Node node;
+
+    @Mock
+    private Node otherNode;
+
+    @Mock
+    private Relationship relationship;
+
+    @Mock
+    private Neo4JElementIdProvider vertexIdProvider;
+
+    @Mock
+    private Neo4JElementIdProvider edgeIdProvider;
+
+    @Mock
+    private Graph.Features.VertexFeatures vertexFeatures;
+
+    @Mock
+    private Graph.Features features;
+
+    @Mock
+    private Neo4JVertex otherVertex;
+
+    @Mock
+    private Neo4JEdge edge;
+
+    @Mock
+    private StatementResult statementResult;
+
+    @Mock
+    private ResultSummary resultSummary;
+
+    @Test
+    public void givenCachedAdjacencyShouldLoadEdgesWithoutStatement() {
+        // arrange
+        Neo4JElementCache elementCache = new Neo4JElementCache(10, 0, TimeUnit.SECONDS);
+        elementCache.putEdge(100L, node, relationship, otherNode);
+        Neo4JAdjacencyCache adjacencyCache = new Neo4JAdjacencyCache(10, 0, TimeUnit.SECONDS);
+        adjacencyCache.put(1L, Direction.OUT, null, new Object[]{100L}, new Object[]{2L});
+        arrange(elementCache, adjacencyCache);
+        Neo4JVertex vertex = new Neo4JVertex(graph, session, vertexIdProvider, edgeIdProvider, node);
+        // act
+        vertex.edges(Direction.OUT);
+        // assert
+        Mockito.verify(session, Mockito.times(1)).loadEdge(Mockito.eq(node), Mockito.eq(relationship), Mockito.eq(otherNode), Mockito.eq(false));
+        Mockito.verify(session, Mockito.never()).executeStatement(Mockito.any(Statement.class));
+    }
+
+    @Test
+    public void givenCachedAdjacencyWithEdgeNotInElementCacheShouldExecuteStatement() {
+        // arrange
+        Neo4JAdjacencyCache adjacencyCache = new Neo4JAdjacencyCache(10, 0, TimeUnit.SECONDS);
+        adjacencyCache.put(1L, Direction.OUT, null, new Object[]{100L}, new Object[]{2L});
+        arrange(new Neo4JElementCache(10, 0, TimeUnit.SECONDS), adjacencyCache);
+        Mockito.when(session.executeStatement(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(session.edges(Mockito.eq(statementResult))).thenAnswer(invocation -> Stream.empty());
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Neo4JVertex vertex = new Neo4JVertex(graph, session, vertexIdProvider, edgeIdProvider, node);
+        // act
+        vertex.edges(Direction.OUT);
+        // assert
+        Mockito.verify(session, Mockito.times(1)).executeStatement(Mockito.any(Statement.class));
+    }
+
+    @Test
+    public void givenLoadedEdgesShouldStoreAdjacencyInCache() {
+        // arrange
+        Neo4JAdjacencyCache adjacencyCache = new Neo4JAdjacencyCache(10, 0, TimeUnit.SECONDS);
+        arrange(new Neo4JElementCache(10, 0, TimeUnit.SECONDS), adjacencyCache);
+        Mockito.when(session.executeStatement(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(session.edges(Mockito.eq(statementResult))).thenAnswer(invocation -> Stream.empty());
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(edge.id()).thenAnswer(invocation -> 100L);
+        Mockito.when(edge.label()).thenAnswer(invocation -> "EL");
+        Mockito.when(edge.inVertex()).thenAnswer(invocation -> otherVertex);
+        Mockito.when(otherVertex.id()).thenAnswer(invocation -> 2L);
+        Neo4JVertex vertex = new Neo4JVertex(graph, session, vertexIdProvider, edgeIdProvider, node);
+        vertex.addOutEdge(edge);
+        // act
+        vertex.edges(Direction.OUT, "EL");
+        // assert
+        Neo4JAdjacencyCache.Adjacency adjacency = adjacencyCache.get(1L, Direction.OUT, "EL");
+        Assert.assertNotNull("Failed to store adjacency", adjacency);
+        Assert.assertArrayEquals("Invalid edge identifiers", new Object[]{100L}, adjacency.getEdgeIds());
+        Assert.assertArrayEquals("Invalid neighbour identifiers", new Object[]{2L}, adjacency.getNeighbourIds());
+    }
+
+    @Test
+    public void givenCacheAtMaximumSizeShouldEvictLeastRecentlyUsedAdjacency() {
+        // arrange
+        Neo4JAdjacencyCache cache = new Neo4JAdjacencyCache(3, 0, TimeUnit.SECONDS);
+        cache.put(1L, Direction.OUT, null, new Object[]{100L, 101L}, new Object[]{2L, 3L});
+        cache.put(2L, Direction.OUT, null, new Object[]{102L}, new Object[]{3L});
+        cache.get(1L, Direction.OUT, null);
+        // act
+        cache.put(3L, Direction.IN, null, new Object[]{103L}, new Object[]{4L});
+        // assert
+        Assert.assertNotNull("Recently used adjacency should not be evicted", cache.get(1L, Direction.OUT, null));
+        Assert.assertNull("Least recently used adjacency should be evicted", cache.get(2L, Direction.OUT, null));
+        Assert.assertEquals("Invalid cache size", 3, cache.size());
+    }
+
+    @Test
+    public void givenVertexInvalidationShouldRemoveVertexAdjacency() {
+        // arrange
+        Neo4JAdjacencyCache cache = new Neo4JAdjacencyCache(10, 0, TimeUnit.SECONDS);
+        cache.put(1L, Direction.OUT, "EL", new Object[]{100L}, new Object[]{2L});
+        cache.put(1L, Direction.IN, null, new Object[]{101L}, new Object[]{3L});
+        cache.put(2L, Direction.IN, null, new Object[]{100L}, new Object[]{1L});
+        // act
+        cache.invalidateVertex(1L);
+        // assert
+        Assert.assertNull("Vertex adjacency should be removed", cache.get(1L, Direction.OUT, "EL"));
+        Assert.assertNull("Vertex adjacency should be removed", cache.get(1L, Direction.IN, null));
+        Assert.assertNotNull("Other vertex adjacency should not be removed", cache.get(2L, Direction.IN, null));
+        Assert.assertEquals("Invalid cache size", 1, cache.size());
+    }
+
+    @Test
+    public void givenEvictedAdjacencyShouldInvalidateRemainingVertexAdjacency() {
+        // arrange
+        Neo4JAdjacencyCache cache = new Neo4JAdjacencyCache(2, 0, TimeUnit.SECONDS);
+        cache.put(1L, Direction.OUT, null, new Object[]{100L}, new Object[]{2L});
+        cache.put(1L, Direction.IN, null, new Object[]{101L}, new Object[]{3L});
+        cache.put(2L, Direction.OUT, null, new Object[]{102L}, new Object[]{3L});
+        // act
+        cache.invalidateVertex(1L);
+        // assert
+        Assert.assertNull("Vertex adjacency should be removed", cache.get(1L, Direction.IN, null));
+        Assert.assertNotNull("Other vertex adjacency should not be removed", cache.get(2L, Direction.OUT, null));
+        Assert.assertEquals("Invalid cache size", 1, cache.size());
+        // invalidate again
+        cache.invalidateVertex(1L);
+        Assert.assertEquals("Invalid cache size", 1, cache.size());
+    }
+
+    private void arrange(Neo4JElementCache elementCache, Neo4JAdjacencyCache adjacencyCache) {
+        Mockito.when(vertexFeatures.getCardinality(Mockito.anyString())).thenAnswer(invocation -> VertexProperty.Cardinality.single);
+        Mockito.when(features.vertex()).thenAnswer(invocation -> vertexFeatures);
+        Mockito.when(partition.validateLabel(Mockito.anyString())).thenAnswer(invocation -> true);
+        Mockito.when(graph.tx()).thenAnswer(invocation -> transaction);
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.features()).thenAnswer(invocation -> features);
+        Mockito.when(graph.getElementCache()).thenAnswer(invocation -> elementCache);
+        Mockito.when(graph.getAdjacencyCache()).thenAnswer(invocation -> adjacencyCache);
+        Mockito.when(node.get(Mockito.eq("id"))).thenAnswer(invocation -> Values.value(1L));
+        Mockito.when(node.labels()).thenAnswer(invocation -> Collections.singletonList("l1"));
+        Mockito.when(node.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(vertexIdProvider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> "n.id");
+        Mockito.when(vertexIdProvider.fieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(vertexIdProvider.get(Mockito.any())).thenAnswer(invocation -> 1L);
+        Mockito.when(edgeIdProvider.matchPredicateOperand(Mockito.anyString())).thenAnswer(invocation -> "r.id");
+        Mockito.when(edgeIdProvider.fieldName()).thenAnswer(invocation -> "id");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenCacheBoundToPartitionShouldNotAcceptDifferentPartition() {
+        // arrange
+        Neo4JAdjacencyCache cache = new Neo4JAdjacencyCache(2, 0, TimeUnit.SECONDS);
+        cache.bind(new AllLabelReadPartition("A"));
+        // act
+        cache.bind(new AnyLabelReadPartition("A", "B"));
+    }
+}
@@ -21,6 +21,7 @@ package com.steelbridgelabs.oss.neo4j.structure.providers;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
@@ -32,6 +33,8 @@ import org.neo4j.driver.v1.StatementResult;
 import org.neo4j.driver.v1.Transaction;
 import org.neo4j.driver.v1.Values;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * @author Rogelio J. Baucells
  */
@@ -98,4 +101,118 @@ public class DatabaseSequenceElementIdProviderWhileGeneratingIdTest {
         Assert.assertNotNull("Invalid identifier value", id);
         Assert.assertTrue("Provider returned an invalid identifier value", id == 2L);
     }
+
+    @Test
+    public void givenLowWatermarkShouldRequestNextPoolBeforeCurrentPoolIsExhausted() {
+        // arrange
+        Mockito.when(record.get(Mockito.eq(0))).thenAnswer(invocation -> Values.value(2)).thenAnswer(invocation -> Values.value(4));
+        Mockito.when(result.hasNext()).thenAnswer(invocation -> true);
+        Mockito.when(result.next()).thenAnswer(invocation -> record);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> result);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(driver.session()).thenAnswer(invocation -> session);
+        DatabaseSequenceElementIdProvider provider = new DatabaseSequenceElementIdProvider(driver, 2, "field1", "label", 1, Runnable::run);
+        // act
+        Long id = provider.generate();
+        // assert
+        Assert.assertTrue("Provider returned an invalid identifier value", id == 1L);
+        Mockito.verify(transaction, Mockito.times(1)).run(Mockito.any(Statement.class));
+        // act
+        id = provider.generate();
+        // assert
+        Assert.assertTrue("Provider returned an invalid identifier value", id == 2L);
+        Mockito.verify(transaction, Mockito.times(2)).run(Mockito.any(Statement.class));
+        // act
+        id = provider.generate();
+        // assert
+        Assert.assertTrue("Provider returned an invalid identifier value", id == 3L);
+        Mockito.verify(transaction, Mockito.times(2)).run(Mockito.any(Statement.class));
+    }
+
+    @Test
+    public void givenFailedPrefetchShouldRequestPoolAgain() {
+        // arrange
+        Mockito.when(record.get(Mockito.eq(0))).thenAnswer(invocation -> Values.value(1)).thenThrow(new IllegalStateException("failed")).thenAnswer(invocation -> Values.value(2));
+        Mockito.when(result.hasNext()).thenAnswer(invocation -> true);
+        Mockito.when(result.next()).thenAnswer(invocation -> record);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> result);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(driver.session()).thenAnswer(invocation -> session);
+        DatabaseSequenceElementIdProvider provider = new DatabaseSequenceElementIdProvider(driver, 1, "field1", "label", 1, Runnable::run);
+        provider.generate();
+        try {
+            // act
+            provider.generate();
+            // assert
+            Assert.fail("Prefetch error was not propagated");
+        }
+        catch (IllegalStateException ex) {
+            // assert
+            Assert.assertEquals("Invalid exception", "failed", ex.getMessage());
+        }
+        // act
+        Long id = provider.generate();
+        // assert
+        Assert.assertTrue("Provider returned an invalid identifier value", id == 2L);
+    }
+
+    @Test
+    public void givenAdaptivePoolSizeAndHighAllocationRateShouldGrowPoolSize() {
+        // arrange
+        AtomicLong nextId = new AtomicLong(0);
+        Mockito.when(record.get(Mockito.eq(0))).thenAnswer(invocation -> Values.value(nextId.get()));
+        Mockito.when(result.hasNext()).thenAnswer(invocation -> true);
+        Mockito.when(result.next()).thenAnswer(invocation -> record);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> {
+            // reserve identifiers
+            nextId.addAndGet(((Statement)invocation.getArguments()[0]).parameters().get("poolSize").asLong());
+            // return result
+            return result;
+        });
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(driver.session()).thenAnswer(invocation -> session);
+        DatabaseSequenceElementIdProvider provider = new DatabaseSequenceElementIdProvider(driver, 2, 8, "field1", "label", 0, Runnable::run);
+        // act
+        for (long expected = 1; expected <= 8; expected++)
+            Assert.assertEquals("Provider returned an invalid identifier value", expected, (long)provider.generate());
+        // assert
+        Assert.assertEquals("Invalid refill count", 3, provider.refillCount());
+        Assert.assertEquals("Invalid pool size", 8, provider.poolSize());
+        // act
+        Long id = provider.generate();
+        // assert
+        Assert.assertTrue("Provider returned an invalid identifier value", id == 9L);
+        Assert.assertEquals("Invalid refill count", 4, provider.refillCount());
+        Assert.assertEquals("Pool size should not exceed maximum", 8, provider.poolSize());
+    }
+
+    @Test
+    public void givenShardedSequenceShouldGenerateIdentifiersInShardResidueClass() {
+        // arrange
+        Mockito.when(record.get(Mockito.eq(0))).thenAnswer(invocation -> Values.value(2));
+        Mockito.when(result.hasNext()).thenAnswer(invocation -> true);
+        Mockito.when(result.next()).thenAnswer(invocation -> record);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> result);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(driver.session()).thenAnswer(invocation -> session);
+        DatabaseSequenceElementIdProvider provider = new DatabaseSequenceElementIdProvider(driver, 2, 2, "field1", "label", 0, Runnable::run, 4, 3);
+        // act
+        Long id1 = provider.generate();
+        Long id2 = provider.generate();
+        // assert
+        Assert.assertTrue("Provider returned an invalid identifier value", id1 == 7L);
+        Assert.assertTrue("Provider returned an invalid identifier value", id2 == 11L);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        Mockito.verify(transaction, Mockito.times(1)).run(argument.capture());
+        Assert.assertEquals("Invalid statement", "MERGE (g:`label`{shard: {shard}}) ON CREATE SET g.nextId = 1 ON MATCH SET g.nextId = g.nextId + {poolSize} RETURN g.nextId", argument.getValue().text());
+        Assert.assertEquals("Invalid shard parameter", 3, argument.getValue().parameters().get("shard").asInt());
+    }
+
+    @Test
+    public void givenShardCountShouldSelectShardInRange() {
+        // act
+        DatabaseSequenceElementIdProvider provider = new DatabaseSequenceElementIdProvider(driver, 2, 2, "field1", "label", 0, Runnable::run, 4);
+        // assert
+        Assert.assertTrue("Invalid shard", provider.shard() >= 0 && provider.shard() < 4);
+    }
 }
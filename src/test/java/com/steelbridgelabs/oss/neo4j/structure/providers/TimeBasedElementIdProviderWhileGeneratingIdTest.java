@@ -0,0 +1,117 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure.providers;
+
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraphConfigurationBuilder;
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class TimeBasedElementIdProviderWhileGeneratingIdTest {
+
+    @Test
+    public void givenTimestampShouldComposeIdentifier() {
+        // arrange
+        TimeBasedElementIdProvider provider = new TimeBasedElementIdProvider(5, "id", 1000L, 1000L, () -> 1010L);
+        // act
+        Long id = provider.generate();
+        // assert
+        Assert.assertEquals("Invalid identifier value", (10L << 22) | (5L << 12), (long)id);
+    }
+
+    @Test
+    public void givenSameTimestampShouldIncrementSequence() {
+        // arrange
+        TimeBasedElementIdProvider provider = new TimeBasedElementIdProvider(5, "id", 1000L, 1000L, () -> 1010L);
+        // act
+        Long id1 = provider.generate();
+        Long id2 = provider.generate();
+        // assert
+        Assert.assertEquals("Invalid identifier value", id1 + 1, (long)id2);
+    }
+
+    @Test
+    public void givenExhaustedSequenceShouldMoveToNextTimestamp() {
+        // arrange
+        TimeBasedElementIdProvider provider = new TimeBasedElementIdProvider(5, "id", 1000L, 1000L, () -> 1010L);
+        for (int i = 0; i < 4096; i++)
+            provider.generate();
+        // act
+        Long id = provider.generate();
+        // assert
+        Assert.assertEquals("Invalid identifier value", (11L << 22) | (5L << 12), (long)id);
+    }
+
+    @Test
+    public void givenClockMovedBackwardsShouldGenerateIncreasingIdentifiers() {
+        // arrange
+        AtomicLong clock = new AtomicLong(2000L);
+        TimeBasedElementIdProvider provider = new TimeBasedElementIdProvider(5, "id", 1000L, 1000L, clock::get);
+        Long id1 = provider.generate();
+        clock.set(1500L);
+        // act
+        Long id2 = provider.generate();
+        // assert
+        Assert.assertTrue("Identifiers must be increasing", id2 > id1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void givenClockMovedBackwardsMoreThanMaximumSkewShouldThrowException() {
+        // arrange
+        AtomicLong clock = new AtomicLong(5000L);
+        TimeBasedElementIdProvider provider = new TimeBasedElementIdProvider(5, "id", 1000L, 1000L, clock::get);
+        provider.generate();
+        clock.set(2000L);
+        // act
+        provider.generate();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenWorkerIdOutOfRangeShouldThrowException() {
+        // act
+        new TimeBasedElementIdProvider(1024);
+    }
+
+    @Test
+    public void givenConfigurationWithWorkerIdShouldUseWorkerId() {
+        // arrange
+        Configuration configuration = new BaseConfiguration();
+        configuration.setProperty(Neo4JGraphConfigurationBuilder.Neo4JWorkerIdConfigurationKey, 7L);
+        // act
+        TimeBasedElementIdProvider provider = new TimeBasedElementIdProvider(configuration);
+        // assert
+        Assert.assertEquals("Invalid worker id", 7L, provider.workerId());
+        Assert.assertEquals("Invalid worker id in identifier", 7L, (provider.generate() >>> TimeBasedElementIdProvider.SequenceBits) & TimeBasedElementIdProvider.MaximumWorkerId);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenConfigurationWithoutWorkerIdShouldThrowException() {
+        // act
+        new TimeBasedElementIdProvider(new BaseConfiguration());
+    }
+}